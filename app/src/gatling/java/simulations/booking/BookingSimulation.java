@@ -4,15 +4,32 @@ import io.gatling.javaapi.core.PopulationBuilder;
 import io.gatling.javaapi.core.Simulation;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
 import simulations.booking.core.PlanLoader;
+import simulations.booking.core.SessionCache;
 import simulations.booking.core.SessionStore;
+import simulations.booking.core.VenueLayout;
+import simulations.booking.metrics.BandwidthStats;
+import simulations.booking.metrics.FairnessTracker;
+import simulations.booking.metrics.OversellDetector;
+import simulations.booking.metrics.PropagationTracker;
+import simulations.booking.metrics.SeatHeatmap;
+import simulations.booking.metrics.SlowConsumerStats;
+import simulations.booking.metrics.StreamTelemetry;
+import simulations.booking.metrics.WatcherStats;
+import simulations.booking.scenario.CapacitySearchScenario;
 import simulations.booking.scenario.DynamicScenario;
+import simulations.booking.scenario.InjectionProfile;
 import simulations.booking.scenario.ParallelScenario;
+import simulations.booking.scenario.PreLoginPhase;
+import simulations.booking.scenario.ReconnectStormScenario;
 import simulations.booking.scenario.ScenarioExecutor;
 import simulations.booking.scenario.StaticScenario;
+import simulations.booking.scenario.WatcherScenario;
 import simulations.booking.subscription.SseHandler;
 import simulations.booking.subscription.SubscriptionHandler;
 import simulations.booking.subscription.WsHandler;
 
+import java.util.Arrays;
+
 import static io.gatling.javaapi.http.HttpDsl.http;
 import static simulations.config.Config.*;
 import static simulations.config.Config.Url.ROOT_URL_HTTP;
@@ -23,23 +40,52 @@ public class BookingSimulation extends Simulation {
 
     private final ScenarioExecutor scenario = createScenarioExecutor();
 
-    private final HttpProtocolBuilder httpProtocol = subscription.configureProtocol(
-            http.baseUrl(ROOT_URL_HTTP)
-                    .acceptHeader("application/json")
-                    .contentTypeHeader("application/json")
-                    .userAgentHeader("Gatling/Performance Test")
-                    .inferHtmlResources()
-                    .silentResources()
-    );
+    private final HttpProtocolBuilder httpProtocol =
+            subscription.configureProtocol(createHttpProtocol(), SUBSCRIPTION_MESSAGE_BUFFER_SIZE);
 
     {
         initialize();
 
         printConfiguration();
         scenario.printInfo();
+        if (ENABLE_WATCHERS) {
+            WatcherScenario.printInfo();
+        }
 
-        PopulationBuilder[] populations = scenario.build(subscription);
-        setUp(populations).protocols(httpProtocol);
+        PopulationBuilder[] populations = buildPopulations();
+        if (ENABLE_SESSION_CACHE && PreLoginPhase.isRequired()) {
+            setUp(PreLoginPhase.build().andThen(populations)).protocols(httpProtocol);
+        } else {
+            setUp(populations).protocols(httpProtocol);
+        }
+    }
+
+    @Override
+    public void after() {
+        scenario.printResult();
+        if (ENABLE_BANDWIDTH_STATS) {
+            BandwidthStats.printReport();
+        }
+        OversellDetector.printReport();
+        FairnessTracker.printReport();
+        SeatHeatmap.printReport();
+        if (ENABLE_STREAM_TELEMETRY) {
+            StreamTelemetry.printReport();
+            StreamTelemetry.export();
+        }
+        if (ENABLE_WATCHERS) {
+            WatcherStats.printReport();
+            if (ENABLE_SLOW_CONSUMERS) {
+                SlowConsumerStats.printReport();
+            }
+        }
+        if (ENABLE_PROPAGATION_TRACKING) {
+            PropagationTracker.printReport();
+        }
+
+        if (ENABLE_SESSION_CACHE) {
+            SessionCache.save();
+        }
     }
 
     private void initialize() {
@@ -47,9 +93,62 @@ public class BookingSimulation extends Simulation {
             SessionStore.loadStoredSessions();
         }
 
-        if (SCENARIO_MODE != ScenarioMode.DYNAMIC) {
+        // 계획 헤더만 읽고 돌아오며, 본문은 로그인이 진행되는 동안 백그라운드에서 로드된다.
+        if (SCENARIO_MODE.usesPlan()) {
             PlanLoader.load();
         }
+
+        if (ENABLE_SESSION_CACHE) {
+            SessionCache.load(requiredUserCount());
+        }
+    }
+
+    private PopulationBuilder[] buildPopulations() {
+        PopulationBuilder[] populations = scenario.build(subscription);
+        if (!ENABLE_WATCHERS) {
+            return populations;
+        }
+
+        PopulationBuilder[] withWatchers = Arrays.copyOf(populations, populations.length + 1);
+        // 관람 유저는 비우기 주기 동안 받은 메시지를 모두 세도록 버퍼 크기가 다른 프로토콜을 쓴다.
+        withWatchers[populations.length] = WatcherScenario.build(subscription)
+                .protocols(subscription.configureProtocol(createHttpProtocol(), WATCHER_MESSAGE_BUFFER_SIZE));
+        return withWatchers;
+    }
+
+    private int requiredUserCount() {
+        return switch (SCENARIO_MODE) {
+            case DYNAMIC -> InjectionProfile.fromConfig().isEmpty()
+                    ? DYNAMIC_USER_COUNT
+                    : InjectionProfile.fromConfig().maxUsers();
+            case STATIC, PARALLEL -> PlanLoader.getNumUsers();
+            case CAPACITY_SEARCH -> CapacitySearchScenario.expectedUserCount();
+            case RECONNECT_STORM -> Storm.USERS;
+        };
+    }
+
+    private HttpProtocolBuilder createHttpProtocol() {
+        HttpProtocolBuilder base = http.baseUrl(ROOT_URL_HTTP)
+                .acceptHeader("application/json")
+                .contentTypeHeader("application/json")
+                .userAgentHeader("Gatling/Performance Test");
+
+        return switch (HTTP_PROFILE) {
+            case DEFAULT -> base
+                    .inferHtmlResources()
+                    .silentResources();
+            case LEAN_API -> {
+                HttpProtocolBuilder lean = base
+                        .shareConnections()
+                        .disableWarmUp();
+                yield usesHttp2() ? lean.enableHttp2() : lean;
+            }
+        };
+    }
+
+    // HTTP/2는 LEAN_API에서 명시적으로 켰을 때만 쓴다. 기준 실행(DEFAULT)의 커넥션 모델은 바꾸지 않는다.
+    private static boolean usesHttp2() {
+        return HTTP_PROFILE == HttpProfile.LEAN_API && ENABLE_HTTP2;
     }
 
     private SubscriptionHandler createSubscriptionHandler() {
@@ -64,6 +163,8 @@ public class BookingSimulation extends Simulation {
             case DYNAMIC -> new DynamicScenario();
             case STATIC -> new StaticScenario();
             case PARALLEL -> new ParallelScenario();
+            case CAPACITY_SEARCH -> new CapacitySearchScenario();
+            case RECONNECT_STORM -> new ReconnectStormScenario();
         };
     }
 
@@ -71,11 +172,18 @@ public class BookingSimulation extends Simulation {
         System.out.println("==================================================");
         System.out.println("예매 시뮬레이션");
         System.out.println("==================================================");
-        System.out.println("구독 방식: " + SUBSCRIPTION_TYPE.name());
+        System.out.println("구독 방식: " + SUBSCRIPTION_TYPE.name() + " (인코딩 " + SUBSCRIPTION_ENCODING.name() + ")");
+        System.out.println("HTTP 프로필: " + HTTP_PROFILE.name() + (usesHttp2() ? " (HTTP/2, 이전 결과와 커넥션 모델 다름)" : " (HTTP/1.1)"));
+        if (ENABLE_HTTP2 && !usesHttp2()) {
+            System.out.println("  http.enableHttp2는 LEAN_API 프로필에서만 적용되어 무시합니다.");
+        }
         System.out.println("시나리오: " + SCENARIO_MODE.name());
         System.out.println("대상 이벤트: " + TARGET_EVENT);
         System.out.println("사전 로그인: " + TEST_ACCOUNT_ALREADY_STORED);
-        if (SCENARIO_MODE == ScenarioMode.DYNAMIC) {
+        System.out.println("세션 캐시: " + ENABLE_SESSION_CACHE);
+        System.out.println("반영 지연 측정: " + ENABLE_PROPAGATION_TRACKING
+                + (ENABLE_PROPAGATION_TRACKING ? " (좌석 " + VenueLayout.getTotalSeats() + "석)" : ""));
+        if (!SCENARIO_MODE.usesPlan()) {
             System.out.println("동적 섹션 수: " + DYNAMIC_SECTION_COUNT);
         }
         System.out.println("==================================================");
@@ -3,6 +3,19 @@ package simulations.booking.core;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.gatling.javaapi.core.ActionBuilder;
 import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+import simulations.booking.core.PlanLoader.PlannedRequest;
+import simulations.booking.metrics.BookingHoldStats;
+import simulations.booking.metrics.BookingHoldStats.Mode;
+import simulations.booking.metrics.CapacityMonitor;
+import simulations.booking.metrics.FairnessTracker;
+import simulations.booking.metrics.OversellDetector;
+import simulations.booking.metrics.OversellDetector.GrantSource;
+import simulations.booking.metrics.PropagationTracker;
+import simulations.booking.metrics.SeatHeatmap;
+import simulations.booking.metrics.SectionContention;
+import simulations.booking.subscription.SeatBitmap;
 import simulations.booking.subscription.SubscriptionHandler;
 import simulations.util.AsyncLogger;
 
@@ -12,7 +25,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
 import static io.gatling.javaapi.http.HttpDsl.*;
@@ -24,6 +40,7 @@ public final class BookingActions {
     private static final SecureRandom random = new SecureRandom();
     private static final AtomicInteger userCounter = new AtomicInteger(0);
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String BOOKING_SENT_AT_KEY = "bookingSentNanos";
 
     private BookingActions() {
     }
@@ -61,7 +78,7 @@ public final class BookingActions {
             int userNum = nextUserNum();
             int bookingAmount;
 
-            if (SCENARIO_MODE != ScenarioMode.DYNAMIC) {
+            if (SCENARIO_MODE.usesPlan()) {
                 bookingAmount = PlanLoader.getSeatsPerUser();
             } else if (FIXED_BOOKING_AMOUNT >= 0) {
                 bookingAmount = FIXED_BOOKING_AMOUNT;
@@ -76,17 +93,29 @@ public final class BookingActions {
     }
 
     public static ChainBuilder loginOrSetCookie() {
-        if (TEST_ACCOUNT_ALREADY_STORED) {
+        if (SessionStore.useStoredSessions()) {
             return exec(session -> {
                 int userNum = session.getInt("userNum");
                 String sessionId = SessionStore.getStoredTestAccountSession(userNum);
 
                 if (sessionId == null) {
-                    throw new RuntimeException("Stored session ID not found: test" + userNum);
+                    if (!ENABLE_SESSION_CACHE) {
+                        throw new RuntimeException("Stored session ID not found: test" + userNum);
+                    }
+                    return session.remove("storedSessionId");
                 }
 
                 return session.set("storedSessionId", sessionId);
-            }).exec(addCookie(Cookie("SID", "#{storedSessionId}").withPath("/")));
+            }).doIfOrElse(session -> session.contains("storedSessionId")).then(
+                    exec(addCookie(Cookie("SID", "#{storedSessionId}").withPath("/")))
+            ).orElse(
+                    // 도착 유저 수가 사전 로그인한 캐시 크기를 넘으면 남은 유저는 측정 구간에서 직접 로그인한다.
+                    exec(loginWithTestAccount())
+                            .exec(session -> {
+                                SessionCache.recordOnDemandLogin(session.getInt("userNum"), session.getString("sessionId"));
+                                return session;
+                            })
+            );
         } else {
             return exec(loginWithTestAccount());
         }
@@ -130,8 +159,48 @@ public final class BookingActions {
                 .check(status().in(200, 201));
     }
 
-    public static ActionBuilder subscribeSeats(SubscriptionHandler handler) {
-        return handler.subscribe(TARGET_EVENT);
+    public static ChainBuilder subscribeSeats(SubscriptionHandler handler) {
+        return trackSubscription(handler.subscribe(TARGET_EVENT));
+    }
+
+    /**
+     * 끊긴 구독을 다시 연다. 이전 스트림에서 받은 이벤트 ID가 있을 때만 이어 받기를 요청한다.
+     */
+    public static ChainBuilder resubscribeSeats(SubscriptionHandler handler) {
+        return doIfOrElse(session -> session.contains("lastEventId")).then(
+                trackSubscription(handler.resubscribe(TARGET_EVENT))
+        ).orElse(
+                subscribeSeats(handler)
+        );
+    }
+
+    private static ChainBuilder trackSubscription(ActionBuilder subscribeAction) {
+        ChainBuilder subscribe = exec(subscribeAction);
+        if (!ENABLE_PROPAGATION_TRACKING) {
+            return subscribe;
+        }
+
+        return subscribe.exec(session -> {
+            if (session.isFailed()) {
+                return session;
+            }
+            PropagationTracker.subscribed();
+            return session.set("subscribedAt", System.currentTimeMillis());
+        });
+    }
+
+    public static ChainBuilder closeSubscription(SubscriptionHandler handler) {
+        if (!ENABLE_PROPAGATION_TRACKING) {
+            return exec(handler.close());
+        }
+
+        return exec(session -> {
+            if (!session.contains("subscribedAt")) {
+                return session;
+            }
+            PropagationTracker.unsubscribed();
+            return session.remove("subscribedAt");
+        }).exec(handler.close());
     }
 
     public static ChainBuilder setStaggeredLogin() {
@@ -177,6 +246,30 @@ public final class BookingActions {
         return exec(session -> session);
     }
 
+    /**
+     * 백그라운드 계획 로드(와 그 뒤의 색인 작업)가 끝날 때까지 기다린다.
+     * 파싱, planned_requests 확인, 검증 중 하나라도 실패했으면 유저만 빠져나가지 않고 실행 전체를 실패로 멈춘다.
+     */
+    public static ChainBuilder waitForPlan(CompletableFuture<Void> planReady) {
+        return asLongAs(session -> !planReady.isDone())
+                .on(pause(Duration.ofMillis(100)))
+                .exec(crashLoadGeneratorIf(
+                        session -> "계획 로드 실패: " + planFailureMessage(planReady),
+                        session -> planReady.isCompletedExceptionally()
+                ));
+    }
+
+    private static String planFailureMessage(CompletableFuture<Void> planReady) {
+        try {
+            planReady.join();
+            return "원인 없음";
+        } catch (CompletionException e) {
+            return String.valueOf(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } catch (RuntimeException e) {
+            return String.valueOf(e.getMessage());
+        }
+    }
+
     public static ChainBuilder waitBetweenActions() {
         if (ENABLE_WAITING_BETWEEN_ACTIONS) {
             return pause(Duration.ofMillis(WAITING_SECOND_BETWEEN_ACTIONS_MILLIS));
@@ -189,39 +282,110 @@ public final class BookingActions {
     }
 
     public static ActionBuilder switchToTargetSection() {
-        return switchToSection("targetSection", "대상 섹션 전환");
+        return switchToSection(session -> session.getInt("targetSection"), "대상 섹션 전환", true);
+    }
+
+    // 계획 기반 요청은 응답의 좌석 맵을 읽지 않으므로, LEAN_API 프로필에서는 본문 파싱을 생략한다.
+    // 좌석 점유 전 전환은 서버 세션이 이미 그 섹션에 있으면 생략하고(ensureSection), 계획된 섹션 이동은 항상 보낸다.
+    public static ChainBuilder switchToCurrentRequestSection() {
+        return ensureSection(
+                session -> PlanCursor.of(session).current().section,
+                session -> session.getInt("userNum"),
+                "계획 섹션 전환"
+        );
+    }
+
+    public static ChainBuilder switchToCurrentRequestTargetSection() {
+        return trackSectionSwitch(
+                session -> PlanCursor.of(session).current().targetSection,
+                session -> session.getInt("userNum"),
+                "계획 대상 섹션 전환"
+        );
+    }
+
+    public static ChainBuilder switchToLoserRequestSection() {
+        return ensureSection(
+                session -> session.<PlannedRequest>get("loserRequest").section,
+                session -> session.getInt("userNum"),
+                "충돌 대체 섹션 전환"
+        );
     }
 
-    public static ActionBuilder switchToCurrentRequestSection() {
-        return switchToSection("currentReqSection", "계획 섹션 전환");
+    public static ChainBuilder switchToReqSection() {
+        return ensureSection(
+                session -> session.<PlannedRequest>get("plannedRequest").section,
+                session -> session.<PlannedRequest>get("plannedRequest").userId,
+                "요청 섹션 전환"
+        );
     }
 
-    public static ActionBuilder switchToCurrentRequestTargetSection() {
-        return switchToSection("currentReqTargetSection", "계획 대상 섹션 전환");
+    public static ChainBuilder switchToReqTargetSection() {
+        return trackSectionSwitch(
+                session -> session.<PlannedRequest>get("plannedRequest").targetSection,
+                session -> session.<PlannedRequest>get("plannedRequest").userId,
+                "요청 대상 섹션 전환"
+        );
     }
 
-    public static ActionBuilder switchToLoserRequestSection() {
-        return switchToSection("loserReqSection", "충돌 대체 섹션 전환");
+    /**
+     * 유저의 서버 세션이 이미 해당 섹션에 있으면 전환 요청을 생략한다. (SectionAffinity)
+     * ENABLE_SECTION_AFFINITY가 꺼져 있으면 항상 전환하고 중복 전환 수만 센다.
+     */
+    private static ChainBuilder ensureSection(ToIntFunction<Session> sectionOf, ToIntFunction<Session> userOf, String requestName) {
+        if (!ENABLE_SECTION_AFFINITY) {
+            return trackSectionSwitch(sectionOf, userOf, requestName);
+        }
+
+        return doIfOrElse(session -> SectionAffinity.isCurrent(userOf.applyAsInt(session), sectionOf.applyAsInt(session))).then(
+                exec(session -> {
+                    SectionAffinity.recordSkipped();
+                    return session;
+                })
+        ).orElse(
+                trackSectionSwitch(sectionOf, userOf, requestName)
+        );
     }
 
-    public static ActionBuilder switchToReqSection() {
-        return switchToSection("reqSection", "요청 섹션 전환");
+    /**
+     * 섹션 전환 요청을 보내고 결과를 SectionAffinity에 반영한다.
+     */
+    private static ChainBuilder trackSectionSwitch(ToIntFunction<Session> sectionOf, ToIntFunction<Session> userOf, String requestName) {
+        return exec(session -> session.set("sectionSwitchStatus", 0))
+                .exec(switchToSection(sectionOf, requestName, readsPlannedSeatMap()))
+                .exec(session -> {
+                    int status = session.getInt("sectionSwitchStatus");
+                    SectionAffinity.recordSwitch(
+                            userOf.applyAsInt(session),
+                            sectionOf.applyAsInt(session),
+                            status == 200 || status == 201
+                    );
+                    return session;
+                });
     }
 
-    public static ActionBuilder switchToReqTargetSection() {
-        return switchToSection("reqTargetSection", "요청 대상 섹션 전환");
+    private static boolean readsPlannedSeatMap() {
+        return HTTP_PROFILE != HttpProfile.LEAN_API;
     }
 
-    private static ActionBuilder switchToSection(String sectionSessionKey, String requestName) {
-        return http(requestName)
+    private static ActionBuilder switchToSection(ToIntFunction<Session> sectionOf, String requestName, boolean readSeatMap) {
+        HttpRequestActionBuilder request = http(requestName)
                 .patch("/booking/seat/section")
                 .body(StringBody(session -> {
-                    int sectionIndex = session.getInt(sectionSessionKey);
+                    int sectionIndex = sectionOf.applyAsInt(session);
                     return """
                         {"sectionIndex":%d}
                         """.formatted(sectionIndex);
-                }))
-                .check(
+                }));
+
+        if (!readSeatMap) {
+            return request.check(
+                    status().saveAs("sectionSwitchStatus"),
+                    status().in(200, 201),
+                    responseTimeInMillis().saveAs("sectionSwitchResponseTime")
+            );
+        }
+
+        return request.check(
                         status().saveAs("sectionSwitchStatus"),
                         status().in(200, 201),
                         responseTimeInMillis().saveAs("sectionSwitchResponseTime"),
@@ -229,7 +393,7 @@ public final class BookingActions {
                         jsonPath("$.data.seatStatus")
                                 .transform(seatsStr -> {
                                     try {
-                                        return mapper.readValue(seatsStr, int[].class);
+                                        return SeatBitmap.fromJsonArray(mapper.readTree(seatsStr));
                                     } catch (Exception e) {
                                         throw new RuntimeException("seatStatus parse error: " + e.getMessage());
                                     }
@@ -240,19 +404,15 @@ public final class BookingActions {
 
     public static ChainBuilder selectSingleSeat() {
         return exec(session -> {
-            int[] seatStatus = session.get("seatStatus");
-            if (seatStatus == null || seatStatus.length == 0) {
+            SeatBitmap seatStatus = session.get("seatStatus");
+            if (seatStatus == null || seatStatus.size() == 0) {
                 throw new RuntimeException("현재 섹션의 seatStatus가 비어 있습니다.");
             }
 
             int sectionIndex = session.getInt("currentSection");
-            int startSeatIdx = random.nextInt(seatStatus.length);
-
-            for (int i = 0; i < seatStatus.length; i++) {
-                int seatIdx = (startSeatIdx + i) % seatStatus.length;
-                if (seatStatus[seatIdx] == 1) {
-                    return session.set("selectedSeat", new int[]{sectionIndex, seatIdx});
-                }
+            int seatIdx = seatStatus.nextAvailableWrapping(random.nextInt(seatStatus.size()));
+            if (seatIdx >= 0) {
+                return session.set("selectedSeat", new int[]{sectionIndex, seatIdx});
             }
 
             throw new RuntimeException("섹션 " + sectionIndex + "에 점유 가능한 좌석이 없습니다.");
@@ -268,7 +428,42 @@ public final class BookingActions {
                         {"eventId":%d,"sectionIndex":%d,"seatIndex":%d,"expectedStatus":"reserved"}
                         """.formatted(TARGET_EVENT, selectedSeat[0], selectedSeat[1]);
                 }))
-                .check(status().in(200, 201));
+                .check(
+                        status().saveAs("bookingStatus"),
+                        responseTimeInMillis().saveAs("bookingResponseTime"),
+                        status().transformWithSession((status, session) -> {
+                            int[] selectedSeat = session.get("selectedSeat");
+                            recordBookingResponse(session, session.getInt("userNum"), selectedSeat[0], selectedSeat[1], status, null);
+                            return status;
+                        }).in(200, 201)
+                );
+    }
+
+    /**
+     * 직전 좌석 점유 시도의 결과를 기록한다.
+     *
+     * 실패한 시도는 tryMax가 곧바로 다음 시도로 넘어가므로,
+     * 점유 요청 직후와 다음 시도 시작 시점, 재시도 블록 종료 후에 각각 호출해 결과를 한 번씩만 기록한다.
+     */
+    public static ChainBuilder recordBookingAttempt() {
+        return exec(session -> {
+            if (!session.contains("bookingStatus")) {
+                return session;
+            }
+
+            int status = session.getInt("bookingStatus");
+            long responseTime = session.contains("bookingResponseTime") ? session.getLong("bookingResponseTime") : 0L;
+
+            if (SCENARIO_MODE == ScenarioMode.CAPACITY_SEARCH) {
+                CapacityMonitor.recordBooking(status, responseTime);
+            }
+            int[] selectedSeat = session.get("selectedSeat");
+            if (selectedSeat != null) {
+                SectionContention.recordAttempt(selectedSeat[0], status != 200 && status != 201);
+            }
+
+            return session.remove("bookingStatus").remove("bookingResponseTime");
+        });
     }
 
     public static ChainBuilder saveBookedSeat() {
@@ -279,14 +474,68 @@ public final class BookingActions {
                 bookedSeats = new ArrayList<>();
             }
             bookedSeats.add(selectedSeat);
+            recordSeatCommit(session.getInt("userNum"), selectedSeat[0], selectedSeat[1], null);
             return session.set("bookedSeats", bookedSeats);
         });
     }
 
+    /**
+     * 좌석 점유 요청 직전에 호출해 보낸 시각을 남긴다.
+     */
+    public static Session stampBookingSent(Session session) {
+        return session.set(BOOKING_SENT_AT_KEY, System.nanoTime());
+    }
+
+    /**
+     * stampBookingSent가 남긴 전송 직전 nanoTime. 없으면 -1
+     */
+    public static long bookingSentNanos(Session session) {
+        return session.contains(BOOKING_SENT_AT_KEY) ? session.getLong(BOOKING_SENT_AT_KEY) : -1;
+    }
+
+    /**
+     * 좌석 점유 응답을 받은 즉시(체크 안에서) 호출해 도착 순서 공정성과 좌석 경합 히트맵에 시도를 기록한다.
+     *
+     * @param requestId 계획 요청 ID. 계획이 없는 시나리오는 null
+     */
+    public static void recordBookingResponse(Session session, int userNum, int section, int seat, int status, String requestId) {
+        if (!session.contains(BOOKING_SENT_AT_KEY)) {
+            return;
+        }
+        recordBookingResponse(userNum, section, seat, status, requestId, session.getLong(BOOKING_SENT_AT_KEY),
+                RetryPolicy.isRetry(session));
+    }
+
+    /**
+     * 요청마다 보낸 시각을 따로 잰 경우(동시 점유의 리소스 요청 등)에 쓴다.
+     *
+     * @param sentNanos 요청을 보내기 직전의 nanoTime
+     * @param retry     앞선 시도가 실패해 다시 보낸 요청인지 여부
+     */
+    public static void recordBookingResponse(int userNum, int section, int seat, int status, String requestId, long sentNanos,
+                                             boolean retry) {
+        long receivedNanos = System.nanoTime();
+        boolean granted = status == 200 || status == 201;
+        FairnessTracker.recordAttempt(userNum, section, seat, granted, requestId, sentNanos, receivedNanos);
+        SeatHeatmap.recordAttempt(section, seat, granted, status == 409, retry, receivedNanos - sentNanos);
+    }
+
+    /**
+     * 좌석 점유 성공 응답을 받은 직후 호출해 초과 판매 검출에 좌석 소유자를 기록하고 반영 지연 측정의 기준 시각을 남긴다.
+     *
+     * @param requestId 계획 요청 ID. 계획이 없는 시나리오는 null
+     */
+    public static void recordSeatCommit(int userNum, int section, int seat, String requestId) {
+        OversellDetector.recordGrant(userNum, section, seat, requestId);
+        if (ENABLE_PROPAGATION_TRACKING) {
+            PropagationTracker.recordCommit(section, seat);
+        }
+    }
+
     public static ChainBuilder markSelectedSeatUnavailableLocally() {
         return exec(session -> {
             int[] selectedSeat = session.get("selectedSeat");
-            int[] seatStatus = session.get("seatStatus");
+            SeatBitmap seatStatus = session.get("seatStatus");
             Integer currentSection = session.get("currentSection");
 
             if (selectedSeat != null
@@ -294,8 +543,8 @@ public final class BookingActions {
                     && currentSection != null
                     && selectedSeat[0] == currentSection
                     && selectedSeat[1] >= 0
-                    && selectedSeat[1] < seatStatus.length) {
-                seatStatus[selectedSeat[1]] = 0;
+                    && selectedSeat[1] < seatStatus.size()) {
+                seatStatus.markUnavailable(selectedSeat[1]);
                 return session.set("seatStatus", seatStatus);
             }
 
@@ -351,24 +600,58 @@ public final class BookingActions {
                                 }
                                 """.formatted(TARGET_EVENT, seatsJson);
                         }))
-                        .check(status().in(200, 201))
-        );
+                        .check(
+                                status().saveAs("reservationStatus"),
+                                status().in(200, 201)
+                        )
+        ).exec(BookingActions::recordReservationGrants);
+    }
+
+    // 예약 확정도 좌석을 내주는 응답이므로 확정된 좌석마다 소유자를 다시 확인한다.
+    // bookedSeats에는 좌석만 남으므로 요청 ID는 없고, 부여 경로로 예약 확정임을 표시한다.
+    private static Session recordReservationGrants(Session session) {
+        int status = session.contains("reservationStatus") ? session.getInt("reservationStatus") : 0;
+        List<int[]> bookedSeats = session.get("bookedSeats");
+        if ((status == 200 || status == 201) && bookedSeats != null) {
+            int userNum = session.getInt("userNum");
+            for (int[] seat : bookedSeats) {
+                OversellDetector.recordGrant(userNum, seat[0], seat[1], null, GrantSource.RESERVATION);
+            }
+        }
+        return session.remove("reservationStatus");
     }
 
     public static ChainBuilder bookSeatsWithRetry(SubscriptionHandler handler) {
-        return exec(
-                repeat("#{bookingAmount}").on(
-                        tryMax(MAX_RETRY_IN_BOOKING_CONFLICT).on(
-                                pause(session -> betweenBookingDelay()),
-                                exec(chooseRandomSection()),
+        if (ENABLE_PIPELINED_BOOKING) {
+            return PipelinedBooking.bookSeats(handler);
+        }
+
+        return exec(session -> session.set("holdStartedAt", System.currentTimeMillis()))
+                .repeat("#{bookingAmount}").on(
+                        tryMax(MAX_RETRY_IN_BOOKING_CONFLICT, RetryPolicy.ATTEMPT_COUNTER).on(
+                                exec(recordBookingAttempt()),
+                                exec(RetryPolicy.chargeRetry()),
+                                exitHereIf(RetryPolicy::budgetExhausted),
+                                pause(session -> RetryPolicy.delayBeforeAttempt(session.getInt(RetryPolicy.ATTEMPT_COUNTER))),
+                                exec(RetryPolicy.chooseSection()),
                                 exec(switchToTargetSection()),
                                 exec(handler.reloadSeatStatus()),
+                                exec(RetryPolicy.observeSeatMap()),
                                 exec(selectSingleSeat()),
+                                exec(BookingActions::stampBookingSent),
                                 exec(bookSeat()),
+                                exec(recordBookingAttempt()),
                                 exec(saveBookedSeat()),
+                                exec(RetryPolicy.recordSeatHeld()),
                                 exec(markSelectedSeatUnavailableLocally())
-                        ).exitHereIfFailed()
+                        ).exec(recordBookingAttempt()).exitHereIfFailed()
                 )
-        );
+                .exec(session -> {
+                    if (session.getInt("bookingAmount") > 0) {
+                        long holdMillis = System.currentTimeMillis() - session.getLong("holdStartedAt");
+                        BookingHoldStats.recordHoldAll(Mode.SEQUENTIAL, holdMillis);
+                    }
+                    return session.remove("holdStartedAt");
+                });
     }
 }
@@ -0,0 +1,233 @@
+package simulations.booking.core;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Choice;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+import simulations.booking.metrics.BookingHoldStats;
+import simulations.booking.metrics.BookingHoldStats.Mode;
+import simulations.booking.metrics.CapacityMonitor;
+import simulations.booking.metrics.RetryStats;
+import simulations.booking.metrics.SectionContention;
+import simulations.booking.subscription.SeatBitmap;
+import simulations.booking.subscription.SubscriptionHandler;
+import simulations.util.AsyncLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+import static simulations.config.Config.*;
+
+/**
+ * 유저 내 동시 좌석 점유
+ *
+ * 한 번의 섹션 좌석 맵에서 아직 점유하지 못한 좌석을 한꺼번에 고르고 POST /booking을 함께 보낸다.
+ * Gatling에서 한 가상 유저가 요청을 동시에 보내는 방법은 명시적 리소스뿐이므로, 첫 좌석 요청을 본 요청으로,
+ * 나머지를 resources()로 묶는다. 리소스는 본 요청 응답 직후 동시에 나가므로 k석 점유가 2번의 왕복으로 끝난다.
+ * 리소스 개수는 빌드 시점에 정해져야 하므로 보낼 좌석 수(1 ~ MAX_PIPELINED_SEATS)별 요청 묶음을 doSwitch로 고른다.
+ *
+ * 실패한 좌석만 다음 라운드에서 새 좌석 맵으로 다시 골라 보내며, 좌석마다 MAX_RETRY_IN_BOOKING_CONFLICT번까지 시도한다.
+ * 라운드 사이 대기와 섹션 선택, 유저당 재시도 예산은 순차 점유와 같은 RetryPolicy를 따른다.
+ * 리소스 응답의 저장(saveAs)은 세션에 반영된다는 보장이 없으므로 결과는 세션에 둔 이 객체에 직접 기록한다.
+ * 리소스 요청은 본 요청 응답 뒤에 나가므로, 보낸 시각은 요청마다 본문을 만드는 순간에 따로 잰다.
+ */
+final class PipelinedBooking {
+
+    private static final String SESSION_KEY = "seatBatch";
+
+    private final int[] sections;
+    private final int[] seats;
+    private final int[] attempts;
+    private final boolean[] held;
+    private final int[] inFlight;
+    private final int[] statuses;
+    private final long[] responseTimes;
+    private final long[] sentNanos;
+    private final long startedAt = System.currentTimeMillis();
+    private int inFlightCount = 0;
+    private int pendingCount;
+    private int rounds = 0;
+
+    private PipelinedBooking(int bookingAmount) {
+        this.sections = new int[bookingAmount];
+        this.seats = new int[bookingAmount];
+        this.attempts = new int[bookingAmount];
+        this.held = new boolean[bookingAmount];
+        this.inFlight = new int[Math.min(bookingAmount, MAX_PIPELINED_SEATS)];
+        this.statuses = new int[inFlight.length];
+        this.responseTimes = new long[inFlight.length];
+        this.sentNanos = new long[inFlight.length];
+        this.pendingCount = bookingAmount;
+    }
+
+    private static PipelinedBooking of(Session session) {
+        return session.get(SESSION_KEY);
+    }
+
+    static ChainBuilder bookSeats(SubscriptionHandler handler) {
+        List<Choice.WithKey> batches = new ArrayList<>();
+        for (int count = 1; count <= MAX_PIPELINED_SEATS; count++) {
+            batches.add(onCase(count).then(sendBatch(count)));
+        }
+
+        return exec(session -> session.set(SESSION_KEY, new PipelinedBooking(session.getInt("bookingAmount"))))
+                .asLongAs(session -> of(session).needsRound()).on(
+                        pause(session -> RetryPolicy.delayBeforeAttempt(of(session).rounds)),
+                        exec(RetryPolicy.chooseSection()),
+                        exec(BookingActions.switchToTargetSection()),
+                        exec(handler.reloadSeatStatus()),
+                        exec(RetryPolicy.observeSeatMap()),
+                        exec(session -> of(session).selectPendingSeats(session)),
+                        doSwitch(session -> of(session).inFlightCount).on(batches),
+                        exec(session -> of(session).applyResults(session))
+                )
+                .exec(session -> of(session).finish(session))
+                .exitHereIfFailed();
+    }
+
+    private static ChainBuilder sendBatch(int count) {
+        HttpRequestActionBuilder[] resources = new HttpRequestActionBuilder[count - 1];
+        for (int position = 1; position < count; position++) {
+            resources[position - 1] = bookInFlightSeat(position);
+        }
+        return exec(bookInFlightSeat(0).resources(resources));
+    }
+
+    private static HttpRequestActionBuilder bookInFlightSeat(int position) {
+        return http("좌석 동시 점유")
+                .post("/booking")
+                .body(StringBody(session -> of(session).requestBody(position)))
+                .check(
+                        responseTimeInMillis().transformWithSession((responseTime, session) -> {
+                            of(session).responseTimes[position] = responseTime;
+                            return responseTime;
+                        }),
+                        status().transformWithSession((status, session) -> {
+                            PipelinedBooking booking = of(session);
+                            booking.statuses[position] = status;
+                            int slot = booking.inFlight[position];
+                            BookingActions.recordBookingResponse(session.getInt("userNum"),
+                                    booking.sections[slot], booking.seats[slot], status, null, booking.sentNanos[position],
+                                    booking.attempts[slot] > 1);
+                            return status;
+                        }).in(200, 201)
+                );
+    }
+
+    private boolean needsRound() {
+        if (pendingCount == 0) {
+            return false;
+        }
+        for (int slot = 0; slot < held.length; slot++) {
+            if (!held[slot] && attempts[slot] >= MAX_RETRY_IN_BOOKING_CONFLICT) {
+                return false;
+            }
+        }
+        return RetryPolicy.hasBudget(retriesUsed());
+    }
+
+    // 좌석마다 첫 시도를 뺀 시도 수의 합
+    private int retriesUsed() {
+        int retries = 0;
+        for (int slotAttempts : attempts) {
+            retries += Math.max(0, slotAttempts - 1);
+        }
+        return retries;
+    }
+
+    // 방금 받은 좌석 맵에서 점유하지 못한 좌석 수만큼 서로 다른 좌석을 고른다. 고른 좌석은 로컬 좌석 맵에서 바로 지운다.
+    private Session selectPendingSeats(Session session) {
+        rounds++;
+        inFlightCount = 0;
+
+        SeatBitmap seatStatus = session.get("seatStatus");
+        Integer currentSection = session.get("currentSection");
+        for (int slot = 0; slot < held.length && inFlightCount < inFlight.length; slot++) {
+            if (held[slot]) {
+                continue;
+            }
+
+            attempts[slot]++;
+            if (seatStatus == null || currentSection == null || seatStatus.size() == 0) {
+                continue;
+            }
+            int seat = seatStatus.nextAvailableWrapping(ThreadLocalRandom.current().nextInt(seatStatus.size()));
+            if (seat < 0) {
+                continue;
+            }
+
+            seatStatus.markUnavailable(seat);
+            sections[slot] = currentSection;
+            seats[slot] = seat;
+            statuses[inFlightCount] = 0;
+            responseTimes[inFlightCount] = 0;
+            inFlight[inFlightCount++] = slot;
+        }
+
+        if (inFlightCount > 0) {
+            BookingHoldStats.recordPipelinedRound(inFlightCount);
+        } else {
+            AsyncLogger.logf("유저 %d: 섹션에 동시 점유할 좌석이 없습니다.", session.getInt("userNum"));
+        }
+        return session;
+    }
+
+    // 본문은 요청을 보낼 때 만들어지므로 이 시각을 요청별 전송 시각으로 쓴다.
+    private String requestBody(int position) {
+        sentNanos[position] = System.nanoTime();
+        int slot = inFlight[position];
+        return """
+            {"eventId":%d,"sectionIndex":%d,"seatIndex":%d,"expectedStatus":"reserved"}
+            """.formatted(TARGET_EVENT, sections[slot], seats[slot]);
+    }
+
+    // 좌석별 결과를 반영하고, 실패한 좌석은 다음 라운드로 넘기기 위해 세션 실패 표시를 지운다.
+    private Session applyResults(Session session) {
+        List<int[]> bookedSeats = session.get("bookedSeats");
+        if (bookedSeats == null) {
+            bookedSeats = new ArrayList<>();
+        }
+
+        for (int position = 0; position < inFlightCount; position++) {
+            int slot = inFlight[position];
+            int status = statuses[position];
+            boolean succeeded = status == 200 || status == 201;
+
+            BookingHoldStats.recordPipelinedSeat(succeeded);
+            SectionContention.recordAttempt(sections[slot], !succeeded);
+            if (SCENARIO_MODE == ScenarioMode.CAPACITY_SEARCH && status != 0) {
+                CapacityMonitor.recordBooking(status, responseTimes[position]);
+            }
+            if (succeeded) {
+                held[slot] = true;
+                pendingCount--;
+                bookedSeats.add(new int[]{sections[slot], seats[slot]});
+                BookingActions.recordSeatCommit(session.getInt("userNum"), sections[slot], seats[slot], null);
+                RetryStats.recordSeatHeld(attempts[slot] - 1);
+            }
+        }
+        inFlightCount = 0;
+
+        return session.set("bookedSeats", bookedSeats).markAsSucceeded();
+    }
+
+    private Session finish(Session session) {
+        boolean succeeded = pendingCount == 0;
+        BookingHoldStats.recordPipelinedUser(rounds, succeeded);
+        if (!succeeded) {
+            if (!RetryPolicy.hasBudget(retriesUsed())) {
+                RetryStats.recordBudgetExhausted();
+            }
+            AsyncLogger.logf("유저 %d: %d석 점유 실패 (라운드 %d)", session.getInt("userNum"), pendingCount, rounds);
+            return session.markAsFailed();
+        }
+
+        if (held.length > 0) {
+            BookingHoldStats.recordHoldAll(Mode.PIPELINED, System.currentTimeMillis() - startedAt);
+        }
+        return session;
+    }
+}
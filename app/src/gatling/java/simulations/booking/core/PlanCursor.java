@@ -0,0 +1,53 @@
+package simulations.booking.core;
+
+import io.gatling.javaapi.core.Session;
+import simulations.booking.core.PlanLoader.PlannedRequest;
+
+import java.util.List;
+
+/**
+ * 유저별 계획 진행 위치
+ *
+ * PlanLoader의 공유(불변) 유저 계획을 가리키는 인덱스만 들고 있어, 요청마다 Gatling 세션에 요청 필드를 복사해 넣지 않는다.
+ * Gatling 세션은 불변 맵이라 set할 때마다 새 맵이 만들어지므로, 세션에는 커서 하나만 두고 커서를 직접 갱신한다.
+ * 한 가상 유저의 세션 함수는 순서대로 실행되므로 커서는 동기화 없이 그 유저만 사용한다.
+ */
+public final class PlanCursor {
+
+    public static final String SESSION_KEY = "planCursor";
+
+    private final List<PlannedRequest> plan;
+    private int index = 0;
+    private long waitMillis = 0;
+
+    public PlanCursor(List<PlannedRequest> plan) {
+        this.plan = plan;
+    }
+
+    public static PlanCursor of(Session session) {
+        return session.get(SESSION_KEY);
+    }
+
+    public boolean hasMore() {
+        return index < plan.size();
+    }
+
+    public PlannedRequest current() {
+        return plan.get(index);
+    }
+
+    public void advance() {
+        index++;
+    }
+
+    /**
+     * 현재 요청의 계획 시각까지 남은 대기 시간
+     */
+    public long waitMillis() {
+        return waitMillis;
+    }
+
+    public void setWaitMillis(long waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+}
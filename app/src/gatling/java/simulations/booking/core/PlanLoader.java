@@ -1,9 +1,14 @@
 package simulations.booking.core;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import simulations.config.Config.PlanSource;
+import simulations.config.Config.ScenarioMode;
 import simulations.util.AsyncLogger;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -11,9 +16,15 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import static simulations.config.Config.ENABLE_PLAN_VALIDATION;
+import static simulations.config.Config.PLAN_SOURCE;
+import static simulations.config.Config.PLAN_TIME_SCALE;
+import static simulations.config.Config.SCENARIO_MODE;
 import static simulations.config.Config.TARGET_EVENT;
 
 public final class PlanLoader {
@@ -81,13 +92,16 @@ public final class PlanLoader {
         public final int section;
         public final int seat;
         public final List<String> requestIds;
+        // 계획상 좌석을 차지하는 요청. winner가 없는 예전 Plan.json이면 null
+        public final String winnerId;
 
-        public CollisionGroup(String id, long timeMs, int section, int seat, List<String> requestIds) {
+        public CollisionGroup(String id, long timeMs, int section, int seat, List<String> requestIds, String winnerId) {
             this.id = id;
             this.timeMs = timeMs;
             this.section = section;
             this.seat = seat;
             this.requestIds = requestIds;
+            this.winnerId = winnerId;
         }
     }
 
@@ -98,52 +112,158 @@ public final class PlanLoader {
 
     private static List<PlannedRequest> allRequestsSorted = null;
     private static int[] requestUserIds = null;
+    private static final List<String> danglingLoserIds = new ArrayList<>();
 
     private static int numUsers = 0;
+    private static int maxUserId = 0;
+    private static long planSpanMillis = 0;
     private static int seatsPerUser = 0;
     private static int totalPlannedRequests = 0;
     private static int totalBookRequests = 0;
     private static int totalSectionMoveRequests = 0;
     private static boolean noCollisionMode = false;
-    private static boolean loaded = false;
+    private static int expectedPlannedRequests = -1;
+    private static CompletableFuture<Void> loadFuture = null;
 
     private PlanLoader() {
     }
 
-    public static synchronized void load() {
-        if (loaded) {
-            return;
+    /**
+     * Plan.json의 stats만 먼저 읽어 유저 수와 계획 요청 수를 채우고, 요청 본문 파싱과 검증은 백그라운드 스레드에서 진행한다.
+     * 로그인과 구독이 진행되는 동안 로드가 끝나므로, 가상 유저는 자기 계획이 필요할 때만 반환된 future를 기다리면 된다.
+     * 본문 파싱이나 검증이 실패하면 future가 예외로 끝나고, BookingActions.waitForPlan이 실행을 실패시킨다.
+     * stats에 planned_requests가 없는 예전 Plan.json은 요청 세션 수를 미리 정할 수 없어 여기서 모두 읽는다.
+     */
+    public static synchronized CompletableFuture<Void> load() {
+        if (loadFuture != null) {
+            return loadFuture;
         }
 
         try {
-            JsonNode planRoot = loadPlanJsonFile();
-            parseStatsFromPlan(planRoot);
-            parseCollisionGroupsFromPlan(planRoot);
-            parseRequestsFromPlan(planRoot);
-            printLoadSummary();
-            loaded = true;
+            if (!(PLAN_TIME_SCALE > 0)) {
+                throw new IllegalArgumentException("재생 배율은 0보다 커야 합니다: " + PLAN_TIME_SCALE);
+            }
+            if (isSynthesized()) {
+                loadSynthesizedStats();
+                loadFuture = CompletableFuture.completedFuture(null);
+                return loadFuture;
+            }
+            JsonNode statsNode = readStatsHeader();
+            parseStats(statsNode);
+            if (statsNode == null || !statsNode.has("planned_requests")) {
+                System.out.println("Plan.json stats에 planned_requests가 없어 계획 전체를 먼저 읽습니다.");
+                loadBody();
+                loadFuture = CompletableFuture.completedFuture(null);
+                return loadFuture;
+            }
+            expectedPlannedRequests = statsNode.get("planned_requests").asInt();
+            totalPlannedRequests = expectedPlannedRequests;
+            maxUserId = numUsers;
+            printHeaderSummary();
         } catch (Exception e) {
             System.err.println("정적 시나리오 로드 실패: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException(e);
         }
+
+        loadFuture = CompletableFuture.runAsync(PlanLoader::loadBodyInBackground, task -> {
+            Thread loader = new Thread(task, "plan-loader");
+            loader.setDaemon(true);
+            loader.start();
+        });
+        return loadFuture;
     }
 
-    private static JsonNode loadPlanJsonFile() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        var inputStream = PlanLoader.class.getResourceAsStream("/Plan.json");
+    private static void loadBodyInBackground() {
+        try {
+            long startNanos = System.nanoTime();
+            loadBody();
+            AsyncLogger.log("계획 백그라운드 로드 완료: " + (System.nanoTime() - startNanos) / 1_000_000 + "ms");
+        } catch (Exception e) {
+            System.err.println("정적 시나리오 로드 실패: " + e.getMessage());
+            e.printStackTrace();
+            throw new CompletionException(e);
+        }
+    }
 
+    private static void loadBody() throws Exception {
+        JsonNode planRoot = loadPlanJsonFile();
+        parseCollisionGroupsFromPlan(planRoot);
+        parseRequestsFromPlan(planRoot);
+        if (expectedPlannedRequests >= 0 && totalPlannedRequests != expectedPlannedRequests) {
+            throw new IllegalStateException("Plan.json stats의 planned_requests(" + expectedPlannedRequests
+                    + ")와 실제 계획 요청 수(" + totalPlannedRequests + ")가 다릅니다.");
+        }
+        if (ENABLE_PLAN_VALIDATION) {
+            validatePlan();
+        }
+        printLoadSummary();
+    }
+
+    /**
+     * Plan.json 대신 SynthesizedPlanFeed가 요청을 공급하는지 여부
+     */
+    public static boolean isSynthesized() {
+        return PLAN_SOURCE == PlanSource.SYNTHESIZED;
+    }
+
+    // 합성 계획은 요청을 미리 만들지 않으므로 유저 수 등 설정 값만 채운다. 요청 수는 합성이 끝나야 알 수 있다.
+    private static void loadSynthesizedStats() {
+        if (SCENARIO_MODE != ScenarioMode.PARALLEL) {
+            throw new IllegalStateException("합성 계획(plan.source=SYNTHESIZED)은 PARALLEL 모드에서만 사용할 수 있습니다.");
+        }
+
+        PlanSynthesizer synthesizer = SynthesizedPlanFeed.start();
+        numUsers = synthesizer.getNumUsers();
+        maxUserId = numUsers;
+        seatsPerUser = synthesizer.getSeatsPerUser();
+        noCollisionMode = synthesizer.isNoCollisionMode();
+
+        System.out.println("=== 합성 계획 준비 ===");
+        System.out.println("  유저 수: " + numUsers);
+        System.out.println("  유저당 좌석: " + seatsPerUser);
+        System.out.println("  시드: " + synthesizer.getSeed());
+        System.out.println("  no_collision 모드: " + noCollisionMode);
+        System.out.printf("  재생 배율: %.2fx%n", PLAN_TIME_SCALE);
+    }
+
+    private static InputStream openPlanJsonFile() {
+        var inputStream = PlanLoader.class.getResourceAsStream("/Plan.json");
         if (inputStream == null) {
             throw new RuntimeException("정적 시나리오 파일을 찾을 수 없음: /Plan.json");
         }
+        return inputStream;
+    }
+
+    private static JsonNode loadPlanJsonFile() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        var inputStream = openPlanJsonFile();
 
         JsonNode root = mapper.readTree(inputStream);
         inputStream.close();
         return root;
     }
 
-    private static void parseStatsFromPlan(JsonNode planRoot) {
-        JsonNode statsNode = planRoot.get("stats");
+    // PlanGenerator.py는 stats를 맨 앞에 쓰므로 요청 배열을 읽기 전에 멈춘다. 다른 순서면 앞선 필드를 트리로 만들지 않고 건너뛴다.
+    private static JsonNode readStatsHeader() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        try (var inputStream = openPlanJsonFile(); JsonParser parser = mapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("Plan.json 최상위가 객체가 아닙니다.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("stats".equals(field)) {
+                    return mapper.readTree(parser);
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    private static void parseStats(JsonNode statsNode) {
         if (statsNode != null) {
             seatsPerUser = statsNode.path("seats_per_user").asInt(0);
             numUsers = statsNode.path("num_users").asInt(0);
@@ -159,7 +279,7 @@ public final class PlanLoader {
 
         for (JsonNode cgNode : collisionGroupsNode) {
             String id = cgNode.get("id").asText();
-            long timeMs = cgNode.get("time_ms").asLong();
+            long timeMs = scaleTime(cgNode.get("time_ms").asLong());
             int section = cgNode.get("section").asInt();
             int seat = cgNode.get("seat").asInt();
 
@@ -170,7 +290,8 @@ public final class PlanLoader {
                 requestToCollision.put(reqId, id);
             }
 
-            collisionGroups.put(id, new CollisionGroup(id, timeMs, section, seat, reqIds));
+            String winnerId = cgNode.hasNonNull("winner") ? cgNode.get("winner").asText() : null;
+            collisionGroups.put(id, new CollisionGroup(id, timeMs, section, seat, reqIds, winnerId));
             loserRequestQueues.put(id, new ConcurrentLinkedQueue<>());
         }
     }
@@ -198,6 +319,8 @@ public final class PlanLoader {
                 ConcurrentLinkedQueue<PlannedRequest> queue = loserRequestQueues.get(request.collisionLoserId);
                 if (queue != null) {
                     queue.add(request);
+                } else {
+                    danglingLoserIds.add(request.id);
                 }
             }
         }
@@ -205,10 +328,27 @@ public final class PlanLoader {
         sortAndStoreUserPlans(tempUserPlans);
     }
 
+    private static void validatePlan() {
+        long startNanos = System.nanoTime();
+        List<List<PlannedRequest>> loserQueues = new ArrayList<>();
+        for (ConcurrentLinkedQueue<PlannedRequest> queue : loserRequestQueues.values()) {
+            loserQueues.add(new ArrayList<>(queue));
+        }
+
+        PlanValidator.Result result = new PlanValidator(new ArrayList<>(userPlans.values()), loserQueues,
+                collisionGroups, requestToCollision, seatsPerUser, noCollisionMode).validate(danglingLoserIds);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        if (!result.passed()) {
+            throw new IllegalStateException("Plan.json 검증 실패" + result.describe());
+        }
+        System.out.println("Plan.json 검증 통과: 요청 " + result.requests() + "개, " + elapsedMillis + "ms");
+    }
+
     private static PlannedRequest parseRequest(JsonNode reqNode) {
         String id = reqNode.get("id").asText();
         RequestType type = parseRequestType(reqNode.path("type").asText("book"));
-        long timeMs = reqNode.get("time_ms").asLong();
+        long timeMs = scaleTime(reqNode.get("time_ms").asLong());
         int section = reqNode.path("section").asInt(0);
         int seat = type == RequestType.BOOK ? reqNode.get("seat").asInt() : -1;
         int targetSection = type == RequestType.SECTION_MOVE
@@ -231,6 +371,11 @@ public final class PlanLoader {
         return new PlannedRequest(id, type, timeMs, section, seat, targetSection, userId, collisionLoserId);
     }
 
+    // 같은 시각은 같은 시각으로, 앞선 시각은 앞서거나 같은 시각으로 옮겨 충돌 그룹과 유저별 순서를 유지한다.
+    static long scaleTime(long timeMs) {
+        return PLAN_TIME_SCALE == 1.0 ? timeMs : Math.round(timeMs / PLAN_TIME_SCALE);
+    }
+
     private static RequestType parseRequestType(String rawType) {
         return switch (rawType) {
             case "book" -> RequestType.BOOK;
@@ -246,7 +391,12 @@ public final class PlanLoader {
         for (Integer userId : sortedUserIds) {
             List<PlannedRequest> requests = tempUserPlans.get(userId);
             requests.sort(Comparator.comparingLong(r -> r.timeMs));
-            userPlans.put(userId, requests);
+            // 유저 계획은 가상 유저들이 PlanCursor로 함께 읽으므로 수정할 수 없게 둔다.
+            userPlans.put(userId, Collections.unmodifiableList(requests));
+            maxUserId = Math.max(maxUserId, userId);
+            if (!requests.isEmpty()) {
+                planSpanMillis = Math.max(planSpanMillis, requests.get(requests.size() - 1).timeMs);
+            }
         }
 
         totalPlannedRequests = userPlans.values().stream()
@@ -254,6 +404,15 @@ public final class PlanLoader {
                 .sum();
     }
 
+    private static void printHeaderSummary() {
+        System.out.println("=== 계획 헤더 ===");
+        System.out.println("  유저 수: " + numUsers);
+        System.out.println("  유저당 좌석: " + seatsPerUser);
+        System.out.println("  계획 요청: " + totalPlannedRequests);
+        System.out.println("  no_collision 모드: " + noCollisionMode);
+        System.out.println("  요청 본문: 로그인 중 백그라운드에서 로드");
+    }
+
     private static void printLoadSummary() {
         int totalLoserRequests = loserRequestQueues.values().stream()
                 .mapToInt(ConcurrentLinkedQueue::size)
@@ -268,6 +427,7 @@ public final class PlanLoader {
         System.out.println("  계획 요청: " + totalPlannedRequests);
         System.out.println("  좌석 점유 요청: " + totalBookRequests);
         System.out.println("  섹션 전환 요청: " + totalSectionMoveRequests);
+        System.out.printf("  재생 배율: %.2fx (계획 길이 %.1f초)%n", PLAN_TIME_SCALE, planSpanMillis / 1000.0);
     }
 
     public static synchronized void initializeParallelData() {
@@ -275,30 +435,35 @@ public final class PlanLoader {
             return;
         }
 
-        List<PlannedRequest> allReqs = new ArrayList<>();
-        List<Integer> userIds = new ArrayList<>();
-
-        for (Map.Entry<Integer, List<PlannedRequest>> entry : userPlans.entrySet()) {
-            int userId = entry.getKey();
-            for (PlannedRequest req : entry.getValue()) {
-                allReqs.add(req);
-                userIds.add(userId);
-            }
+        List<PlannedRequest> allReqs = new ArrayList<>(totalPlannedRequests);
+        for (List<PlannedRequest> plan : userPlans.values()) {
+            allReqs.addAll(plan);
         }
 
-        Integer[] indices = new Integer[allReqs.size()];
-        for (int i = 0; i < indices.length; i++) {
-            indices[i] = i;
+        // 상위 비트에 시각, 하위 비트에 원래 위치를 담아 박싱 없이 정렬한다. 같은 시각이면 원래 순서를 유지한다.
+        int indexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(allReqs.size()));
+        long maxTime = 1L << (63 - indexBits);
+        long[] keys = new long[allReqs.size()];
+        for (int i = 0; i < keys.length; i++) {
+            long timeMs = allReqs.get(i).timeMs;
+            if (timeMs < 0 || timeMs >= maxTime) {
+                throw new IllegalStateException("요청 시각을 정렬 키에 담을 수 없습니다: " + allReqs.get(i).id + " " + timeMs + "ms");
+            }
+            keys[i] = (timeMs << indexBits) | i;
         }
 
-        Arrays.sort(indices, (a, b) -> Long.compare(allReqs.get(a).timeMs, allReqs.get(b).timeMs));
+        Arrays.parallelSort(keys);
 
-        allRequestsSorted = new ArrayList<>(allReqs.size());
-        requestUserIds = new int[allReqs.size()];
-        for (int i = 0; i < indices.length; i++) {
-            allRequestsSorted.add(allReqs.get(indices[i]));
-            requestUserIds[i] = userIds.get(indices[i]);
+        long indexMask = (1L << indexBits) - 1;
+        List<PlannedRequest> sorted = new ArrayList<>(keys.length);
+        int[] userIds = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            PlannedRequest req = allReqs.get((int) (keys[i] & indexMask));
+            sorted.add(req);
+            userIds[i] = req.userId;
         }
+        requestUserIds = userIds;
+        allRequestsSorted = sorted;
 
         AsyncLogger.log("병렬 데이터 초기화 완료: " + allRequestsSorted.size() + "개 요청");
     }
@@ -307,6 +472,17 @@ public final class PlanLoader {
         return numUsers;
     }
 
+    public static int getMaxUserId() {
+        return maxUserId;
+    }
+
+    /**
+     * 재생 배율을 적용한 마지막 계획 요청 시각
+     */
+    public static long getPlanSpanMillis() {
+        return planSpanMillis;
+    }
+
     public static int getSeatsPerUser() {
         return seatsPerUser;
     }
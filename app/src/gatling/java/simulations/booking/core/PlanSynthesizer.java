@@ -0,0 +1,623 @@
+package simulations.booking.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import simulations.booking.core.PlanLoader.CollisionGroup;
+import simulations.booking.core.PlanLoader.PlannedRequest;
+import simulations.booking.core.PlanLoader.RequestType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * PlanConfig.json 기반 계획 합성기
+ *
+ * PlanGenerator.py의 예매 시뮬레이션을 JVM 안에서 돌려, Plan.json을 쓰고 읽지 않고 계획 요청을 시간순으로 하나씩 만든다.
+ * 유저별 다음 행동 시각을 이벤트 큐로 진행하고, 유저는 네트워크 지연만큼 늦은 좌석 스냅샷을 보고 좌석을 고른다.
+ * 같은 시드면 같은 요청열이 나온다. 다만 난수 생성기가 Python과 달라 Plan.json과 요청 하나하나가 같지는 않다.
+ *
+ * 이미 점유된 좌석을 고른 요청은 충돌 그룹에 묶여 승자 요청 시각으로 당겨지므로, 만든 요청은 재정렬 버퍼에 잠시 둔다.
+ * 유저가 볼 수 있는 가장 오래된 스냅샷이 만들어진 시각보다 앞선 요청은 더 이상 충돌 그룹의 승자가 될 수 없으므로 내보낸다.
+ * 그래서 버퍼에는 스냅샷 주기와 네트워크 지연 상한(5배)으로 정해지는 구간의 요청만 남는다.
+ * 유저별 상태와 좌석 점유 비트맵 외에는 전체 요청 수에 비례하는 메모리를 쓰지 않는다.
+ *
+ * 한 인스턴스는 한 스레드에서만 사용한다.
+ */
+public final class PlanSynthesizer {
+
+    // PlanGenerator.py와 같은 안전 상한
+    private static final long MAX_SIMULATION_DURATION_MS = 3_600_000L;
+    private static final int WORDS_PER_BLOCK = 64;
+
+    private final int numUsers;
+    private final int seatsPerUser;
+    private final long seed;
+    private final boolean seeded;
+    private final int snapshotIntervalMs;
+    private final int networkDelayMs;
+    private final int requestDelayMeanMs;
+    private final int requestDelayMinMs;
+    private final double requestDelaySkew;
+    private final boolean noCollision;
+    private final int sectionMoveCount;
+    private final int sectionMoveDelayMeanMs;
+    private final int sectionMoveDelayMinMs;
+    private final double sectionMoveDelaySkew;
+    private final boolean randomMoveTarget;
+    private final int sectionCount;
+
+    // 가용 좌석 번호 -> (섹션, 좌석)
+    private final int[] seatSections;
+    private final int[] seatIndexes;
+
+    private final Random random;
+    private final Random moveRandom;
+
+    private final PriorityQueue<UserEvent> events = new PriorityQueue<>(
+            Comparator.comparingLong((UserEvent e) -> e.timeMs).thenComparingLong(e -> e.seq));
+    private final PriorityQueue<UserEvent> moveEvents = new PriorityQueue<>(
+            Comparator.comparingLong((UserEvent e) -> e.timeMs).thenComparingInt(e -> e.userId));
+    private final PriorityQueue<Pending> buffer = new PriorityQueue<>(
+            Comparator.comparingLong((Pending p) -> p.timeMs).thenComparingLong(p -> p.seq));
+
+    private final int[] secured;
+    private final int[][] requestedSeats;
+    private final int[] requestedCounts;
+    private final Group[] lostGroups;
+    private final int[] moveSections;
+    private final int[] movesDone;
+    private int[] assignedSeats;
+
+    private final long[] taken;
+    private final TreeMap<Long, Snapshot> snapshots = new TreeMap<>();
+    private final Map<Integer, Pending> bufferedWinners = new HashMap<>();
+
+    private Consumer<CollisionGroup> collisionGroupListener = group -> {
+    };
+
+    private long eventSeq = 0;
+    private long requestCounter = 0;
+    private long sectionMoveCounter = 0;
+    private long collisionCounter = 0;
+    private long lastBookEventTime = 0;
+    private long emittedBook = 0;
+    private long emittedLoser = 0;
+    private long emittedSectionMove = 0;
+    private int maxBuffered = 0;
+    private long fingerprint = 0xcbf29ce484222325L;
+
+    private PlanSynthesizer(JsonNode config, JsonNode sections) {
+        this.numUsers = config.path("num_users").asInt(10);
+        this.seatsPerUser = config.path("seats_per_user").asInt(2);
+        JsonNode seedNode = config.get("seed");
+        this.seeded = seedNode != null && !seedNode.isNull();
+        this.seed = seeded ? seedNode.asLong() : System.nanoTime();
+        this.snapshotIntervalMs = config.path("snapshot_interval").asInt(500);
+        this.networkDelayMs = config.path("network_delay").asInt(50);
+        this.requestDelayMeanMs = config.path("request_delay_mean").asInt(500);
+        this.requestDelayMinMs = config.path("request_delay_min").asInt(50);
+        this.requestDelaySkew = config.path("request_delay_skew").asDouble(0.0);
+        this.noCollision = config.path("no_collision").asBoolean(false);
+        this.sectionMoveCount = config.path("section_move_count").asInt(0);
+        this.sectionMoveDelayMeanMs = config.path("section_move_delay_mean_ms").asInt(1500);
+        this.sectionMoveDelayMinMs = config.path("section_move_delay_min_ms").asInt(500);
+        this.sectionMoveDelaySkew = config.path("section_move_delay_skew").asDouble(0.0);
+        this.sectionCount = sections.size();
+
+        String strategy = config.path("section_move_target_strategy").asText("round_robin");
+        if (!strategy.equals("round_robin") && !strategy.equals("random")) {
+            throw new IllegalArgumentException("section_move_target_strategy='" + strategy + "' 미지원 (round_robin | random)");
+        }
+        this.randomMoveTarget = strategy.equals("random");
+        if (sectionMoveCount > 0 && sectionCount < 2) {
+            throw new IllegalArgumentException("section_move를 위해서는 2개 이상의 섹션 필요 (현재 " + sectionCount + ")");
+        }
+
+        int available = 0;
+        for (JsonNode section : sections) {
+            for (JsonNode seat : section.path("seats")) {
+                if (seat.asInt() == 1) {
+                    available++;
+                }
+            }
+        }
+        long needed = (long) numUsers * seatsPerUser;
+        if (needed > available) {
+            throw new IllegalArgumentException("좌석 부족: 필요 " + needed + ", 가용 " + available);
+        }
+
+        this.seatSections = new int[available];
+        this.seatIndexes = new int[available];
+        int seatId = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            JsonNode seats = sections.get(section).path("seats");
+            for (int seat = 0; seat < seats.size(); seat++) {
+                if (seats.get(seat).asInt() == 1) {
+                    seatSections[seatId] = section;
+                    seatIndexes[seatId] = seat;
+                    seatId++;
+                }
+            }
+        }
+
+        // 예매 이벤트와 섹션 전환은 난수열을 나눠, 섹션 전환 설정이 좌석 선택 결과를 바꾸지 않게 한다.
+        this.random = new Random(seed);
+        this.moveRandom = new Random(seed ^ 0x5DEECE66DL);
+
+        this.secured = new int[numUsers + 1];
+        this.requestedSeats = new int[numUsers + 1][];
+        this.requestedCounts = new int[numUsers + 1];
+        this.lostGroups = new Group[numUsers + 1];
+        this.moveSections = new int[numUsers + 1];
+        this.movesDone = new int[numUsers + 1];
+        this.taken = new long[(available + 63) >>> 6];
+
+        if (noCollision) {
+            assignSeatsToUsers(available);
+        } else {
+            snapshots.put(0L, new Snapshot(Long.MIN_VALUE, taken, available));
+        }
+
+        for (int userId = 1; userId <= numUsers; userId++) {
+            events.add(new UserEvent(requestDelay(), userId, eventSeq++));
+        }
+        if (sectionMoveCount > 0) {
+            for (int userId = 1; userId <= numUsers; userId++) {
+                moveEvents.add(new UserEvent(sectionMoveDelay(), userId, 0));
+            }
+        }
+    }
+
+    public static PlanSynthesizer fromResource(String resource) {
+        try (var inputStream = PlanSynthesizer.class.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("계획 설정 파일을 찾을 수 없음: " + resource);
+            }
+            JsonNode root = new ObjectMapper().readTree(inputStream);
+            JsonNode sections = root.isArray() ? root : root.get("sections");
+            if (sections == null || !sections.isArray() || sections.isEmpty()) {
+                throw new IllegalArgumentException(resource + "에 좌석 데이터가 없습니다.");
+            }
+            return new PlanSynthesizer(root.path("config"), sections);
+        } catch (java.io.IOException e) {
+            throw new IllegalArgumentException("계획 설정 파일을 읽을 수 없음: " + resource, e);
+        }
+    }
+
+    /**
+     * 충돌 그룹은 승자 요청을 내보낼 때(더 이상 패자가 늘어날 수 없을 때) 알린다.
+     */
+    public void setCollisionGroupListener(Consumer<CollisionGroup> listener) {
+        this.collisionGroupListener = listener;
+    }
+
+    /**
+     * 다음 계획 요청. 시간순(같은 시각이면 생성 순)이며, 더 이상 없으면 null
+     */
+    public PlannedRequest next() {
+        while (true) {
+            long bound = releaseBound();
+            Pending head = buffer.peek();
+            UserEvent move = moveEvents.peek();
+
+            if (head != null && head.timeMs < bound && (move == null || head.timeMs <= move.timeMs)) {
+                return release(buffer.poll());
+            }
+            if (move != null && move.timeMs < bound) {
+                PlannedRequest sectionMove = nextSectionMove(moveEvents.poll());
+                if (sectionMove != null) {
+                    return sectionMove;
+                }
+                continue;
+            }
+            if (!events.isEmpty()) {
+                processBookEvent(events.poll());
+                continue;
+            }
+            if (head == null && move == null) {
+                return null;
+            }
+        }
+    }
+
+    // 아직 처리하지 않은 이벤트보다 앞서고, 유저가 볼 수 있는 가장 오래된 스냅샷보다 먼저 만든 요청만 확정된다.
+    private long releaseBound() {
+        if (events.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long bound = events.peek().timeMs;
+        if (!snapshots.isEmpty()) {
+            bound = Math.min(bound, snapshots.firstEntry().getValue().createdAt);
+        }
+        return bound;
+    }
+
+    private void processBookEvent(UserEvent event) {
+        if (event.timeMs >= MAX_SIMULATION_DURATION_MS) {
+            throw new IllegalStateException("book_seats가 " + MAX_SIMULATION_DURATION_MS
+                    + "ms 안전 상한을 초과 — num_users / seats_per_user / request_delay 점검 필요");
+        }
+
+        int userId = event.userId;
+        if (secured[userId] >= seatsPerUser) {
+            return;
+        }
+
+        if (!noCollision) {
+            updateSnapshot(event.timeMs);
+        }
+        int seatId = chooseSeat(userId, event.timeMs);
+        if (seatId < 0) {
+            long nextSnapshot = snapshotTime(event.timeMs) + snapshotIntervalMs;
+            events.add(new UserEvent(nextSnapshot + 10 + random.nextInt(91), userId, eventSeq++));
+            return;
+        }
+
+        Pending request = new Pending(event.timeMs, requestCounter, "R" + (++requestCounter), RequestType.BOOK, userId);
+        request.seatId = seatId;
+        request.section = seatSections[seatId];
+        request.seat = seatIndexes[seatId];
+        request.targetSection = request.section;
+        request.loserOf = lostGroups[userId];
+
+        if (isTaken(taken, seatId)) {
+            joinCollisionGroup(request);
+            lostGroups[userId] = request.group;
+        } else {
+            taken[seatId >>> 6] |= 1L << seatId;
+            secured[userId]++;
+            bufferedWinners.put(seatId, request);
+            lostGroups[userId] = null;
+        }
+        buffer.add(request);
+        maxBuffered = Math.max(maxBuffered, buffer.size());
+        lastBookEventTime = event.timeMs;
+
+        if (secured[userId] < seatsPerUser) {
+            events.add(new UserEvent(event.timeMs + requestDelay(), userId, eventSeq++));
+        }
+    }
+
+    // 패자 요청은 승자 요청 시각으로 당긴다. 승자는 재정렬 버퍼 안에 있어야 한다.
+    private void joinCollisionGroup(Pending loser) {
+        Pending winner = bufferedWinners.get(loser.seatId);
+        if (winner == null) {
+            throw new IllegalStateException("재정렬 범위 밖의 충돌: 요청 " + loser.id);
+        }
+        if (winner.group == null) {
+            winner.group = new Group("CG" + (++collisionCounter), winner.timeMs, winner.section, winner.seat);
+            winner.group.requestIds.add(winner.id);
+        }
+        winner.group.requestIds.add(loser.id);
+        loser.group = winner.group;
+        loser.timeMs = winner.timeMs;
+    }
+
+    private PlannedRequest release(Pending pending) {
+        if (pending.type == RequestType.BOOK && bufferedWinners.get(pending.seatId) == pending) {
+            bufferedWinners.remove(pending.seatId);
+            if (pending.group != null) {
+                Group group = pending.group;
+                collisionGroupListener.accept(new CollisionGroup(group.id, PlanLoader.scaleTime(group.timeMs),
+                        group.section, group.seat, group.requestIds, group.requestIds.get(0)));
+            }
+        }
+
+        if (pending.type == RequestType.SECTION_MOVE) {
+            emittedSectionMove++;
+        } else if (pending.loserOf != null) {
+            emittedLoser++;
+        } else {
+            emittedBook++;
+        }
+
+        int userId = pending.loserOf == null ? pending.userId : -1;
+        String loserId = pending.loserOf == null ? null : pending.loserOf.id;
+        updateFingerprint(pending, userId, loserId);
+        return new PlannedRequest(pending.id, pending.type, PlanLoader.scaleTime(pending.timeMs),
+                pending.section, pending.type == RequestType.BOOK ? pending.seat : -1,
+                pending.targetSection, userId, loserId);
+    }
+
+    // 예매가 끝난 뒤(마지막 예매 요청 시각 이후)의 섹션 전환은 만들지 않는다.
+    private PlannedRequest nextSectionMove(UserEvent move) {
+        boolean bookingActive = !events.isEmpty() || move.timeMs < lastBookEventTime;
+        if (!bookingActive) {
+            return null;
+        }
+
+        int userId = move.userId;
+        int current = moveSections[userId];
+        int target = randomMoveTarget
+                ? (current + 1 + moveRandom.nextInt(sectionCount - 1)) % sectionCount
+                : (current + 1) % sectionCount;
+
+        Pending request = new Pending(move.timeMs, 0, "SM" + (++sectionMoveCounter), RequestType.SECTION_MOVE, userId);
+        request.section = current;
+        request.targetSection = target;
+        moveSections[userId] = target;
+
+        if (++movesDone[userId] < sectionMoveCount) {
+            moveEvents.add(new UserEvent(move.timeMs + sectionMoveDelay(), userId, 0));
+        }
+        return release(request);
+    }
+
+    private int chooseSeat(int userId, long timeMs) {
+        if (noCollision) {
+            int next = requestedCounts[userId]++;
+            return next < seatsPerUser ? assignedSeats[(userId - 1) * seatsPerUser + next] : -1;
+        }
+
+        Snapshot view = viewOf(timeMs);
+        int excluded = 0;
+        for (int i = 0; i < requestedCounts[userId]; i++) {
+            if (!isTaken(view.taken, requestedSeats[userId][i])) {
+                excluded++;
+            }
+        }
+        if (view.free - excluded <= 0) {
+            return -1;
+        }
+
+        int seatId;
+        do {
+            seatId = view.nthFree(random.nextInt(view.free));
+        } while (hasRequested(userId, seatId));
+        addRequested(userId, seatId);
+        return seatId;
+    }
+
+    private Snapshot viewOf(long timeMs) {
+        long effective = Math.max(0, snapshotTime(timeMs) - networkDelay());
+        effective = (effective / snapshotIntervalMs) * snapshotIntervalMs;
+        return snapshots.floorEntry(effective).getValue();
+    }
+
+    // 구간의 첫 이벤트에서 그 시점의 좌석 상태를 떠 두고, 앞으로 어떤 유저도 볼 수 없는 스냅샷은 버린다.
+    private void updateSnapshot(long timeMs) {
+        long key = snapshotTime(timeMs);
+        if (!snapshots.containsKey(key)) {
+            snapshots.put(key, new Snapshot(timeMs, taken, seatSections.length));
+        }
+
+        long oldestVisible = (Math.max(0, key - 5L * Math.max(0, networkDelayMs)) / snapshotIntervalMs) * snapshotIntervalMs;
+        Long keep = snapshots.floorKey(oldestVisible);
+        if (keep != null) {
+            snapshots.headMap(keep, false).clear();
+        }
+    }
+
+    private long snapshotTime(long timeMs) {
+        return (timeMs / snapshotIntervalMs) * snapshotIntervalMs;
+    }
+
+    private void assignSeatsToUsers(int available) {
+        int[] shuffled = new int[available];
+        for (int i = 0; i < available; i++) {
+            shuffled[i] = i;
+        }
+        for (int i = available - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+        assignedSeats = shuffled;
+    }
+
+    private boolean hasRequested(int userId, int seatId) {
+        for (int i = 0; i < requestedCounts[userId]; i++) {
+            if (requestedSeats[userId][i] == seatId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addRequested(int userId, int seatId) {
+        int[] seats = requestedSeats[userId];
+        if (seats == null) {
+            seats = requestedSeats[userId] = new int[Math.max(2, seatsPerUser)];
+        } else if (requestedCounts[userId] == seats.length) {
+            seats = requestedSeats[userId] = java.util.Arrays.copyOf(seats, seats.length * 2);
+        }
+        seats[requestedCounts[userId]++] = seatId;
+    }
+
+    private static boolean isTaken(long[] bits, int seatId) {
+        return (bits[seatId >>> 6] & (1L << seatId)) != 0;
+    }
+
+    private int requestDelay() {
+        return skewedDelay(random, requestDelayMinMs, requestDelayMeanMs, requestDelaySkew);
+    }
+
+    private int sectionMoveDelay() {
+        return skewedDelay(moveRandom, sectionMoveDelayMinMs, sectionMoveDelayMeanMs, sectionMoveDelaySkew);
+    }
+
+    private int networkDelay() {
+        if (networkDelayMs <= 0) {
+            return 0;
+        }
+        return (int) Math.min(exponential(random, networkDelayMs), networkDelayMs * 5L);
+    }
+
+    // PlanGenerator.py의 _request_delay / _section_move_delay와 같은 분포
+    private static int skewedDelay(Random random, int min, int mean, double skew) {
+        if (skew <= 0) {
+            return Math.max(min, (int) exponential(random, mean));
+        }
+        double range = (mean - min) * 2.0;
+        return Math.max(min, (int) (min + Math.pow(random.nextDouble(), skew) * range));
+    }
+
+    private static double exponential(Random random, double mean) {
+        return -Math.log(1.0 - random.nextDouble()) * mean;
+    }
+
+    private void updateFingerprint(Pending pending, int userId, String loserId) {
+        mix(pending.id.hashCode());
+        mix(pending.type.ordinal());
+        mix(pending.timeMs);
+        mix(userId);
+        mix(loserId == null ? 0 : loserId.hashCode());
+        mix(pending.section);
+        mix(pending.type == RequestType.BOOK ? pending.seat : pending.targetSection);
+    }
+
+    private void mix(long value) {
+        fingerprint = (fingerprint ^ value) * 0x100000001b3L;
+    }
+
+    public int getNumUsers() {
+        return numUsers;
+    }
+
+    public int getSeatsPerUser() {
+        return seatsPerUser;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 설정에 seed가 있어 같은 요청열을 다시 만들 수 있는지 여부
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public boolean isNoCollisionMode() {
+        return noCollision;
+    }
+
+    /**
+     * 지금까지 내보낸 요청열의 지문. 재생 배율과 무관하며, 같은 설정과 시드면 같은 값이 나온다.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public long getEmittedBookRequests() {
+        return emittedBook;
+    }
+
+    public long getEmittedLoserRequests() {
+        return emittedLoser;
+    }
+
+    public long getEmittedSectionMoveRequests() {
+        return emittedSectionMove;
+    }
+
+    public long getCollisionGroupCount() {
+        return collisionCounter;
+    }
+
+    public int getMaxBuffered() {
+        return maxBuffered;
+    }
+
+    private static final class UserEvent {
+        final long timeMs;
+        final int userId;
+        final long seq;
+
+        UserEvent(long timeMs, int userId, long seq) {
+            this.timeMs = timeMs;
+            this.userId = userId;
+            this.seq = seq;
+        }
+    }
+
+    private static final class Pending {
+        long timeMs;
+        final long seq;
+        final String id;
+        final RequestType type;
+        final int userId;
+        int seatId = -1;
+        int section;
+        int seat = -1;
+        int targetSection;
+        Group loserOf;
+        Group group;
+
+        Pending(long timeMs, long seq, String id, RequestType type, int userId) {
+            this.timeMs = timeMs;
+            this.seq = seq;
+            this.id = id;
+            this.type = type;
+            this.userId = userId;
+        }
+    }
+
+    private static final class Group {
+        final String id;
+        final long timeMs;
+        final int section;
+        final int seat;
+        final List<String> requestIds = new ArrayList<>();
+
+        Group(String id, long timeMs, int section, int seat) {
+            this.id = id;
+            this.timeMs = timeMs;
+            this.section = section;
+            this.seat = seat;
+        }
+    }
+
+    /**
+     * 한 스냅샷 구간의 좌석 점유 상태. 무작위 좌석 선택이 비트맵 전체를 훑지 않도록 64워드 블록마다 빈 좌석 수를 둔다.
+     */
+    private static final class Snapshot {
+        final long createdAt;
+        final long[] taken;
+        final int[] blockFree;
+        final int free;
+
+        Snapshot(long createdAt, long[] current, int seatCount) {
+            this.createdAt = createdAt;
+            this.taken = current.clone();
+            this.blockFree = new int[(taken.length + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK];
+            int total = 0;
+            for (int word = 0; word < taken.length; word++) {
+                int bits = Math.min(64, seatCount - (word << 6));
+                int wordFree = bits - Long.bitCount(taken[word]);
+                blockFree[word / WORDS_PER_BLOCK] += wordFree;
+                total += wordFree;
+            }
+            this.free = total;
+        }
+
+        int nthFree(int n) {
+            int block = 0;
+            while (n >= blockFree[block]) {
+                n -= blockFree[block++];
+            }
+            int word = block * WORDS_PER_BLOCK;
+            while (true) {
+                long freeBits = ~taken[word];
+                int wordFree = Long.bitCount(freeBits);
+                if (n < wordFree) {
+                    for (int i = 0; i < n; i++) {
+                        freeBits &= freeBits - 1;
+                    }
+                    return (word << 6) + Long.numberOfTrailingZeros(freeBits);
+                }
+                n -= wordFree;
+                word++;
+            }
+        }
+    }
+}
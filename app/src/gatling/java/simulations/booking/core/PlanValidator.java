@@ -0,0 +1,240 @@
+package simulations.booking.core;
+
+import simulations.booking.core.PlanLoader.CollisionGroup;
+import simulations.booking.core.PlanLoader.PlannedRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Plan.json 불변식 검증
+ *
+ * PlanGenerator.py의 validate_plan이 보는 규칙을 로드 시점에 다시 확인해, 손으로 고치거나 잘리거나 다른 도구로 만든 계획이
+ * 실행 도중에 깨지지 않게 한다. 유저 계획(과 충돌 대체 요청 큐)을 구간으로 나눠 ForkJoinPool에서 나란히 검사하고,
+ * 구간마다 위반 수와 예시 몇 개만 모아 합친다.
+ * no_collision 계획의 좌석 중복은 구간이 달라도 잡히도록 공연장 전체 좌석 비트맵을 CAS로 채우며 확인한다.
+ */
+final class PlanValidator {
+
+    enum Rule {
+        USER_ORDER("유저별 섹션 전환 순서"),
+        USER_BOOK_COUNT("유저별 일반 좌석 점유 요청 수"),
+        DANGLING_LOSER("존재하지 않는 collision_loser"),
+        SELF_LOSER("자신이 속한 충돌 그룹을 참조하는 collision_loser"),
+        COLLISION_TIME("충돌 그룹 요청 시각 불일치"),
+        COLLISION_MEMBER("충돌 그룹에 없는 요청"),
+        COLLISION_WINNER("충돌 그룹 구성원이 아닌 승자"),
+        SEAT_OUT_OF_LAYOUT("공연장 배치 밖의 좌석"),
+        DUPLICATE_SEAT("no_collision 계획의 좌석 중복");
+
+        private final String label;
+
+        Rule(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int PARTITION_THRESHOLD = 256;
+    private static final int MAX_SAMPLES = 10;
+
+    private final List<List<PlannedRequest>> userPlans;
+    private final List<List<PlannedRequest>> loserQueues;
+    private final Map<String, CollisionGroup> collisionGroups;
+    private final Map<String, String> requestToCollision;
+    private final int seatsPerUser;
+    private final boolean noCollision;
+    private final AtomicLongArray seatBits;
+
+    PlanValidator(List<List<PlannedRequest>> userPlans, List<List<PlannedRequest>> loserQueues,
+                  Map<String, CollisionGroup> collisionGroups, Map<String, String> requestToCollision,
+                  int seatsPerUser, boolean noCollision) {
+        this.userPlans = userPlans;
+        this.loserQueues = loserQueues;
+        this.collisionGroups = collisionGroups;
+        this.requestToCollision = requestToCollision;
+        this.seatsPerUser = seatsPerUser;
+        this.noCollision = noCollision;
+        this.seatBits = new AtomicLongArray((VenueLayout.getTotalSeats() + 63) >>> 6);
+    }
+
+    /**
+     * @param danglingLoserIds 파싱 중 찾지 못한 충돌 그룹을 가리킨 요청 ID
+     */
+    Result validate(List<String> danglingLoserIds) {
+        Result result = ForkJoinPool.commonPool().invoke(new PartitionTask(0, userPlans.size() + loserQueues.size()));
+
+        for (String requestId : danglingLoserIds) {
+            result.violation(Rule.DANGLING_LOSER, "요청 " + requestId);
+        }
+
+        // 그룹에 적힌 요청이 모두 계획에 있으면, 계획에서 그룹에 매핑된 요청 수가 그룹 구성원 수의 합과 같다.
+        long members = 0;
+        for (CollisionGroup group : collisionGroups.values()) {
+            members += group.requestIds.size();
+            if (group.winnerId != null && !group.requestIds.contains(group.winnerId)) {
+                result.violation(Rule.COLLISION_WINNER, group.id + ": 승자 " + group.winnerId);
+            }
+        }
+        if (members != result.collisionMembersSeen) {
+            result.violation(Rule.COLLISION_MEMBER, "그룹 구성원 " + members + "개 중 계획에 있는 요청 " + result.collisionMembersSeen + "개");
+        }
+        return result;
+    }
+
+    private final class PartitionTask extends RecursiveTask<Result> {
+        private final int from;
+        private final int to;
+
+        PartitionTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= PARTITION_THRESHOLD) {
+                Result result = new Result();
+                for (int i = from; i < to; i++) {
+                    if (i < userPlans.size()) {
+                        checkUserPlan(userPlans.get(i), result);
+                    } else {
+                        checkLoserQueue(loserQueues.get(i - userPlans.size()), result);
+                    }
+                }
+                return result;
+            }
+
+            int mid = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(from, mid);
+            left.fork();
+            Result right = new PartitionTask(mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // 유저 계획은 시각순으로 정렬되어 있으므로, 섹션 전환은 0번 섹션부터 이전 전환의 목표 섹션에서 이어져야 한다.
+    private void checkUserPlan(List<PlannedRequest> plan, Result result) {
+        int section = 0;
+        int books = 0;
+        for (PlannedRequest request : plan) {
+            result.requests++;
+            if (request.isSectionMove()) {
+                if (request.section != section) {
+                    result.violation(Rule.USER_ORDER, "요청 " + request.id + ": 섹션 " + section + "에서 출발해야 하지만 " + request.section);
+                }
+                section = request.targetSection;
+                continue;
+            }
+            books++;
+            checkBook(request, result);
+        }
+
+        if (!plan.isEmpty() && books != seatsPerUser) {
+            result.violation(Rule.USER_BOOK_COUNT, "User" + plan.get(0).userId + ": " + books + "개 (기대 " + seatsPerUser + ")");
+        }
+    }
+
+    private void checkLoserQueue(List<PlannedRequest> queue, Result result) {
+        for (PlannedRequest request : queue) {
+            result.requests++;
+            if (request.collisionLoserId.equals(requestToCollision.get(request.id))) {
+                result.violation(Rule.SELF_LOSER, "요청 " + request.id + " -> " + request.collisionLoserId);
+            }
+            checkBook(request, result);
+        }
+    }
+
+    private void checkBook(PlannedRequest request, Result result) {
+        String collisionId = requestToCollision.get(request.id);
+        if (collisionId != null) {
+            result.collisionMembersSeen++;
+            CollisionGroup group = collisionGroups.get(collisionId);
+            if (group.timeMs != request.timeMs) {
+                result.violation(Rule.COLLISION_TIME, collisionId + ": 요청 " + request.id + " " + request.timeMs + "ms, 그룹 " + group.timeMs + "ms");
+            }
+        }
+
+        int seatId = VenueLayout.globalSeatIndex(request.section, request.seat);
+        if (seatId < 0) {
+            result.violation(Rule.SEAT_OUT_OF_LAYOUT, "요청 " + request.id + ": 섹션 " + request.section + " 좌석 " + request.seat);
+            return;
+        }
+        if (noCollision && !claimSeat(seatId)) {
+            result.violation(Rule.DUPLICATE_SEAT, "요청 " + request.id + ": 섹션 " + request.section + " 좌석 " + request.seat);
+        }
+    }
+
+    private boolean claimSeat(int seatId) {
+        int word = seatId >>> 6;
+        long bit = 1L << seatId;
+        while (true) {
+            long current = seatBits.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (seatBits.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    static final class Result {
+        private final long[] counts = new long[Rule.values().length];
+        private final List<String> samples = new ArrayList<>();
+        private long requests;
+        private long collisionMembersSeen;
+
+        private void violation(Rule rule, String detail) {
+            counts[rule.ordinal()]++;
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(rule.label + ": " + detail);
+            }
+        }
+
+        private Result merge(Result other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            for (String sample : other.samples) {
+                if (samples.size() >= MAX_SAMPLES) {
+                    break;
+                }
+                samples.add(sample);
+            }
+            requests += other.requests;
+            collisionMembersSeen += other.collisionMembersSeen;
+            return this;
+        }
+
+        long requests() {
+            return requests;
+        }
+
+        boolean passed() {
+            for (long count : counts) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (Rule rule : Rule.values()) {
+                if (counts[rule.ordinal()] > 0) {
+                    sb.append("\n  ").append(rule.label).append(": ").append(counts[rule.ordinal()]).append("건");
+                }
+            }
+            sb.append("\n  예시:");
+            for (String sample : samples) {
+                sb.append("\n    ").append(sample);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package simulations.booking.core;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+import simulations.booking.metrics.RetryStats;
+import simulations.booking.metrics.SectionContention;
+import simulations.booking.subscription.SeatBitmap;
+import simulations.util.AsyncLogger;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static simulations.config.Config.*;
+
+/**
+ * 좌석 점유 재시도 정책
+ *
+ * 첫 시도는 유저 행동 지연(betweenBookingDelay) 뒤에 보내고, 재시도는 지수 백오프 상한 안에서 균등하게 뽑은 시간(전체 지터)만큼 기다린다.
+ * 재시도할 섹션은 SectionContention이 최근 충돌률과 남은 좌석 수로 고르며, 유저당 재시도 예산을 넘으면 예매를 포기한다.
+ * ENABLE_ADAPTIVE_RETRY가 꺼져 있으면 예전처럼 매번 같은 지연 뒤 무작위 섹션으로 다시 시도한다.
+ */
+public final class RetryPolicy {
+
+    // tryMax의 시도 번호 (0부터)
+    public static final String ATTEMPT_COUNTER = "seatAttempt";
+
+    private static final String RETRIES_USED_KEY = "retriesUsed";
+    private static final String BUDGET_EXHAUSTED_KEY = "retryBudgetExhausted";
+
+    private RetryPolicy() {
+    }
+
+    /**
+     * @param retry 이 좌석의 재시도 번호. 0이면 첫 시도
+     */
+    public static Duration delayBeforeAttempt(int retry) {
+        if (!ENABLE_ADAPTIVE_RETRY || retry == 0) {
+            return BookingActions.betweenBookingDelay();
+        }
+
+        long ceiling = Math.min(RETRY_BACKOFF_MAX_MILLIS, (long) RETRY_BACKOFF_BASE_MILLIS << Math.min(retry - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        RetryStats.recordBackoff(delay);
+        return Duration.ofMillis(delay);
+    }
+
+    public static ChainBuilder chooseSection() {
+        if (!ENABLE_ADAPTIVE_RETRY) {
+            return BookingActions.chooseRandomSection();
+        }
+        return exec(session -> session.set("targetSection", SectionContention.chooseSection()));
+    }
+
+    /**
+     * 방금 받은 좌석 맵의 예매 가능 좌석 수를 섹션 선택에 반영한다.
+     */
+    public static ChainBuilder observeSeatMap() {
+        return exec(session -> {
+            SeatBitmap seatStatus = session.get("seatStatus");
+            Integer currentSection = session.get("currentSection");
+            if (seatStatus != null && currentSection != null) {
+                SectionContention.recordFreeSeats(currentSection, seatStatus.availableCount());
+            }
+            return session;
+        });
+    }
+
+    public static boolean hasBudget(int retriesUsed) {
+        return !ENABLE_ADAPTIVE_RETRY || retriesUsed < RETRY_BUDGET_PER_USER;
+    }
+
+    /**
+     * 재시도라면 유저의 재시도 예산을 하나 쓴다. 남은 예산이 없으면 budgetExhausted()가 true가 된다.
+     */
+    public static ChainBuilder chargeRetry() {
+        return exec(session -> {
+            if (!isRetry(session)) {
+                return session;
+            }
+
+            int retriesUsed = session.contains(RETRIES_USED_KEY) ? session.getInt(RETRIES_USED_KEY) : 0;
+            if (!hasBudget(retriesUsed)) {
+                RetryStats.recordBudgetExhausted();
+                AsyncLogger.logf("유저 %d: 재시도 예산 %d회 소진", session.getInt("userNum"), RETRY_BUDGET_PER_USER);
+                return session.set(BUDGET_EXHAUSTED_KEY, true).markAsFailed();
+            }
+            return session.set(RETRIES_USED_KEY, retriesUsed + 1);
+        });
+    }
+
+    /**
+     * 지금 보내는 좌석 점유가 앞선 시도의 실패로 다시 보내는 요청인지 여부. tryMax 밖이면 false
+     */
+    public static boolean isRetry(Session session) {
+        return session.contains(ATTEMPT_COUNTER) && session.getInt(ATTEMPT_COUNTER) > 0;
+    }
+
+    public static boolean budgetExhausted(Session session) {
+        return session.contains(BUDGET_EXHAUSTED_KEY);
+    }
+
+    public static ChainBuilder recordSeatHeld() {
+        return exec(session -> {
+            RetryStats.recordSeatHeld(session.getInt(ATTEMPT_COUNTER));
+            return session;
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package simulations.booking.core;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 유저별 서버 세션의 현재 섹션
+ *
+ * 섹션 전환(PATCH /booking/seat/section)이 성공하면 유저 번호 칸에 섹션을 기록하고,
+ * 좌석 점유 전에 이미 그 섹션에 있으면 전환 요청을 생략한다. 생략을 끈 경우에도 같은 섹션으로의 중복 전환 수를 센다.
+ * 병렬 시나리오는 한 유저의 요청이 여러 가상 유저에 나뉘어 같은 SID를 쓰므로 Gatling 세션이 아닌 공유 배열에 둔다.
+ * 값은 섹션 + 1이며 0은 모름(첫 전환 전이거나 직전 전환이 실패함)을 뜻한다.
+ */
+public final class SectionAffinity {
+
+    private static volatile AtomicIntegerArray currentSections = new AtomicIntegerArray(0);
+
+    private static final LongAdder sentSwitches = new LongAdder();
+    private static final LongAdder failedSwitches = new LongAdder();
+    private static final LongAdder skippedSwitches = new LongAdder();
+    private static final LongAdder redundantSentSwitches = new LongAdder();
+
+    private SectionAffinity() {
+    }
+
+    /**
+     * @param maxUserId 계획에 나오는 가장 큰 유저 번호
+     */
+    public static synchronized void initialize(int maxUserId) {
+        if (currentSections.length() <= maxUserId) {
+            currentSections = new AtomicIntegerArray(maxUserId + 1);
+        }
+    }
+
+    public static boolean isCurrent(int userId, int section) {
+        AtomicIntegerArray sections = currentSections;
+        return userId >= 0 && userId < sections.length() && sections.get(userId) == section + 1;
+    }
+
+    public static void recordSkipped() {
+        skippedSwitches.increment();
+    }
+
+    /**
+     * 섹션 전환 응답을 반영한다. 실패하면 서버 세션의 섹션을 알 수 없으므로 다음 점유 전에 다시 전환한다.
+     */
+    public static void recordSwitch(int userId, int section, boolean succeeded) {
+        sentSwitches.increment();
+        if (!succeeded) {
+            failedSwitches.increment();
+        }
+
+        AtomicIntegerArray sections = currentSections;
+        if (userId >= 0 && userId < sections.length()) {
+            int previous = sections.getAndSet(userId, succeeded ? section + 1 : 0);
+            if (previous == section + 1) {
+                redundantSentSwitches.increment();
+            }
+        }
+    }
+
+    public static void printReport() {
+        long sent = sentSwitches.sum();
+        long skipped = skippedSwitches.sum();
+        long total = sent + skipped;
+
+        System.out.println("=== 섹션 전환 ===");
+        System.out.println("  전송: " + sent + " (실패 " + failedSwitches.sum()
+                + ", 이미 같은 섹션 " + redundantSentSwitches.sum() + ")");
+        System.out.printf("  생략 (이미 같은 섹션): %d (%.1f%%)%n", skipped, total == 0 ? 0.0 : skipped * 100.0 / total);
+    }
+}
@@ -0,0 +1,150 @@
+package simulations.booking.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import simulations.util.AsyncLogger;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static simulations.config.Config.SESSION_CACHE_FILE;
+import static simulations.config.Config.SESSION_CACHE_TTL_MINUTES;
+
+/**
+ * 로그인 세션(SID) 캐시
+ *
+ * 계정별 SID와 발급 시각을 로컬 파일에 저장한다.
+ * 다음 실행에서는 TTL 안의 세션만 재사용하고, 만료되었거나 없는 계정만 사전 로그인 대상으로 남긴다.
+ */
+public final class SessionCache {
+
+    public record CachedSession(String sid, long issuedAt) {
+    }
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Map<String, CachedSession> cachedSessions = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<Integer> pendingLogins = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pendingLoginCount = new AtomicInteger(0);
+    private static final AtomicInteger finishedLoginCount = new AtomicInteger(0);
+    private static final AtomicInteger onDemandLoginCount = new AtomicInteger(0);
+
+    private static boolean loaded = false;
+
+    private SessionCache() {
+    }
+
+    /**
+     * 캐시 파일을 읽어 유효한 세션을 SessionStore에 등록하고,
+     * 1..userCount 중 유효한 세션이 없는 계정을 사전 로그인 대기열에 넣는다.
+     */
+    public static synchronized void load(int userCount) {
+        if (loaded) {
+            return;
+        }
+
+        File file = new File(SESSION_CACHE_FILE);
+        if (file.exists()) {
+            try {
+                Map<String, CachedSession> sessions = mapper.readValue(file, new TypeReference<>() {});
+                cachedSessions.putAll(sessions);
+            } catch (Exception e) {
+                System.err.println("세션 캐시 파일 로드 실패, 전체 재로그인: " + e.getMessage());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int reused = 0;
+        for (int userNum = 1; userNum <= userCount; userNum++) {
+            String account = "test" + userNum;
+            CachedSession cached = cachedSessions.get(account);
+
+            if (cached != null && isValid(cached, now)) {
+                SessionStore.setStoredSession(account, cached.sid());
+                reused++;
+            } else if (SessionStore.getStoredTestAccountSession(userNum) == null) {
+                pendingLogins.add(userNum);
+            }
+        }
+
+        pendingLoginCount.set(pendingLogins.size());
+        loaded = true;
+
+        System.out.println("=== 세션 캐시 ===");
+        System.out.println("  캐시 파일: " + file.getAbsolutePath());
+        System.out.println("  재사용 세션: " + reused);
+        System.out.println("  재로그인 대상: " + pendingLoginCount.get());
+    }
+
+    private static boolean isValid(CachedSession cached, long now) {
+        if (cached.sid() == null || cached.sid().isEmpty()) {
+            return false;
+        }
+        return now - cached.issuedAt() < Duration.ofMinutes(SESSION_CACHE_TTL_MINUTES).toMillis();
+    }
+
+    public static int getPendingLoginCount() {
+        return pendingLoginCount.get();
+    }
+
+    /**
+     * 다음 사전 로그인 대상 유저 번호를 가져온다. 대기열이 비었으면 -1
+     */
+    public static int pollPendingLogin() {
+        Integer userNum = pendingLogins.poll();
+        return userNum == null ? -1 : userNum;
+    }
+
+    public static void recordLogin(int userNum, String sessionId) {
+        if (sessionId != null && !sessionId.isEmpty()) {
+            String account = "test" + userNum;
+            cachedSessions.put(account, new CachedSession(sessionId, System.currentTimeMillis()));
+            SessionStore.setStoredSession(account, sessionId);
+        } else {
+            AsyncLogger.logf("사전 로그인 %d: 세션 없음", userNum);
+        }
+
+        int finished = finishedLoginCount.incrementAndGet();
+        if (finished % 100 == 0 || finished == pendingLoginCount.get()) {
+            AsyncLogger.logf("사전 로그인 진행: %d/%d", finished, pendingLoginCount.get());
+        }
+        if (finished == pendingLoginCount.get()) {
+            save();
+        }
+    }
+
+    /**
+     * 사전 로그인 대상에 없던 유저가 측정 구간에서 직접 로그인한 세션을 캐시에 넣는다.
+     */
+    public static void recordOnDemandLogin(int userNum, String sessionId) {
+        int count = onDemandLoginCount.incrementAndGet();
+        if (count == 1) {
+            AsyncLogger.logf("세션 캐시 소진: User%d부터 측정 구간에서 직접 로그인", userNum);
+        }
+        if (sessionId != null && !sessionId.isEmpty()) {
+            String account = "test" + userNum;
+            cachedSessions.put(account, new CachedSession(sessionId, System.currentTimeMillis()));
+            SessionStore.setStoredSession(account, sessionId);
+        }
+    }
+
+    public static synchronized void save() {
+        if (!loaded) {
+            return;
+        }
+
+        try {
+            mapper.writeValue(new File(SESSION_CACHE_FILE), new TreeMap<>(cachedSessions));
+            AsyncLogger.logf("세션 캐시 저장 완료: %d개 (측정 구간 직접 로그인 %d)", cachedSessions.size(), onDemandLoginCount.get());
+        } catch (Exception e) {
+            System.err.println("세션 캐시 저장 실패: " + e.getMessage());
+        }
+    }
+}
@@ -3,13 +3,15 @@ package simulations.booking.core;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static simulations.config.Config.ENABLE_SESSION_CACHE;
+import static simulations.config.Config.TEST_ACCOUNT_ALREADY_STORED;
+
 public final class SessionStore {
 
-    private static final Map<String, String> storedSessionIds = new HashMap<>();
+    private static final Map<String, String> storedSessionIds = new ConcurrentHashMap<>();
 
     private static final Map<Integer, String> sharedSessionCookies = new ConcurrentHashMap<>();
     
@@ -41,6 +43,17 @@ public final class SessionStore {
         }
     }
 
+    /**
+     * 로그인 요청 대신 저장된 세션 쿠키를 사용하는지 여부
+     */
+    public static boolean useStoredSessions() {
+        return TEST_ACCOUNT_ALREADY_STORED || ENABLE_SESSION_CACHE;
+    }
+
+    public static void setStoredSession(String account, String sessionId) {
+        storedSessionIds.put(account, sessionId);
+    }
+
     public static String getStoredTestAccountSession(int userNum) {
         return storedSessionIds.get("test" + userNum);
     }
@@ -0,0 +1,135 @@
+package simulations.booking.core;
+
+import simulations.booking.core.PlanLoader.PlannedRequest;
+import simulations.util.AsyncLogger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static simulations.config.Config.PLAN_EXPECTED_FINGERPRINT;
+import static simulations.config.Config.PLAN_FEED_CAPACITY;
+
+/**
+ * 합성 계획 공급
+ *
+ * 별도 스레드에서 PlanSynthesizer를 돌려 요청을 크기가 정해진 큐에 채운다. 큐가 차면 합성도 멈추므로
+ * 미리 만들어 두는 요청은 PLAN_FEED_CAPACITY개를 넘지 않는다.
+ * 가상 유저는 poll()로 다음 요청을 가져가며, 큐가 비어 있어도 기다리지 않고 null을 받는다.
+ * 합성이 도중에 실패하면 남은 요청과 관계없이 소진된 것으로 보고, 디스패처가 failureMessage()로 실행을 실패시킨다.
+ * PLAN_EXPECTED_FINGERPRINT가 있으면 시작 전에 같은 설정으로 끝까지 한 번 합성해 요청열 지문을 확인하고, 다르면 실행을 실패시킨다.
+ */
+public final class SynthesizedPlanFeed {
+
+    private static final String CONFIG_RESOURCE = "/PlanConfig.json";
+
+    private static final BlockingQueue<PlannedRequest> queue = new ArrayBlockingQueue<>(PLAN_FEED_CAPACITY);
+    private static final AtomicLong collisionGroups = new AtomicLong(0);
+    private static volatile PlanSynthesizer synthesizer;
+    private static volatile boolean finished = false;
+    private static volatile Throwable failure;
+    private static volatile long fingerprint;
+
+    private SynthesizedPlanFeed() {
+    }
+
+    public static synchronized PlanSynthesizer start() {
+        if (synthesizer != null) {
+            return synthesizer;
+        }
+
+        if (!PLAN_EXPECTED_FINGERPRINT.isEmpty()) {
+            verifyFingerprint();
+        }
+
+        PlanSynthesizer source = PlanSynthesizer.fromResource(CONFIG_RESOURCE);
+        source.setCollisionGroupListener(group -> collisionGroups.incrementAndGet());
+
+        Thread producer = new Thread(() -> {
+            try {
+                PlannedRequest request;
+                while ((request = source.next()) != null) {
+                    queue.put(request);
+                }
+                fingerprint = source.fingerprint();
+                AsyncLogger.log("계획 합성 완료");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                failure = t;
+                System.err.println("계획 합성 실패: " + t.getMessage());
+            } finally {
+                finished = true;
+            }
+        }, "plan-synthesizer");
+        producer.setDaemon(true);
+        producer.start();
+
+        synthesizer = source;
+        return source;
+    }
+
+    // 합성은 스트리밍이라 메모리는 재정렬 버퍼만큼만 쓰고, 시간은 요청 수에 비례한다.
+    private static void verifyFingerprint() {
+        PlanSynthesizer dryRun = PlanSynthesizer.fromResource(CONFIG_RESOURCE);
+        if (!dryRun.isSeeded()) {
+            throw new IllegalStateException("PlanConfig.json에 seed가 없어 합성 계획 지문을 확인할 수 없습니다. "
+                    + "seed를 지정하거나 -Dplan.expectedFingerprint= 로 검사를 끄세요.");
+        }
+        while (dryRun.next() != null) {
+            // 지문만 계산한다.
+        }
+
+        String actual = String.format("%016x", dryRun.fingerprint());
+        if (!PLAN_EXPECTED_FINGERPRINT.equalsIgnoreCase(actual)) {
+            throw new IllegalStateException("합성 계획 지문 불일치: 기준 " + PLAN_EXPECTED_FINGERPRINT + ", 실제 " + actual
+                    + ". PlanConfig.json이나 PlanSynthesizer를 의도적으로 바꿨다면 Config.PLAN_EXPECTED_FINGERPRINT를 갱신하세요.");
+        }
+        System.out.println("  합성 계획 지문 확인: " + actual + " (seed " + dryRun.getSeed() + ")");
+    }
+
+    public static PlannedRequest poll() {
+        return queue.poll();
+    }
+
+    /**
+     * 합성이 끝났고 남은 요청도 모두 가져갔는지, 또는 합성이 실패했는지 여부
+     */
+    public static boolean isExhausted() {
+        return finished && (failure != null || queue.isEmpty());
+    }
+
+    public static boolean hasFailed() {
+        return failure != null;
+    }
+
+    public static String failureMessage() {
+        Throwable cause = failure;
+        return cause == null ? null : "계획 합성 실패: " + cause.getMessage();
+    }
+
+    public static void printReport() {
+        boolean done = finished;
+        PlanSynthesizer source = synthesizer;
+        if (source == null) {
+            return;
+        }
+
+        System.out.println("=== 합성 계획 ===");
+        System.out.println("  시드: " + source.getSeed());
+        System.out.println("  좌석 점유 요청: " + source.getEmittedBookRequests()
+                + ", 충돌 대체 요청: " + source.getEmittedLoserRequests()
+                + ", 섹션 전환 요청: " + source.getEmittedSectionMoveRequests());
+        System.out.println("  충돌 그룹: " + collisionGroups.get() + ", 최대 재정렬 버퍼: " + source.getMaxBuffered());
+
+        if (failure != null) {
+            System.out.println("  합성 실패: " + failure.getMessage());
+        } else if (!done) {
+            System.out.println("  합성 미완료");
+        } else {
+            String actual = String.format("%016x", fingerprint);
+            System.out.println("  요청열 지문: " + actual + (PLAN_EXPECTED_FINGERPRINT.isEmpty() ? ""
+                    : PLAN_EXPECTED_FINGERPRINT.equalsIgnoreCase(actual) ? " (기준 일치)" : " (기준 " + PLAN_EXPECTED_FINGERPRINT + "과 불일치)"));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package simulations.booking.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static simulations.config.Config.DEFAULT_SECTION_COL_LEN;
+import static simulations.config.Config.DEFAULT_SECTION_SEAT_COUNT;
+import static simulations.config.Config.DYNAMIC_SECTION_COUNT;
+
+/**
+ * 공연장 좌석 배치
+ *
+ * PlanConfig.json의 sections(col_len, seats)를 읽어 섹션별 좌석 수와 열 길이를 제공하고,
+ * (섹션, 좌석) 쌍을 공연장 전체에서 유일한 좌석 번호로 변환한다.
+ * PlanConfig.json이 없으면 DYNAMIC_SECTION_COUNT개의 기본 크기 섹션으로 가정한다.
+ */
+public final class VenueLayout {
+
+    private static int[] sectionOffsets;
+    private static int[] sectionColLens;
+    private static int totalSeats;
+    private static boolean loaded = false;
+
+    private VenueLayout() {
+    }
+
+    public static synchronized void load() {
+        if (loaded) {
+            return;
+        }
+
+        try (var inputStream = VenueLayout.class.getResourceAsStream("/PlanConfig.json")) {
+            JsonNode sections = inputStream == null ? null : new ObjectMapper().readTree(inputStream).get("sections");
+            if (sections != null && sections.isArray() && !sections.isEmpty()) {
+                int[] seatCounts = new int[sections.size()];
+                int[] colLens = new int[sections.size()];
+                for (int i = 0; i < sections.size(); i++) {
+                    seatCounts[i] = sections.get(i).path("seats").size();
+                    colLens[i] = sections.get(i).path("col_len").asInt(DEFAULT_SECTION_COL_LEN);
+                }
+                initialize(seatCounts, colLens);
+            } else {
+                initializeDefault();
+            }
+        } catch (Exception e) {
+            System.err.println("좌석 배치 로드 실패, 기본 배치 사용: " + e.getMessage());
+            initializeDefault();
+        }
+
+        loaded = true;
+    }
+
+    private static void initializeDefault() {
+        int[] seatCounts = new int[DYNAMIC_SECTION_COUNT];
+        int[] colLens = new int[DYNAMIC_SECTION_COUNT];
+        java.util.Arrays.fill(seatCounts, DEFAULT_SECTION_SEAT_COUNT);
+        java.util.Arrays.fill(colLens, DEFAULT_SECTION_COL_LEN);
+        initialize(seatCounts, colLens);
+    }
+
+    private static void initialize(int[] seatCounts, int[] colLens) {
+        sectionOffsets = new int[seatCounts.length + 1];
+        for (int i = 0; i < seatCounts.length; i++) {
+            sectionOffsets[i + 1] = sectionOffsets[i] + seatCounts[i];
+        }
+        sectionColLens = colLens;
+        totalSeats = sectionOffsets[seatCounts.length];
+    }
+
+    public static int getSectionCount() {
+        load();
+        return sectionColLens.length;
+    }
+
+    public static int getSeatCount(int section) {
+        load();
+        return sectionOffsets[section + 1] - sectionOffsets[section];
+    }
+
+    public static int getColLen(int section) {
+        load();
+        return sectionColLens[section];
+    }
+
+    public static int getTotalSeats() {
+        load();
+        return totalSeats;
+    }
+
+    /**
+     * @return 공연장 전체 좌석 번호. 배치 밖의 좌석이면 -1
+     */
+    public static int globalSeatIndex(int section, int seat) {
+        load();
+        if (section < 0 || section >= sectionColLens.length || seat < 0 || seat >= getSeatCount(section)) {
+            return -1;
+        }
+        return sectionOffsets[section] + seat;
+    }
+
+    /**
+     * globalSeatIndex의 역변환
+     *
+     * @return {섹션, 섹션 내 좌석 번호}
+     */
+    public static int[] sectionSeatOf(int globalSeat) {
+        load();
+        for (int section = sectionColLens.length - 1; section >= 0; section--) {
+            if (sectionOffsets[section] <= globalSeat) {
+                return new int[]{section, globalSeat - sectionOffsets[section]};
+            }
+        }
+        throw new IllegalArgumentException("공연장 좌석 번호 범위 밖: " + globalSeat);
+    }
+}
@@ -0,0 +1,145 @@
+package simulations.booking.core;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+import simulations.booking.metrics.WaitingRoomStats;
+import simulations.util.AsyncLogger;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+import static simulations.config.Config.*;
+
+/**
+ * 예약 권한 대기열 클라이언트
+ *
+ * 프론트엔드처럼 권한을 얻을 때까지 예약 권한 API를 주기적으로 확인한다.
+ * 서버가 Retry-After(초 또는 HTTP 날짜)를 주면 그 간격을, 없으면 WAITING_ROOM_POLL_INTERVAL_MILLIS를 쓰고,
+ * 대기열의 유저들이 같은 순간에 몰리지 않도록 지터를 더한다. WAITING_ROOM_TIMEOUT_SECONDS 안에 권한을 얻지 못하면 유저를 종료한다.
+ */
+public final class WaitingRoom {
+
+    private static final String STATUS_KEY = "permissionStatus";
+    private static final String RETRY_AFTER_KEY = "permissionRetryAfter";
+    private static final String ENTERED_AT_KEY = "queueEnteredAt";
+    private static final String POLLS_KEY = "queuePolls";
+    private static final String NEXT_POLL_KEY = "queueNextPollMillis";
+    private static final String ADMITTED_KEY = "permissionGranted";
+
+    private static final Integer[] ACCEPTED_STATUSES = acceptedStatuses();
+
+    private WaitingRoom() {
+    }
+
+    private static Integer[] acceptedStatuses() {
+        Set<Integer> statuses = new TreeSet<>(WAITING_ROOM_QUEUED_STATUSES);
+        statuses.add(200);
+        statuses.add(304);
+        return statuses.toArray(new Integer[0]);
+    }
+
+    /**
+     * 예약 권한을 얻을 때까지 대기한다. 권한을 얻지 못하면 유저를 종료한다.
+     */
+    public static ChainBuilder waitForPermission() {
+        if (!ENABLE_WAITING_ROOM) {
+            return tryMax(10).on(exec(BookingActions.checkPermission())).exitHereIfFailed();
+        }
+
+        return exec(session -> session.set(ENTERED_AT_KEY, System.currentTimeMillis()).set(POLLS_KEY, 0))
+                .asLongAs(session -> !session.contains(ADMITTED_KEY) && !timedOut(session)).on(
+                        exec(session -> session.remove(STATUS_KEY).remove(RETRY_AFTER_KEY)),
+                        exec(poll()),
+                        exec(WaitingRoom::afterPoll),
+                        doIf(session -> !session.contains(ADMITTED_KEY)).then(
+                                pause(session -> Duration.ofMillis(session.getLong(NEXT_POLL_KEY)))
+                        )
+                )
+                .exec(WaitingRoom::leave)
+                .exitHereIfFailed();
+    }
+
+    // 상태 코드와 Retry-After를 먼저 저장해, 허용하지 않는 상태 코드로 요청이 실패해도 다음 폴링 간격을 정할 수 있게 한다.
+    private static HttpRequestActionBuilder poll() {
+        return http("예약 권한 확인")
+                .get("/booking/permission/" + TARGET_EVENT)
+                .check(
+                        status().saveAs(STATUS_KEY),
+                        header("Retry-After").optional().saveAs(RETRY_AFTER_KEY),
+                        status().in(ACCEPTED_STATUSES)
+                );
+    }
+
+    private static boolean timedOut(Session session) {
+        return System.currentTimeMillis() - session.getLong(ENTERED_AT_KEY) >= WAITING_ROOM_TIMEOUT_SECONDS * 1000L;
+    }
+
+    private static Session afterPoll(Session session) {
+        int status = session.contains(STATUS_KEY) ? session.getInt(STATUS_KEY) : 0;
+        boolean admitted = status == 200 || status == 304;
+        boolean queued = WAITING_ROOM_QUEUED_STATUSES.contains(status);
+        WaitingRoomStats.recordPoll(admitted, queued);
+
+        Session polled = session.set(POLLS_KEY, session.getInt(POLLS_KEY) + 1);
+        if (admitted) {
+            return polled.set(ADMITTED_KEY, true).markAsSucceeded();
+        }
+
+        // 대기 중 응답이나 일시적인 실패는 유저를 종료하지 않고 다음 폴링에서 다시 확인한다.
+        long hinted = retryAfterMillis(session.getString(RETRY_AFTER_KEY));
+        long base = hinted >= 0 ? hinted : WAITING_ROOM_POLL_INTERVAL_MILLIS;
+        double jitter = 1.0 + WAITING_ROOM_POLL_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        long remaining = WAITING_ROOM_TIMEOUT_SECONDS * 1000L - (System.currentTimeMillis() - session.getLong(ENTERED_AT_KEY));
+        long delay = Math.max(0, Math.min(Math.round(Math.min(base, WAITING_ROOM_MAX_POLL_INTERVAL_MILLIS) * jitter), remaining));
+        WaitingRoomStats.recordPollDelay(delay, hinted >= 0);
+
+        return polled.set(NEXT_POLL_KEY, delay).markAsSucceeded();
+    }
+
+    /**
+     * Retry-After 헤더를 밀리초로 바꾼다. 없거나 해석할 수 없으면 -1
+     */
+    static long retryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return -1;
+        }
+
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // HTTP 날짜 형식
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, at.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static Session leave(Session session) {
+        long waited = System.currentTimeMillis() - session.getLong(ENTERED_AT_KEY);
+        int polls = session.getInt(POLLS_KEY);
+        Session cleaned = session.remove(STATUS_KEY).remove(RETRY_AFTER_KEY).remove(NEXT_POLL_KEY)
+                .remove(ENTERED_AT_KEY).remove(POLLS_KEY);
+
+        if (session.contains(ADMITTED_KEY)) {
+            WaitingRoomStats.recordAdmitted(waited, polls);
+            return cleaned.remove(ADMITTED_KEY);
+        }
+
+        WaitingRoomStats.recordTimedOut();
+        AsyncLogger.logf("유저 %d: 대기열 시간 초과 (%d초, 폴링 %d회)",
+                session.getInt("userNum"), waited / 1000, polls);
+        return cleaned.markAsFailed();
+    }
+}
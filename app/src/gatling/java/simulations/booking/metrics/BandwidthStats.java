@@ -0,0 +1,83 @@
+package simulations.booking.metrics;
+
+import simulations.booking.subscription.SeatMessage;
+import simulations.booking.subscription.SeatMessage.Encoding;
+import simulations.config.Config.SeatFrameEncoding;
+import simulations.config.Config.SubscriptionType;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.SUBSCRIPTION_ENCODING;
+
+/**
+ * 구독 방식과 프레임 인코딩별 수신 메시지 수, 수신 바이트, 디코딩한 좌석 수를 집계해
+ * 메시지당/좌석당 바이트로 인코딩별 대역폭을 비교한다.
+ *
+ * 바이트는 구독 메시지 버퍼에서 꺼낸 페이로드 크기다. 웹소켓 바이너리 프레임 안의 gzip은 압축된 크기 그대로 세지만,
+ * SSE의 Content-Encoding: gzip은 Gatling HTTP 클라이언트가 풀어서 넘기므로 SSE gzip 요청의 절감량은 여기서 측정할 수 없다.
+ */
+public final class BandwidthStats {
+
+    private static final class Counter {
+        final LongAdder messages = new LongAdder();
+        final LongAdder wireBytes = new LongAdder();
+        final LongAdder seats = new LongAdder();
+        final LongAdder undecoded = new LongAdder();
+    }
+
+    private static final Counter[][] counters =
+            new Counter[SubscriptionType.values().length][Encoding.values().length];
+
+    static {
+        for (Counter[] byEncoding : counters) {
+            for (int i = 0; i < byEncoding.length; i++) {
+                byEncoding[i] = new Counter();
+            }
+        }
+    }
+
+    private BandwidthStats() {
+    }
+
+    public static void record(SubscriptionType type, SeatMessage message) {
+        Counter counter = counters[type.ordinal()][message.encoding().ordinal()];
+        counter.messages.increment();
+        counter.wireBytes.add(message.wireBytes());
+        if (message.hasSeatStatus()) {
+            counter.seats.add(message.seatStatus().seatStatus().size());
+        } else {
+            counter.undecoded.increment();
+        }
+    }
+
+    public static void printReport() {
+        System.out.println("=== 구독 메시지 대역폭 (요청 인코딩: " + SUBSCRIPTION_ENCODING.name() + ") ===");
+        boolean any = false;
+
+        for (SubscriptionType type : SubscriptionType.values()) {
+            for (Encoding encoding : Encoding.values()) {
+                Counter counter = counters[type.ordinal()][encoding.ordinal()];
+                long messages = counter.messages.sum();
+                if (messages == 0) {
+                    continue;
+                }
+
+                any = true;
+                boolean decompressed = type == SubscriptionType.SSE && SUBSCRIPTION_ENCODING == SeatFrameEncoding.GZIP;
+                long wireBytes = counter.wireBytes.sum();
+                long seats = counter.seats.sum();
+                System.out.printf("  %s %-11s 메시지 %9d  %s %12d bytes  %.1f B/msg  %.3f B/seat  좌석 상태 아님 %d%n",
+                        type.name(), encoding.name(), messages, decompressed ? "해제 후" : "수신", wireBytes,
+                        wireBytes / (double) messages,
+                        seats == 0 ? 0.0 : wireBytes / (double) seats,
+                        counter.undecoded.sum());
+            }
+        }
+
+        if (!any) {
+            System.out.println("  수신 메시지 없음");
+        } else if (SUBSCRIPTION_ENCODING == SeatFrameEncoding.GZIP) {
+            System.out.println("  SSE gzip은 전송 계층에서 풀린 뒤의 크기라 압축 전후 비교에 쓸 수 없습니다. (웹소켓 gzip 프레임만 압축 크기)");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package simulations.booking.metrics;
+
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 유저가 예매 수량만큼 좌석을 모두 점유하기까지 걸린 시간
+ *
+ * 좌석 선택을 시작한 시각부터 마지막 좌석의 점유 성공 응답까지를 순차/동시 점유 방식별로 집계한다.
+ * 동시 점유는 라운드(섹션 전환 → 좌석 선택 → 동시 요청) 수와 좌석 요청/실패 수도 함께 센다.
+ */
+public final class BookingHoldStats {
+
+    public enum Mode {
+        SEQUENTIAL("순차 점유"),
+        PIPELINED("동시 점유");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final LatencyHistogram[] holdAllMillis = {new LatencyHistogram(), new LatencyHistogram()};
+    private static final LatencyHistogram pipelinedRounds = new LatencyHistogram();
+    private static final LatencyHistogram seatsPerRound = new LatencyHistogram();
+    private static final LongAdder pipelinedSeatRequests = new LongAdder();
+    private static final LongAdder pipelinedSeatFailures = new LongAdder();
+    private static final LongAdder pipelinedGaveUp = new LongAdder();
+
+    private BookingHoldStats() {
+    }
+
+    public static void recordHoldAll(Mode mode, long millis) {
+        holdAllMillis[mode.ordinal()].record(millis);
+    }
+
+    public static void recordPipelinedRound(int seatsSent) {
+        seatsPerRound.record(seatsSent);
+    }
+
+    public static void recordPipelinedSeat(boolean succeeded) {
+        pipelinedSeatRequests.increment();
+        if (!succeeded) {
+            pipelinedSeatFailures.increment();
+        }
+    }
+
+    /**
+     * @param rounds    모든 좌석을 점유하거나 포기할 때까지 진행한 라운드 수
+     * @param succeeded 예매 수량만큼 모두 점유했는지 여부
+     */
+    public static void recordPipelinedUser(int rounds, boolean succeeded) {
+        pipelinedRounds.record(rounds);
+        if (!succeeded) {
+            pipelinedGaveUp.increment();
+        }
+    }
+
+    public static void printReport() {
+        System.out.println("=== 전체 좌석 점유 시간 ===");
+        for (Mode mode : Mode.values()) {
+            LatencyHistogram histogram = holdAllMillis[mode.ordinal()];
+            if (histogram.count() > 0) {
+                System.out.println("  " + mode.label + ": " + histogram.summary() + " ms");
+            }
+        }
+
+        if (pipelinedRounds.count() > 0) {
+            System.out.println("  동시 점유 라운드/유저: " + pipelinedRounds.summary() + " (포기 " + pipelinedGaveUp.sum() + ")");
+            System.out.println("  동시 요청 좌석/라운드: " + seatsPerRound.summary());
+            System.out.println("  좌석 요청: " + pipelinedSeatRequests.sum() + " (실패 " + pipelinedSeatFailures.sum() + ")");
+        }
+    }
+}
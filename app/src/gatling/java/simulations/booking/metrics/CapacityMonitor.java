@@ -0,0 +1,202 @@
+package simulations.booking.metrics;
+
+import simulations.util.AsyncLogger;
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.Capacity.*;
+
+/**
+ * 처리량 한계 탐색 모니터
+ *
+ * 도착률 단계마다 좌석 점유 요청의 p99 지연, KO 비율, 충돌(409) 비율을 집계하고,
+ * 단계가 끝날 때마다 SLO를 평가해 처음으로 SLO를 위반한 단계(knee)를 찾는다.
+ * 단계 사이의 램프 구간에 완료된 요청은 어느 단계에도 포함하지 않는다.
+ */
+public final class CapacityMonitor {
+
+    private static final class Step {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder successes = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        volatile String verdict = "";
+    }
+
+    private static final Step[] steps = new Step[MAX_STEPS];
+    private static final AtomicLong startMillis = new AtomicLong(0);
+
+    private static volatile int evaluatedSteps = 0;
+    private static volatile int kneeStep = -1;
+    private static volatile int lastPassingStep = -1;
+
+    static {
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = new Step();
+        }
+    }
+
+    private CapacityMonitor() {
+    }
+
+    public static void markStarted() {
+        startMillis.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    public static double usersPerSecOf(int step) {
+        return START_USERS_PER_SEC + step * STEP_USERS_PER_SEC;
+    }
+
+    private static long stepPeriodMillis() {
+        return (STEP_DURATION_SECONDS + RAMP_DURATION_SECONDS) * 1000L;
+    }
+
+    private static int stepAt(long now) {
+        long start = startMillis.get();
+        if (start == 0) {
+            return -1;
+        }
+
+        long elapsed = now - start;
+        int step = (int) (elapsed / stepPeriodMillis());
+        boolean inRamp = elapsed % stepPeriodMillis() >= STEP_DURATION_SECONDS * 1000L;
+        return inRamp || step >= MAX_STEPS ? -1 : step;
+    }
+
+    private static int completedStepsAt(long now) {
+        long start = startMillis.get();
+        if (start == 0) {
+            return 0;
+        }
+
+        long elapsed = now - start - STEP_DURATION_SECONDS * 1000L;
+        if (elapsed < 0) {
+            return 0;
+        }
+        return (int) Math.min(MAX_STEPS, elapsed / stepPeriodMillis() + 1);
+    }
+
+    public static void recordBooking(int status, long responseTimeMillis) {
+        long now = System.currentTimeMillis();
+        int stepIndex = stepAt(now);
+
+        if (stepIndex >= 0) {
+            Step step = steps[stepIndex];
+            step.attempts.increment();
+            step.latency.record(responseTimeMillis);
+
+            if (status == 200 || status == 201) {
+                step.successes.increment();
+            } else if (status == 409) {
+                step.conflicts.increment();
+            } else {
+                step.errors.increment();
+            }
+        }
+
+        evaluateCompletedSteps(now);
+    }
+
+    public static boolean isKneeFound() {
+        evaluateCompletedSteps(System.currentTimeMillis());
+        return kneeStep >= 0;
+    }
+
+    private static void evaluateCompletedSteps(long now) {
+        int completed = completedStepsAt(now);
+        if (kneeStep >= 0 || completed <= evaluatedSteps) {
+            return;
+        }
+
+        synchronized (CapacityMonitor.class) {
+            while (kneeStep < 0 && evaluatedSteps < completed) {
+                evaluate(evaluatedSteps++);
+            }
+        }
+    }
+
+    private static void evaluate(int stepIndex) {
+        Step step = steps[stepIndex];
+        long attempts = step.attempts.sum();
+
+        if (attempts < MIN_SAMPLES_PER_STEP) {
+            step.verdict = "표본 부족";
+            AsyncLogger.logf("처리량 탐색 단계 %d (%.1f users/s): 표본 부족 (%d건)", stepIndex, usersPerSecOf(stepIndex), attempts);
+            return;
+        }
+
+        long p99 = step.latency.percentile(99);
+        double koRatio = (double) step.errors.sum() / attempts;
+        double conflictRatio = (double) step.conflicts.sum() / attempts;
+
+        StringBuilder violations = new StringBuilder();
+        if (p99 > SLO_P99_MILLIS) {
+            violations.append(" p99>").append(SLO_P99_MILLIS).append("ms");
+        }
+        if (koRatio > SLO_MAX_KO_RATIO) {
+            violations.append(" KO>").append(SLO_MAX_KO_RATIO);
+        }
+        if (conflictRatio > SLO_MAX_CONFLICT_RATIO) {
+            violations.append(" 충돌>").append(SLO_MAX_CONFLICT_RATIO);
+        }
+
+        if (violations.isEmpty()) {
+            step.verdict = "통과";
+            lastPassingStep = stepIndex;
+        } else {
+            step.verdict = "위반:" + violations;
+            kneeStep = stepIndex;
+        }
+
+        AsyncLogger.logf(
+                "처리량 탐색 단계 %d (%.1f users/s): p99=%dms KO=%.3f 충돌=%.3f -> %s",
+                stepIndex, usersPerSecOf(stepIndex), p99, koRatio, conflictRatio, step.verdict
+        );
+    }
+
+    public static String kneeMessage() {
+        int knee = kneeStep;
+        return knee < 0
+                ? "처리량 한계 미도달"
+                : String.format("처리량 한계 도달: 단계 %d (%.1f users/s) %s", knee, usersPerSecOf(knee), steps[knee].verdict);
+    }
+
+    public static void printReport() {
+        // 마지막으로 진행 중이던 단계까지 평가한다.
+        evaluateCompletedSteps(System.currentTimeMillis() + stepPeriodMillis());
+
+        System.out.println("=== 처리량 한계 탐색 결과 ===");
+        System.out.printf("  SLO: p99<=%dms, KO<=%.3f, 충돌<=%.3f%n", SLO_P99_MILLIS, SLO_MAX_KO_RATIO, SLO_MAX_CONFLICT_RATIO);
+        for (int i = 0; i < evaluatedSteps; i++) {
+            Step step = steps[i];
+            long attempts = step.attempts.sum();
+            if (attempts == 0) {
+                continue;
+            }
+            System.out.printf(
+                    "  단계 %2d: %.1f users/s 점유=%d p99=%dms KO=%d 충돌=%d 점유성공=%.2f/s %s%n",
+                    i,
+                    usersPerSecOf(i),
+                    attempts,
+                    step.latency.percentile(99),
+                    step.errors.sum(),
+                    step.conflicts.sum(),
+                    step.successes.sum() / (double) STEP_DURATION_SECONDS,
+                    step.verdict
+            );
+        }
+
+        int sustainable = lastPassingStep;
+        if (sustainable < 0) {
+            System.out.println("  최대 지속 가능 처리량: 없음 (첫 단계부터 SLO 위반 또는 표본 부족)");
+        } else {
+            System.out.printf("  최대 지속 가능 도착률: %.1f users/s%n", usersPerSecOf(sustainable));
+            System.out.printf("  최대 지속 가능 점유 처리량: %.2f bookings/s%n",
+                    steps[sustainable].successes.sum() / (double) STEP_DURATION_SECONDS);
+        }
+        System.out.println("  " + kneeMessage());
+    }
+}
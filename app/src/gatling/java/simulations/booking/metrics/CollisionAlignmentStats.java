@@ -0,0 +1,60 @@
+package simulations.booking.metrics;
+
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 충돌 그룹 동시 출발 정렬도
+ *
+ * 그룹 게이트에서 풀려난 시각과 요청 직전 시각 각각의 그룹 내 최대-최소 차이(출발 간격, 전송 간격)와
+ * 멤버별 마감 시각 대비 지연을 마이크로초 단위로 집계한다. 타이머가 일찍 깨워 마감 전에 풀려난 멤버는 따로 센다.
+ * 출발 간격이 작을수록 같은 좌석에 대한 요청이 서버에 동시에 도착해 실제 락 경합이 일어난다.
+ */
+public final class CollisionAlignmentStats {
+
+    private static final LatencyHistogram groupSpreadMicros = new LatencyHistogram();
+    private static final LatencyHistogram groupSendSpreadMicros = new LatencyHistogram();
+    private static final LatencyHistogram releaseLatenessMicros = new LatencyHistogram();
+    private static final LongAdder releasedMembers = new LongAdder();
+    private static final LongAdder lateArrivals = new LongAdder();
+    private static final LongAdder earlyReleases = new LongAdder();
+    private static final LongAdder completedGroups = new LongAdder();
+
+    private CollisionAlignmentStats() {
+    }
+
+    /**
+     * @param latenessNanos 마감 시각 대비 실제로 풀려난 시각의 차이. 음수면 마감 전에 풀려났다.
+     * @param arrivedLate   게이트에 마감 시각이 지나서 도착했는지 여부 (섹션 전환이 LEAD_MILLIS보다 오래 걸린 경우 등)
+     */
+    public static void recordRelease(long latenessNanos, boolean arrivedLate) {
+        releasedMembers.increment();
+        if (latenessNanos < 0) {
+            earlyReleases.increment();
+        }
+        releaseLatenessMicros.record(latenessNanos / 1000);
+        if (arrivedLate) {
+            lateArrivals.increment();
+        }
+    }
+
+    public static void recordGroupSpread(long spreadNanos) {
+        completedGroups.increment();
+        groupSpreadMicros.record(spreadNanos / 1000);
+    }
+
+    public static void recordGroupSendSpread(long spreadNanos) {
+        groupSendSpreadMicros.record(spreadNanos / 1000);
+    }
+
+    public static void printReport(int gatedGroups) {
+        System.out.println("=== 충돌 그룹 동시 출발 ===");
+        System.out.println("  게이트 그룹: " + gatedGroups + ", 전원 출발 그룹: " + completedGroups.sum());
+        System.out.println("  출발 멤버: " + releasedMembers.sum() + " (마감 후 도착 " + lateArrivals.sum()
+                + ", 마감 전 출발 " + earlyReleases.sum() + ")");
+        System.out.println("  그룹 내 게이트 출발 간격: " + groupSpreadMicros.summary() + " µs");
+        System.out.println("  그룹 내 요청 전송 간격: " + groupSendSpreadMicros.summary() + " µs");
+        System.out.println("  마감 대비 출발 지연 (마감 전은 0): " + releaseLatenessMicros.summary() + " µs");
+    }
+}
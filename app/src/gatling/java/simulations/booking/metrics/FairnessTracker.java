@@ -0,0 +1,199 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.VenueLayout;
+import simulations.util.ReportExporter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static simulations.config.Config.ENABLE_FAIRNESS_TRACKING;
+
+/**
+ * 도착 순서 대비 좌석 배정 공정성
+ *
+ * 좌석 점유 요청마다 보낸 시각과 응답을 받은 시각(nanoTime), 성공 여부를 좌석별 Treiber 스택에 CAS로 쌓아 두고,
+ * 실행이 끝나면 한 좌석에 동시에 몰린 요청(승자의 응답을 받기 전에 보낸 요청)을 한 경합 그룹으로 본다.
+ * STATIC 계획의 충돌 그룹과 DYNAMIC에서 우연히 겹친 요청이 모두 여기에 잡힌다.
+ * 그룹마다 먼저 보낸 요청이 좌석을 받았는지, 보낸 순서와 응답 순서의 순위 상관(Spearman)을 계산하고
+ * 그룹별 결과를 fairness.json으로 내보낸다.
+ */
+public final class FairnessTracker {
+
+    private static final int MAX_SAMPLES = 10;
+
+    private static final class Attempt {
+        final long sentNanos;
+        final long receivedNanos;
+        final boolean granted;
+        final int userNum;
+        final String requestId;
+        Attempt next;
+
+        Attempt(long sentNanos, long receivedNanos, boolean granted, int userNum, String requestId) {
+            this.sentNanos = sentNanos;
+            this.receivedNanos = receivedNanos;
+            this.granted = granted;
+            this.userNum = userNum;
+            this.requestId = requestId;
+        }
+
+        String describe() {
+            return requestId == null ? "User" + userNum : "User" + userNum + " [" + requestId + "]";
+        }
+    }
+
+    private static final AtomicReferenceArray<Attempt> attempts =
+            new AtomicReferenceArray<>(ENABLE_FAIRNESS_TRACKING ? VenueLayout.getTotalSeats() : 0);
+
+    private FairnessTracker() {
+    }
+
+    /**
+     * @param requestId     계획 요청 ID. 계획이 없는 시나리오는 null
+     * @param sentNanos     요청 직전에 남긴 nanoTime
+     * @param receivedNanos 응답을 받은 nanoTime
+     */
+    public static void recordAttempt(int userNum, int section, int seat, boolean granted, String requestId,
+                                     long sentNanos, long receivedNanos) {
+        if (!ENABLE_FAIRNESS_TRACKING) {
+            return;
+        }
+        int slot = VenueLayout.globalSeatIndex(section, seat);
+        if (slot < 0) {
+            return;
+        }
+
+        Attempt attempt = new Attempt(sentNanos, receivedNanos, granted, userNum, requestId);
+        Attempt head;
+        do {
+            head = attempts.get(slot);
+            attempt.next = head;
+        } while (!attempts.compareAndSet(slot, head, attempt));
+    }
+
+    public static void printReport() {
+        if (!ENABLE_FAIRNESS_TRACKING) {
+            return;
+        }
+
+        int groups = 0;
+        int firstArrivalWon = 0;
+        int noWinner = 0;
+        double scoreSum = 0;
+        double rankCorrelationSum = 0;
+        long[] winnerRanks = new long[3];
+        List<String> samples = new ArrayList<>();
+        List<Map<String, Object>> groupReports = new ArrayList<>();
+
+        for (int slot = 0; slot < attempts.length(); slot++) {
+            Attempt head = attempts.get(slot);
+            if (head == null || head.next == null) {
+                continue;
+            }
+
+            List<Attempt> seatAttempts = new ArrayList<>();
+            for (Attempt attempt = head; attempt != null; attempt = attempt.next) {
+                seatAttempts.add(attempt);
+            }
+            Attempt winner = seatAttempts.stream()
+                    .filter(attempt -> attempt.granted)
+                    .min(Comparator.comparingLong(attempt -> attempt.receivedNanos))
+                    .orElse(null);
+            if (winner == null) {
+                noWinner++;
+                continue;
+            }
+
+            // 승자의 응답 뒤에 보낸 요청은 이미 팔린 좌석에 대한 재시도이므로 경합에서 뺀다.
+            List<Attempt> contenders = new ArrayList<>();
+            for (Attempt attempt : seatAttempts) {
+                if (attempt.sentNanos <= winner.receivedNanos) {
+                    contenders.add(attempt);
+                }
+            }
+            if (contenders.size() < 2) {
+                continue;
+            }
+
+            contenders.sort(Comparator.comparingLong(attempt -> attempt.sentNanos));
+            int n = contenders.size();
+            int winnerRank = contenders.indexOf(winner);
+            double score = 1.0 - (double) winnerRank / (n - 1);
+            double rankCorrelation = spearman(contenders);
+
+            groups++;
+            scoreSum += score;
+            rankCorrelationSum += rankCorrelation;
+            winnerRanks[Math.min(winnerRank, winnerRanks.length - 1)]++;
+            if (winnerRank == 0) {
+                firstArrivalWon++;
+            } else if (samples.size() < MAX_SAMPLES) {
+                Attempt first = contenders.get(0);
+                samples.add(String.format("%s: 첫 도착 %s 대신 %d번째 %s 당첨 (%dµs 늦게 보냄)",
+                        seatLabel(slot), first.describe(), winnerRank + 1, winner.describe(),
+                        (winner.sentNanos - first.sentNanos) / 1000));
+            }
+
+            Map<String, Object> groupReport = new LinkedHashMap<>();
+            groupReport.put("seat", seatLabel(slot));
+            groupReport.put("contenders", n);
+            groupReport.put("winner", winner.describe());
+            groupReport.put("winnerArrivalRank", winnerRank + 1);
+            groupReport.put("score", score);
+            groupReport.put("rankCorrelation", rankCorrelation);
+            List<String> arrivalOrder = new ArrayList<>(n);
+            for (Attempt attempt : contenders) {
+                arrivalOrder.add(attempt.describe());
+            }
+            groupReport.put("arrivalOrder", arrivalOrder);
+            groupReports.add(groupReport);
+        }
+
+        System.out.println("=== 도착 순서 공정성 ===");
+        System.out.println("  경합 좌석: " + groups + " (응답 성공 없음 " + noWinner + ")");
+        if (groups == 0) {
+            return;
+        }
+        System.out.printf("  첫 도착 당첨: %d/%d (%.1f%%), 평균 공정성 점수 %.3f, 평균 순위 상관 %.3f%n",
+                firstArrivalWon, groups, 100.0 * firstArrivalWon / groups, scoreSum / groups, rankCorrelationSum / groups);
+        System.out.println("  당첨 요청의 도착 순위: 1번째 " + winnerRanks[0] + ", 2번째 " + winnerRanks[1] + ", 3번째 이후 " + winnerRanks[2]);
+        for (String sample : samples) {
+            System.out.println("    " + sample);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("groups", groups);
+        report.put("firstArrivalWon", firstArrivalWon);
+        report.put("meanScore", scoreSum / groups);
+        report.put("meanRankCorrelation", rankCorrelationSum / groups);
+        report.put("seats", groupReports);
+        ReportExporter.writeJson("fairness.json", report);
+    }
+
+    // 보낸 순서(contenders의 순서)와 응답 순서의 Spearman 순위 상관. 두 순위 모두 동률 없이 매긴다.
+    private static double spearman(List<Attempt> contenders) {
+        int n = contenders.size();
+        Integer[] byReceipt = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byReceipt[i] = i;
+        }
+        Arrays.sort(byReceipt, Comparator.comparingLong(i -> contenders.get(i).receivedNanos));
+
+        double squaredDiffs = 0;
+        for (int receiptRank = 0; receiptRank < n; receiptRank++) {
+            double diff = byReceipt[receiptRank] - receiptRank;
+            squaredDiffs += diff * diff;
+        }
+        return 1.0 - 6.0 * squaredDiffs / ((double) n * ((double) n * n - 1));
+    }
+
+    private static String seatLabel(int slot) {
+        int[] sectionSeat = VenueLayout.sectionSeatOf(slot);
+        return "섹션 " + sectionSeat[0] + " 좌석 " + sectionSeat[1];
+    }
+}
@@ -0,0 +1,107 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.VenueLayout;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.TARGET_EVENT;
+
+/**
+ * 초과 판매 검출
+ *
+ * 시뮬레이션은 TARGET_EVENT 한 이벤트만 예매하므로, 공연장 좌석마다 소유자(유저 번호, 요청 ID, 부여 경로)를 담는 슬롯 하나를 두고
+ * 좌석 점유나 예약 확정이 성공할 때마다 빈 슬롯을 CAS로 차지한다. 유저 번호와 요청 ID를 한 객체로 함께 게시하므로
+ * 다른 스레드가 소유자를 읽을 때 요청 ID가 비어 보이지 않는다. 이미 다른 유저가 차지한 좌석이 다시 성공하면
+ * 서버가 같은 좌석을 두 유저에게 내준 것이므로 두 요청을 함께 기록한다.
+ * 성공 경로의 비용은 작은 객체 할당 하나와 CAS 한 번이다. 하네스는 좌석을 반납하지 않으므로,
+ * 서버의 임시 점유 만료가 실행 시간보다 짧으면 만료 후 재판매도 여기서 잡힌다.
+ */
+public final class OversellDetector {
+
+    private static final int MAX_SAMPLES = 20;
+
+    /**
+     * 좌석을 내준 응답의 종류
+     */
+    public enum GrantSource {
+        BOOKING,
+        RESERVATION
+    }
+
+    private record Owner(int userNum, String requestId, GrantSource source) {
+    }
+
+    private static final AtomicReferenceArray<Owner> owners = new AtomicReferenceArray<>(VenueLayout.getTotalSeats());
+    private static final LongAdder grants = new LongAdder();
+    private static final LongAdder repeatGrants = new LongAdder();
+    private static final LongAdder outOfLayout = new LongAdder();
+    private static final LongAdder oversells = new LongAdder();
+    private static final ConcurrentLinkedQueue<String> samples = new ConcurrentLinkedQueue<>();
+
+    private OversellDetector() {
+    }
+
+    /**
+     * 좌석 점유 응답으로 서버가 좌석을 유저에게 내줬음을 기록한다.
+     *
+     * @param userNum   좌석을 받은 유저 번호 (1부터)
+     * @param requestId 계획 요청 ID. 계획이 없는 시나리오는 null
+     */
+    public static void recordGrant(int userNum, int section, int seat, String requestId) {
+        recordGrant(userNum, section, seat, requestId, GrantSource.BOOKING);
+    }
+
+    /**
+     * @param requestId 좌석을 받은 계획 요청 ID. 모르면 null
+     * @param source    좌석을 내준 응답의 종류
+     */
+    public static void recordGrant(int userNum, int section, int seat, String requestId, GrantSource source) {
+        int slot = VenueLayout.globalSeatIndex(section, seat);
+        if (slot < 0) {
+            outOfLayout.increment();
+            return;
+        }
+
+        grants.increment();
+        Owner owner = owners.get(slot);
+        if (owner == null) {
+            if (owners.compareAndSet(slot, null, new Owner(userNum, requestId, source))) {
+                return;
+            }
+            owner = owners.get(slot);
+        }
+
+        if (owner.userNum() == userNum) {
+            // 같은 유저의 재시도나 예약 확정
+            repeatGrants.increment();
+            return;
+        }
+
+        oversells.increment();
+        if (samples.size() < MAX_SAMPLES) {
+            samples.add(String.format("이벤트 %d 섹션 %d 좌석 %d: %s, %s", TARGET_EVENT, section, seat,
+                    describe(owner.userNum(), owner.requestId(), owner.source()), describe(userNum, requestId, source)));
+        }
+    }
+
+    private static String describe(int userNum, String requestId, GrantSource source) {
+        String owner = requestId == null ? "User" + userNum : "User" + userNum + " [" + requestId + "]";
+        return source == GrantSource.RESERVATION ? owner + " (예약 확정)" : owner;
+    }
+
+    public static void printReport() {
+        long total = grants.sum();
+        if (total == 0 && outOfLayout.sum() == 0) {
+            return;
+        }
+
+        System.out.println("=== 초과 판매 검출 ===");
+        System.out.println("  좌석 부여 응답: " + total + " (같은 유저 재확인 " + repeatGrants.sum() + ", 배치 밖 좌석 " + outOfLayout.sum() + ")");
+        System.out.println("  초과 판매: " + oversells.sum() + (oversells.sum() == 0 ? " (이상 없음)" : ""));
+        for (String sample : samples) {
+            System.out.println("    " + sample);
+        }
+    }
+}
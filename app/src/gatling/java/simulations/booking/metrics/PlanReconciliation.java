@@ -0,0 +1,231 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.PlanLoader.CollisionGroup;
+import simulations.booking.core.PlanLoader.PlannedRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 계획 대비 실제 결과 대조
+ *
+ * 계획의 좌석 점유 요청(충돌 대체 요청 포함)마다 결과를 2비트(미전송/성공/실패)로 기록해 두고, 실행이 끝나면
+ * 충돌 그룹의 계획상 승자(Plan.json의 winner)가 실제로 좌석을 차지했는지, 다른 구성원이 예상과 달리 성공했는지를 그룹별로 비교한다.
+ * 충돌에서 밀린 유저가 대체 요청을 몇 번 보내고 체인을 마쳤는지도 깊이별로 센다.
+ */
+public final class PlanReconciliation {
+
+    private static final int NOT_SENT = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int MAX_CHAIN_DEPTH = 10;
+    private static final int MAX_SAMPLES = 10;
+
+    private static Map<String, Integer> requestIndex = Map.of();
+    private static AtomicLongArray outcomes = new AtomicLongArray(0);
+    private static Collection<CollisionGroup> collisionGroups = List.of();
+    private static long plannedLoserRequests = 0;
+    private static long plannedInitialLosses = 0;
+
+    private static final AtomicLongArray chainDepths = new AtomicLongArray(MAX_CHAIN_DEPTH + 1);
+    private static final LongAdder resolvedChains = new LongAdder();
+    private static final LongAdder exhaustedChains = new LongAdder();
+    private static boolean initialized = false;
+
+    private PlanReconciliation() {
+    }
+
+    public static synchronized void initialize(Collection<List<PlannedRequest>> userPlans,
+                                               Collection<? extends Collection<PlannedRequest>> loserQueues,
+                                               Collection<CollisionGroup> groups) {
+        if (initialized) {
+            return;
+        }
+
+        Map<String, CollisionGroup> groupOf = groupsByRequest(groups);
+        Map<String, Integer> index = new HashMap<>();
+        long initialLosses = 0;
+        for (List<PlannedRequest> plan : userPlans) {
+            for (PlannedRequest request : plan) {
+                if (request.isBook()) {
+                    index.put(request.id, index.size());
+                    CollisionGroup group = groupOf.get(request.id);
+                    if (group != null && group.winnerId != null && !group.winnerId.equals(request.id)) {
+                        initialLosses++;
+                    }
+                }
+            }
+        }
+        long losers = 0;
+        for (Collection<PlannedRequest> queue : loserQueues) {
+            for (PlannedRequest request : queue) {
+                index.put(request.id, index.size());
+                losers++;
+            }
+        }
+
+        requestIndex = index;
+        outcomes = new AtomicLongArray((index.size() + 31) >>> 5);
+        collisionGroups = groups;
+        plannedLoserRequests = losers;
+        plannedInitialLosses = initialLosses;
+        initialized = true;
+    }
+
+    private static Map<String, CollisionGroup> groupsByRequest(Collection<CollisionGroup> groups) {
+        Map<String, CollisionGroup> groupOf = new HashMap<>();
+        for (CollisionGroup group : groups) {
+            for (String requestId : group.requestIds) {
+                groupOf.put(requestId, group);
+            }
+        }
+        return groupOf;
+    }
+
+    public static void recordOutcome(String requestId, boolean success) {
+        Integer index = requestIndex.get(requestId);
+        if (index == null) {
+            return;
+        }
+        long bits = (long) (success ? SUCCEEDED : FAILED) << ((index & 31) * 2);
+        outcomes.getAndAccumulate(index >>> 5, bits, (current, update) -> current | update);
+    }
+
+    /**
+     * @param depth    체인에서 보낸 충돌 대체 요청 수
+     * @param resolved 대체 요청으로 좌석을 차지했는지 여부. false면 대체 요청이 떨어졌거나 충돌 그룹 밖에서 실패했다.
+     */
+    public static void recordChainEnd(int depth, boolean resolved) {
+        chainDepths.incrementAndGet(Math.min(depth, MAX_CHAIN_DEPTH));
+        (resolved ? resolvedChains : exhaustedChains).increment();
+    }
+
+    private static int outcomeOf(String requestId) {
+        Integer index = requestIndex.get(requestId);
+        if (index == null) {
+            return NOT_SENT;
+        }
+        return (int) (outcomes.get(index >>> 5) >>> ((index & 31) * 2)) & 3;
+    }
+
+    public static void printReport() {
+        if (!initialized) {
+            return;
+        }
+
+        Map<String, CollisionGroup> groupOf = groupsByRequest(collisionGroups);
+
+        // 충돌 그룹 밖의 요청과 승자를 아는 그룹의 구성원은 계획상 결과가 정해져 있다.
+        long matched = 0;
+        long judged = 0;
+        long notSent = 0;
+        long soloSucceeded = 0;
+        long soloFailed = 0;
+        for (String requestId : requestIndex.keySet()) {
+            int outcome = outcomeOf(requestId);
+            CollisionGroup group = groupOf.get(requestId);
+            if (outcome == NOT_SENT) {
+                notSent++;
+                continue;
+            }
+            if (group == null) {
+                if (outcome == SUCCEEDED) {
+                    soloSucceeded++;
+                } else {
+                    soloFailed++;
+                }
+            }
+            if (group == null || group.winnerId != null) {
+                boolean expectedSuccess = group == null || group.winnerId.equals(requestId);
+                judged++;
+                if (expectedSuccess == (outcome == SUCCEEDED)) {
+                    matched++;
+                }
+            }
+        }
+
+        long faithfulGroups = 0;
+        long winnerFailedGroups = 0;
+        long extraSuccessGroups = 0;
+        long incompleteGroups = 0;
+        List<String> samples = new ArrayList<>();
+        for (CollisionGroup group : collisionGroups) {
+            int successes = 0;
+            boolean incomplete = false;
+            List<String> extraSuccesses = new ArrayList<>();
+            for (String requestId : group.requestIds) {
+                int outcome = outcomeOf(requestId);
+                incomplete |= outcome == NOT_SENT;
+                if (outcome == SUCCEEDED) {
+                    successes++;
+                    if (group.winnerId != null && !group.winnerId.equals(requestId)) {
+                        extraSuccesses.add(requestId);
+                    }
+                }
+            }
+            if (incomplete) {
+                incompleteGroups++;
+            }
+
+            // 승자를 모르는 예전 계획은 정확히 한 요청만 성공했는지로 판단한다.
+            boolean winnerFailed = group.winnerId != null ? outcomeOf(group.winnerId) == FAILED : successes == 0 && !incomplete;
+            boolean extraSuccess = group.winnerId != null ? !extraSuccesses.isEmpty() : successes > 1;
+            if (winnerFailed) {
+                winnerFailedGroups++;
+            }
+            if (extraSuccess) {
+                extraSuccessGroups++;
+            }
+            boolean faithful = group.winnerId != null ? outcomeOf(group.winnerId) == SUCCEEDED && !extraSuccess : successes == 1;
+            if (faithful) {
+                faithfulGroups++;
+            } else if ((winnerFailed || extraSuccess) && samples.size() < MAX_SAMPLES) {
+                samples.add(describeDeviation(group, winnerFailed, extraSuccess ? extraSuccesses : List.of(), successes));
+            }
+        }
+
+        System.out.println("=== 계획 대조 ===");
+        System.out.printf("  계획 결과 일치: %d/%d (%.1f%%), 미전송 요청 %d%n",
+                matched, judged, judged == 0 ? 0.0 : 100.0 * matched / judged, notSent);
+        System.out.println("  충돌 없는 요청: 성공 " + soloSucceeded + ", 예상 밖 실패 " + soloFailed);
+        System.out.println("  충돌 그룹 " + collisionGroups.size() + "개: 계획대로 " + faithfulGroups
+                + ", 승자 실패 " + winnerFailedGroups + ", 승자 외 성공 " + extraSuccessGroups + ", 구성원 미전송 " + incompleteGroups);
+        for (String sample : samples) {
+            System.out.println("    " + sample);
+        }
+
+        long chains = resolvedChains.sum() + exhaustedChains.sum();
+        System.out.println("  충돌 대체 체인: " + chains + "개 (좌석 확보 " + resolvedChains.sum() + ", 미확보 " + exhaustedChains.sum() + ")"
+                + (plannedInitialLosses == 0 ? "" : String.format(", 계획 %d개 평균 깊이 %.2f",
+                plannedInitialLosses, (double) plannedLoserRequests / plannedInitialLosses)));
+        if (chains > 0) {
+            List<String> depths = new ArrayList<>();
+            for (int depth = 0; depth <= MAX_CHAIN_DEPTH; depth++) {
+                long count = chainDepths.get(depth);
+                if (count > 0) {
+                    depths.add(depth + (depth == MAX_CHAIN_DEPTH ? "+" : "") + ": " + count);
+                }
+            }
+            System.out.println("    깊이별 체인 수 " + String.join(", ", depths));
+        }
+    }
+
+    private static String describeDeviation(CollisionGroup group, boolean winnerFailed, List<String> extraSuccesses, int successes) {
+        StringBuilder sb = new StringBuilder(group.id + " (섹션 " + group.section + " 좌석 " + group.seat + "):");
+        if (group.winnerId == null) {
+            return sb.append(" 성공 ").append(successes).append("건").toString();
+        }
+        if (winnerFailed) {
+            sb.append(" 승자 ").append(group.winnerId).append(" 실패");
+        }
+        if (!extraSuccesses.isEmpty()) {
+            sb.append(" 승자 외 성공 ").append(String.join(", ", extraSuccesses));
+        }
+        return sb.toString();
+    }
+}
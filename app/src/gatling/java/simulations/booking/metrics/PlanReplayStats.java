@@ -0,0 +1,91 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.PlanLoader.PlannedRequest;
+import simulations.util.LatencyHistogram;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static simulations.config.Config.PLAN_TIME_SCALE;
+
+/**
+ * 계획 재생 속도
+ *
+ * 계획(재생 배율 적용 후)의 초당 요청 수와 실제로 요청을 보낸 초당 요청 수를 초 단위로 세어,
+ * 목표 요청률을 실제로 냈는지와 요청이 계획 시각보다 얼마나 늦게 나갔는지를 보고한다.
+ * 충돌 대체 요청은 계획 시각이 없으므로 세지 않는다.
+ */
+public final class PlanReplayStats {
+
+    private static final int MAX_SECONDS = 86_400;
+
+    private static final AtomicLongArray plannedPerSecond = new AtomicLongArray(MAX_SECONDS);
+    private static final AtomicLongArray dispatchedPerSecond = new AtomicLongArray(MAX_SECONDS);
+    private static final LatencyHistogram latenessMillis = new LatencyHistogram();
+    private static boolean initialized = false;
+
+    private PlanReplayStats() {
+    }
+
+    public static synchronized void initialize(Collection<List<PlannedRequest>> userPlans) {
+        if (initialized) {
+            return;
+        }
+        for (List<PlannedRequest> plan : userPlans) {
+            for (PlannedRequest request : plan) {
+                recordPlanned(request.timeMs);
+            }
+        }
+        initialized = true;
+    }
+
+    /**
+     * 요청을 미리 알 수 없는 합성 계획은 요청을 꺼낼 때마다 목표 요청률에 더한다.
+     */
+    public static void recordPlanned(long plannedMillis) {
+        plannedPerSecond.incrementAndGet(secondOf(plannedMillis));
+    }
+
+    /**
+     * @param plannedMillis 재생 시작 기준 계획 시각
+     * @param actualMillis  재생 시작 기준 실제로 요청을 보낸 시각
+     */
+    public static void recordDispatch(long plannedMillis, long actualMillis) {
+        dispatchedPerSecond.incrementAndGet(secondOf(actualMillis));
+        latenessMillis.record(actualMillis - plannedMillis);
+    }
+
+    private static int secondOf(long millis) {
+        return (int) Math.min(Math.max(0, millis / 1000), MAX_SECONDS - 1);
+    }
+
+    public static void printReport() {
+        if (latenessMillis.count() == 0) {
+            return;
+        }
+
+        System.out.println("=== 계획 재생 속도 (배율 " + PLAN_TIME_SCALE + "x) ===");
+        printRate("  목표", plannedPerSecond);
+        printRate("  실제", dispatchedPerSecond);
+        System.out.println("  계획 대비 지연: " + latenessMillis.summary() + " ms");
+    }
+
+    private static void printRate(String label, AtomicLongArray perSecond) {
+        long total = 0;
+        long peak = 0;
+        int lastActiveSecond = -1;
+        for (int second = 0; second < MAX_SECONDS; second++) {
+            long count = perSecond.get(second);
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            peak = Math.max(peak, count);
+            lastActiveSecond = second;
+        }
+
+        System.out.printf("%s: 요청 %d, 평균 %.1f req/s, 최대 %d req/s (%d초 동안)%n",
+                label, total, lastActiveSecond < 0 ? 0.0 : (double) total / (lastActiveSecond + 1), peak, lastActiveSecond + 1);
+    }
+}
@@ -0,0 +1,215 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.VenueLayout;
+import simulations.booking.subscription.SeatBitmap;
+import simulations.config.Config.SubscriptionType;
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.SUBSCRIPTION_MESSAGE_BUFFER_SIZE;
+
+/**
+ * 좌석 점유 반영 지연(propagation latency) 측정
+ *
+ * 좌석 점유 요청이 성공 응답을 받은 시각을 공연장 좌석 번호별 커밋 시각 표(AtomicLongArray)에 남기고,
+ * 구독자가 그 좌석을 처음으로 점유됨 상태로 받은 메시지의 수신 시각과의 차이를 기록한다.
+ * 커밋 응답보다 먼저 도착한 메시지는 수신 시각을 좌석별 대기 스택에 CAS로 쌓아 두었다가 커밋 시각이 정해질 때 기록한다.
+ * 지연은 구독 방식과 메시지 수신 시점의 동시 구독자 수(2의 거듭제곱 구간)별 히스토그램으로 집계한다.
+ */
+public final class PropagationTracker {
+
+    private static final int FAN_OUT_BUCKETS = 24;
+
+    private static final AtomicLongArray commitMillis = new AtomicLongArray(VenueLayout.getTotalSeats());
+    private static final AtomicInteger activeSubscribers = new AtomicInteger(0);
+    private static final LatencyHistogram[][] histograms =
+            new LatencyHistogram[SubscriptionType.values().length][FAN_OUT_BUCKETS];
+    private static final LongAdder commits = new LongAdder();
+    private static final LongAdder seenBeforeCommitResponse = new LongAdder();
+    private static final LongAdder pendingEarlyReceipts = new LongAdder();
+
+    // 커밋 시각이 정해지기 전에 받은 수신 기록. 수신 당시의 동시 구독자 수 구간 히스토그램을 함께 둔다.
+    private static final class EarlyReceipt {
+        final long receivedAt;
+        final LatencyHistogram histogram;
+        EarlyReceipt next;
+
+        EarlyReceipt(long receivedAt, LatencyHistogram histogram) {
+            this.receivedAt = receivedAt;
+            this.histogram = histogram;
+        }
+    }
+
+    private static final AtomicReferenceArray<EarlyReceipt> earlyReceipts =
+            new AtomicReferenceArray<>(VenueLayout.getTotalSeats());
+
+    /**
+     * 구독자별로 이미 점유됨을 확인한 좌석. 메시지를 받은 섹션만 그 섹션 크기의 비트맵을 할당한다.
+     * 한 구독자의 메시지 처리 스레드에서만 쓴다.
+     */
+    public static final class SeenSeats {
+        private final long[][] bySection = new long[VenueLayout.getSectionCount()][];
+
+        private SeenSeats() {
+        }
+    }
+
+    static {
+        for (LatencyHistogram[] byFanOut : histograms) {
+            for (int i = 0; i < byFanOut.length; i++) {
+                byFanOut[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    private PropagationTracker() {
+    }
+
+    /**
+     * 좌석 점유 성공 응답을 받은 시점에 호출한다. 같은 좌석의 첫 커밋 시각만 남긴다.
+     */
+    public static void recordCommit(int section, int seat) {
+        int index = VenueLayout.globalSeatIndex(section, seat);
+        if (index < 0) {
+            return;
+        }
+        long committedAt = System.currentTimeMillis();
+        if (commitMillis.compareAndSet(index, 0, committedAt)) {
+            commits.increment();
+            reconcileEarlyReceipts(index, committedAt);
+        }
+    }
+
+    public static void subscribed() {
+        activeSubscribers.incrementAndGet();
+    }
+
+    public static void unsubscribed() {
+        activeSubscribers.decrementAndGet();
+    }
+
+    /**
+     * 구독자가 받은 섹션 좌석 상태 메시지를 반영한다.
+     *
+     * @param seenSeats      구독자별로 이미 점유됨을 확인한 좌석
+     * @param subscribedAt   구독 시작 시각. 이보다 먼저 커밋된 좌석은 측정하지 않는다.
+     * @param receivedAt     메시지 수신 시각
+     */
+    public static void observe(SubscriptionType type, int section, SeatBitmap seatStatus,
+                               SeenSeats seenSeats, long subscribedAt, long receivedAt) {
+        observeInto(null, type, section, seatStatus, seenSeats, subscribedAt, receivedAt);
+    }
+
+    /**
+     * 동시 구독자 수 구간 대신 지정한 히스토그램에 기록한다. (느린 구독자처럼 따로 집계할 구독자용)
+     */
+    public static void observeInto(LatencyHistogram target, SubscriptionType type, int section, SeatBitmap seatStatus,
+                                   SeenSeats seenSeats, long subscribedAt, long receivedAt) {
+        if (section < 0 || section >= seenSeats.bySection.length) {
+            return;
+        }
+
+        // 섹션의 첫 메시지에 이미 점유됨으로 온 좌석은 구독 전에 팔렸을 수 있으므로 커밋 시각이 없으면 기다리지 않는다.
+        long[] seen = seenSeats.bySection[section];
+        boolean firstMessage = seen == null;
+        if (firstMessage) {
+            seen = new long[(VenueLayout.getSeatCount(section) + 63) >>> 6];
+            seenSeats.bySection[section] = seen;
+        }
+
+        LatencyHistogram histogram = target;
+        for (int seat = seatStatus.nextUnavailable(0); seat >= 0; seat = seatStatus.nextUnavailable(seat + 1)) {
+            int index = VenueLayout.globalSeatIndex(section, seat);
+            if (index < 0 || (seen[seat >>> 6] & (1L << seat)) != 0) {
+                continue;
+            }
+            seen[seat >>> 6] |= 1L << seat;
+
+            long committedAt = commitMillis.get(index);
+            if (committedAt != 0 && committedAt < subscribedAt) {
+                continue;
+            }
+            if (committedAt == 0 && firstMessage) {
+                continue;
+            }
+
+            if (histogram == null) {
+                histogram = histograms[type.ordinal()][fanOutBucketOf(activeSubscribers.get())];
+            }
+            if (committedAt == 0) {
+                deferUntilCommit(index, receivedAt, histogram);
+            } else {
+                record(histogram, receivedAt - committedAt);
+            }
+        }
+    }
+
+    // 대기 스택에 넣은 뒤 커밋 시각을 다시 읽는다. 그사이 커밋이 기록됐다면 recordCommit이 이 수신을 못 봤을 수 있으므로 직접 정리한다.
+    private static void deferUntilCommit(int index, long receivedAt, LatencyHistogram histogram) {
+        EarlyReceipt receipt = new EarlyReceipt(receivedAt, histogram);
+        EarlyReceipt head;
+        do {
+            head = earlyReceipts.get(index);
+            receipt.next = head;
+        } while (!earlyReceipts.compareAndSet(index, head, receipt));
+        pendingEarlyReceipts.increment();
+
+        long committedAt = commitMillis.get(index);
+        if (committedAt != 0) {
+            reconcileEarlyReceipts(index, committedAt);
+        }
+    }
+
+    private static void reconcileEarlyReceipts(int index, long committedAt) {
+        for (EarlyReceipt receipt = earlyReceipts.getAndSet(index, null); receipt != null; receipt = receipt.next) {
+            pendingEarlyReceipts.decrement();
+            record(receipt.histogram, receipt.receivedAt - committedAt);
+        }
+    }
+
+    private static void record(LatencyHistogram histogram, long latency) {
+        if (latency < 0) {
+            seenBeforeCommitResponse.increment();
+        }
+        histogram.record(latency);
+    }
+
+    public static SeenSeats newSeenSeats() {
+        return new SeenSeats();
+    }
+
+    private static int fanOutBucketOf(int subscribers) {
+        int bucket = 32 - Integer.numberOfLeadingZeros(Math.max(1, subscribers)) - 1;
+        return Math.min(bucket, FAN_OUT_BUCKETS - 1);
+    }
+
+    public static void printReport() {
+        System.out.println("=== 좌석 점유 반영 지연 ===");
+        System.out.println("  커밋된 좌석: " + commits.sum());
+        System.out.println("  커밋 응답보다 먼저 수신: " + seenBeforeCommitResponse.sum() + " (0ms로 기록)");
+        if (pendingEarlyReceipts.sum() > 0) {
+            System.out.println("  커밋 응답을 받지 못한 좌석의 수신: " + pendingEarlyReceipts.sum() + " (하네스 밖 점유이거나 응답 실패, 제외)");
+        }
+        if (SUBSCRIPTION_MESSAGE_BUFFER_SIZE <= 1) {
+            System.out.println("  경고: 메시지 버퍼가 " + SUBSCRIPTION_MESSAGE_BUFFER_SIZE
+                    + "이라 버려진 메시지만큼 지연이 크게 측정될 수 있습니다.");
+        }
+
+        for (SubscriptionType type : SubscriptionType.values()) {
+            LatencyHistogram[] byFanOut = histograms[type.ordinal()];
+            for (int bucket = 0; bucket < byFanOut.length; bucket++) {
+                if (byFanOut[bucket].count() == 0) {
+                    continue;
+                }
+                String range = bucket == FAN_OUT_BUCKETS - 1
+                        ? (1 << bucket) + "~"
+                        : (1 << bucket) + "~" + ((1 << (bucket + 1)) - 1);
+                System.out.printf("  %s 구독자 %-15s %s ms%n", type.name(), range, byFanOut[bucket].summary());
+            }
+        }
+    }
+}
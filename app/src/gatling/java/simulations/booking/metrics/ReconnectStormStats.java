@@ -0,0 +1,132 @@
+package simulations.booking.metrics;
+
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.Storm.*;
+import static simulations.config.Config.SUBSCRIPTION_TYPE;
+
+/**
+ * 재연결 폭주 시나리오의 연결 지표
+ *
+ * 최초 연결과 재연결을 나눠 연결 지연, 연결 실패, 첫 좌석 상태 메시지까지의 시간을 집계하고,
+ * 초 단위 연결 시도/실패 수로 서버가 오류 없이 받아낸 최대 연결 수락률을 구한다.
+ */
+public final class ReconnectStormStats {
+
+    public enum Phase {
+        INITIAL("최초 연결"),
+        RECONNECT("재연결");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class PhaseStats {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder firstMessageTimeouts = new LongAdder();
+        final LatencyHistogram connectLatency = new LatencyHistogram();
+        final LatencyHistogram timeToFirstMessage = new LatencyHistogram();
+    }
+
+    private static final int MAX_SECONDS = 86400;
+
+    private static final PhaseStats[] phases = {new PhaseStats(), new PhaseStats()};
+    private static final AtomicLong startMillis = new AtomicLong(0);
+    private static final AtomicLongArray secondAttempts = new AtomicLongArray(MAX_SECONDS);
+    private static final AtomicLongArray secondFailures = new AtomicLongArray(MAX_SECONDS);
+    private static final AtomicLongArray secondLatencySum = new AtomicLongArray(MAX_SECONDS);
+    private static final LongAdder droppedConnections = new LongAdder();
+
+    private ReconnectStormStats() {
+    }
+
+    /**
+     * @param startedAt 연결 요청을 시작한 시각
+     */
+    public static void recordConnect(Phase phase, long startedAt, boolean succeeded) {
+        long latency = System.currentTimeMillis() - startedAt;
+        PhaseStats stats = phases[phase.ordinal()];
+        stats.attempts.increment();
+        if (succeeded) {
+            stats.connectLatency.record(latency);
+        } else {
+            stats.failures.increment();
+        }
+
+        startMillis.compareAndSet(0, startedAt);
+        long second = (startedAt - startMillis.get()) / 1000;
+        if (second >= 0 && second < MAX_SECONDS) {
+            secondAttempts.incrementAndGet((int) second);
+            secondLatencySum.addAndGet((int) second, latency);
+            if (!succeeded) {
+                secondFailures.incrementAndGet((int) second);
+            }
+        }
+    }
+
+    public static void recordFirstMessage(Phase phase, long millisSinceConnect) {
+        phases[phase.ordinal()].timeToFirstMessage.record(millisSinceConnect);
+    }
+
+    public static void recordFirstMessageTimeout(Phase phase) {
+        phases[phase.ordinal()].firstMessageTimeouts.increment();
+    }
+
+    public static void recordDrop() {
+        droppedConnections.increment();
+    }
+
+    public static void printReport() {
+        System.out.println("=== 재연결 폭주 결과 (" + SUBSCRIPTION_TYPE.name() + ") ===");
+        System.out.println("  끊은 연결: " + droppedConnections.sum());
+
+        for (Phase phase : Phase.values()) {
+            PhaseStats stats = phases[phase.ordinal()];
+            long attempts = stats.attempts.sum();
+            if (attempts == 0) {
+                continue;
+            }
+            System.out.printf("  [%s] 시도 %d, 실패 %d (%.2f%%)%n",
+                    phase.label, attempts, stats.failures.sum(), stats.failures.sum() * 100.0 / attempts);
+            System.out.println("    연결 지연: " + stats.connectLatency.summary() + " ms");
+            System.out.println("    첫 좌석 메시지: " + stats.timeToFirstMessage.summary() + " ms"
+                    + ", " + FIRST_MESSAGE_TIMEOUT_MILLIS + "ms 내 미수신 " + stats.firstMessageTimeouts.sum());
+        }
+
+        printAcceptRate();
+    }
+
+    // 처음으로 연결 실패가 난 초 직전까지 관측된 초당 연결 시도 수의 최대값을 안전 수락률로 본다.
+    private static void printAcceptRate() {
+        System.out.println("  초별 연결 시도 / 실패 / 평균 지연");
+        long safeRate = 0;
+        boolean failureSeen = false;
+
+        for (int second = 0; second < MAX_SECONDS; second++) {
+            long attempts = secondAttempts.get(second);
+            if (attempts == 0) {
+                continue;
+            }
+            long failures = secondFailures.get(second);
+            System.out.printf("  %6ds: 시도 %6d  실패 %6d  %.1fms%n",
+                    second, attempts, failures, secondLatencySum.get(second) / (double) attempts);
+
+            if (failures > 0) {
+                failureSeen = true;
+            } else if (!failureSeen) {
+                safeRate = Math.max(safeRate, attempts);
+            }
+        }
+
+        System.out.println("  최대 안전 연결 수락률: " + safeRate + " conn/s"
+                + (failureSeen ? "" : " (실패 없음, 상한은 더 높을 수 있음)"));
+    }
+}
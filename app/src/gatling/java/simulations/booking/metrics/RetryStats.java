@@ -0,0 +1,45 @@
+package simulations.booking.metrics;
+
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 좌석 점유 재시도 지표
+ *
+ * 점유에 성공한 좌석마다 그 좌석을 얻기까지의 재시도 수와, 재시도 전 백오프 대기 시간, 재시도 예산을 모두 써서 포기한 유저 수를 집계한다.
+ */
+public final class RetryStats {
+
+    private static final LatencyHistogram retriesPerHeldSeat = new LatencyHistogram();
+    private static final LatencyHistogram backoffMillis = new LatencyHistogram();
+    private static final LongAdder heldSeats = new LongAdder();
+    private static final LongAdder totalRetries = new LongAdder();
+    private static final LongAdder budgetExhaustedUsers = new LongAdder();
+
+    private RetryStats() {
+    }
+
+    public static void recordSeatHeld(int retries) {
+        heldSeats.increment();
+        totalRetries.add(retries);
+        retriesPerHeldSeat.record(retries);
+    }
+
+    public static void recordBackoff(long millis) {
+        backoffMillis.record(millis);
+    }
+
+    public static void recordBudgetExhausted() {
+        budgetExhaustedUsers.increment();
+    }
+
+    public static void printReport() {
+        long seats = heldSeats.sum();
+        System.out.println("=== 좌석 점유 재시도 ===");
+        System.out.printf("  점유 좌석: %d, 좌석당 재시도: %.2f%n", seats, seats == 0 ? 0.0 : (double) totalRetries.sum() / seats);
+        System.out.println("  좌석별 재시도 분포: " + retriesPerHeldSeat.summary());
+        System.out.println("  백오프 대기: " + backoffMillis.summary() + " ms");
+        System.out.println("  재시도 예산 소진 유저: " + budgetExhaustedUsers.sum());
+    }
+}
@@ -0,0 +1,232 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.VenueLayout;
+import simulations.util.ReportExporter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static simulations.config.Config.ENABLE_SEAT_HEATMAP;
+
+/**
+ * 좌석별 경합 히트맵
+ *
+ * 공연장 좌석마다 시도, 성공, 409 충돌, 재시도, 응답 시간 합(µs)을 필드별 AtomicLongArray에 두고 좌석 점유 응답마다 더한다.
+ * 재시도는 RetryPolicy나 PipelinedBooking이 재시도로 보낸 요청만 센다. 메모리는 좌석 수에만 비례한다.
+ * 실행이 끝나면 섹션별 합계와 충돌이 많은 행을 출력하고, PlanConfig.json의 col_len으로 행과 열을 나눈
+ * seat-heatmap.csv, seat-heatmap.json, seat-heatmap.html을 Gatling 리포트 디렉터리에 쓴다.
+ */
+public final class SeatHeatmap {
+
+    private static final int TOP_ROWS = 5;
+    private static final int CELL_PIXELS = 10;
+
+    private static final AtomicLongArray attempts = newCounters();
+    private static final AtomicLongArray successes = newCounters();
+    private static final AtomicLongArray conflicts = newCounters();
+    private static final AtomicLongArray retries = newCounters();
+    private static final AtomicLongArray latencyMicros = newCounters();
+
+    private SeatHeatmap() {
+    }
+
+    private static AtomicLongArray newCounters() {
+        return new AtomicLongArray(ENABLE_SEAT_HEATMAP ? VenueLayout.getTotalSeats() : 0);
+    }
+
+    /**
+     * @param conflict 서버가 409로 거절했는지 여부
+     * @param retry    앞선 시도가 실패해 다시 보낸 요청인지 여부
+     */
+    public static void recordAttempt(int section, int seat, boolean granted, boolean conflict, boolean retry, long latencyNanos) {
+        if (!ENABLE_SEAT_HEATMAP) {
+            return;
+        }
+        int slot = VenueLayout.globalSeatIndex(section, seat);
+        if (slot < 0) {
+            return;
+        }
+
+        attempts.incrementAndGet(slot);
+        if (granted) {
+            successes.incrementAndGet(slot);
+        }
+        if (conflict) {
+            conflicts.incrementAndGet(slot);
+        }
+        if (retry) {
+            retries.incrementAndGet(slot);
+        }
+        latencyMicros.addAndGet(slot, Math.max(0, latencyNanos / 1000));
+    }
+
+    private static double meanLatencyMillis(int slot) {
+        long count = attempts.get(slot);
+        return count == 0 ? 0.0 : latencyMicros.get(slot) / 1000.0 / count;
+    }
+
+    public static void printReport() {
+        if (!ENABLE_SEAT_HEATMAP) {
+            return;
+        }
+
+        long totalAttempts = 0;
+        for (int slot = 0; slot < VenueLayout.getTotalSeats(); slot++) {
+            totalAttempts += attempts.get(slot);
+        }
+        if (totalAttempts == 0) {
+            return;
+        }
+
+        System.out.println("=== 좌석 경합 히트맵 ===");
+        List<long[]> rows = new ArrayList<>();
+        for (int section = 0; section < VenueLayout.getSectionCount(); section++) {
+            int seatCount = VenueLayout.getSeatCount(section);
+            if (seatCount == 0) {
+                continue;
+            }
+            int colLen = Math.max(1, VenueLayout.getColLen(section));
+            int offset = VenueLayout.globalSeatIndex(section, 0);
+            long sectionAttempts = 0;
+            long sectionSuccesses = 0;
+            long sectionConflicts = 0;
+            long sectionRetries = 0;
+            long sectionLatencyMicros = 0;
+            long[] rowConflicts = new long[(seatCount + colLen - 1) / colLen];
+            for (int seat = 0; seat < seatCount; seat++) {
+                int slot = offset + seat;
+                sectionAttempts += attempts.get(slot);
+                sectionSuccesses += successes.get(slot);
+                sectionConflicts += conflicts.get(slot);
+                sectionRetries += retries.get(slot);
+                sectionLatencyMicros += latencyMicros.get(slot);
+                rowConflicts[seat / colLen] += conflicts.get(slot);
+            }
+            for (int row = 0; row < rowConflicts.length; row++) {
+                if (rowConflicts[row] > 0) {
+                    rows.add(new long[]{section, row, rowConflicts[row]});
+                }
+            }
+
+            System.out.printf("  섹션 %d: 시도 %d, 성공 %d, 409 충돌 %d (%.1f%%), 재시도 %d, 평균 응답 %.1fms%n",
+                    section, sectionAttempts, sectionSuccesses, sectionConflicts,
+                    sectionAttempts == 0 ? 0.0 : 100.0 * sectionConflicts / sectionAttempts,
+                    sectionRetries,
+                    sectionAttempts == 0 ? 0.0 : sectionLatencyMicros / 1000.0 / sectionAttempts);
+        }
+
+        rows.sort((a, b) -> Long.compare(b[2], a[2]));
+        for (int i = 0; i < Math.min(TOP_ROWS, rows.size()); i++) {
+            long[] row = rows.get(i);
+            System.out.println("    충돌 상위 " + (i + 1) + ": 섹션 " + row[0] + " " + row[1] + "행 (" + row[2] + "회)");
+        }
+
+        ReportExporter.writeText("seat-heatmap.csv", toCsv());
+        ReportExporter.writeJson("seat-heatmap.json", toJson());
+        ReportExporter.writeText("seat-heatmap.html", toHtml());
+    }
+
+    // 한 번도 시도하지 않은 좌석은 뺀다.
+    private static String toCsv() {
+        StringBuilder csv = new StringBuilder("section,seat,row,col,attempts,successes,conflicts,retries,mean_latency_ms\n");
+        for (int section = 0; section < VenueLayout.getSectionCount(); section++) {
+            int colLen = Math.max(1, VenueLayout.getColLen(section));
+            for (int seat = 0; seat < VenueLayout.getSeatCount(section); seat++) {
+                int slot = VenueLayout.globalSeatIndex(section, seat);
+                long seatAttempts = attempts.get(slot);
+                if (seatAttempts == 0) {
+                    continue;
+                }
+                csv.append(section).append(',').append(seat).append(',')
+                        .append(seat / colLen).append(',').append(seat % colLen).append(',')
+                        .append(seatAttempts).append(',').append(successes.get(slot)).append(',')
+                        .append(conflicts.get(slot)).append(',').append(retries.get(slot)).append(',')
+                        .append(String.format(Locale.ROOT, "%.2f", meanLatencyMillis(slot))).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    // 섹션마다 좌석 순서대로 늘어놓은 배열. 좌석 n은 n / colLen행 n % colLen열이다.
+    private static Map<String, Object> toJson() {
+        List<Map<String, Object>> sections = new ArrayList<>();
+        for (int section = 0; section < VenueLayout.getSectionCount(); section++) {
+            int seatCount = VenueLayout.getSeatCount(section);
+            long[] seatAttempts = new long[seatCount];
+            long[] seatSuccesses = new long[seatCount];
+            long[] seatConflicts = new long[seatCount];
+            long[] seatRetries = new long[seatCount];
+            double[] meanLatency = new double[seatCount];
+            for (int seat = 0; seat < seatCount; seat++) {
+                int slot = VenueLayout.globalSeatIndex(section, seat);
+                seatAttempts[seat] = attempts.get(slot);
+                seatSuccesses[seat] = successes.get(slot);
+                seatConflicts[seat] = conflicts.get(slot);
+                seatRetries[seat] = retries.get(slot);
+                meanLatency[seat] = meanLatencyMillis(slot);
+            }
+
+            Map<String, Object> sectionReport = new LinkedHashMap<>();
+            sectionReport.put("section", section);
+            sectionReport.put("colLen", VenueLayout.getColLen(section));
+            sectionReport.put("attempts", seatAttempts);
+            sectionReport.put("successes", seatSuccesses);
+            sectionReport.put("conflicts", seatConflicts);
+            sectionReport.put("retries", seatRetries);
+            sectionReport.put("meanLatencyMillis", meanLatency);
+            sections.add(sectionReport);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sections", sections);
+        return report;
+    }
+
+    // 좌석 하나를 칸 하나로 그리고 409 충돌 수로 색을 칠한다. 칸에 마우스를 올리면 좌석의 카운터를 보여 준다.
+    private static String toHtml() {
+        long maxConflicts = 1;
+        for (int slot = 0; slot < VenueLayout.getTotalSeats(); slot++) {
+            maxConflicts = Math.max(maxConflicts, conflicts.get(slot));
+        }
+
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html lang=\"ko\">\n<head>\n<meta charset=\"utf-8\">\n<title>좌석 경합 히트맵</title>\n<style>\n")
+                .append("body{font-family:sans-serif;margin:24px}\n")
+                .append(".grid{display:grid;gap:1px;margin-bottom:24px}\n")
+                .append(".grid i{width:").append(CELL_PIXELS).append("px;height:").append(CELL_PIXELS).append("px;background:#eee}\n")
+                .append("</style>\n</head>\n<body>\n<h1>좌석 경합 히트맵</h1>\n")
+                .append("<p>색이 진할수록 409 충돌이 많은 좌석이다 (최대 ").append(maxConflicts)
+                .append("회). 회색은 시도가 없던 좌석이다.</p>\n");
+
+        for (int section = 0; section < VenueLayout.getSectionCount(); section++) {
+            int colLen = Math.max(1, VenueLayout.getColLen(section));
+            html.append("<h2>섹션 ").append(section).append("</h2>\n")
+                    .append("<div class=\"grid\" style=\"grid-template-columns:repeat(").append(colLen)
+                    .append(',').append(CELL_PIXELS).append("px)\">\n");
+            for (int seat = 0; seat < VenueLayout.getSeatCount(section); seat++) {
+                int slot = VenueLayout.globalSeatIndex(section, seat);
+                long seatAttempts = attempts.get(slot);
+                html.append("<i title=\"좌석 ").append(seat).append(" (").append(seat / colLen).append("행 ").append(seat % colLen)
+                        .append("열) 시도 ").append(seatAttempts).append(", 성공 ").append(successes.get(slot))
+                        .append(", 충돌 ").append(conflicts.get(slot)).append(", 재시도 ").append(retries.get(slot))
+                        .append(String.format(Locale.ROOT, ", 평균 %.1fms\"", meanLatencyMillis(slot)));
+                if (seatAttempts > 0) {
+                    double intensity = (double) conflicts.get(slot) / maxConflicts;
+                    html.append(String.format(Locale.ROOT, " style=\"background:hsl(0,80%%,%.0f%%)\"", 92 - 57 * intensity));
+                }
+                html.append("></i>");
+                if ((seat + 1) % colLen == 0) {
+                    html.append('\n');
+                }
+            }
+            html.append("\n</div>\n");
+        }
+
+        html.append("</body>\n</html>\n");
+        return html.toString();
+    }
+}
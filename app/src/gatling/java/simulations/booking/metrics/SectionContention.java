@@ -0,0 +1,139 @@
+package simulations.booking.metrics;
+
+import simulations.booking.core.VenueLayout;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static simulations.config.Config.*;
+
+/**
+ * 섹션별 좌석 점유 경합도
+ *
+ * 섹션마다 CONTENTION_WINDOW_SECONDS 구간별 점유 시도/실패 수와, 유저가 마지막으로 받은 좌석 맵의 예매 가능 좌석 수를 둔다.
+ * 재시도할 섹션은 (예매 가능 좌석 수 × 최근 성공률)에 비례한 가중 무작위로 골라, 모든 유저가 한 섹션으로 몰리지 않게 한다.
+ * 구간별 기록은 그대로 남겨 섹션별 충돌률 추이를 보고한다.
+ */
+public final class SectionContention {
+
+    private static final int MAX_INTERVALS = 8640;
+
+    private static final int sectionCount = DYNAMIC_SECTION_COUNT;
+    private static final AtomicLong startMillis = new AtomicLong(0);
+    private static final AtomicLongArray attempts = new AtomicLongArray(sectionCount * MAX_INTERVALS);
+    private static final AtomicLongArray conflicts = new AtomicLongArray(sectionCount * MAX_INTERVALS);
+    private static final AtomicIntegerArray freeSeats = new AtomicIntegerArray(sectionCount);
+
+    static {
+        for (int section = 0; section < sectionCount; section++) {
+            freeSeats.set(section, -1);
+        }
+    }
+
+    private SectionContention() {
+    }
+
+    public static void recordAttempt(int section, boolean conflicted) {
+        if (section < 0 || section >= sectionCount) {
+            return;
+        }
+        int slot = section * MAX_INTERVALS + currentInterval();
+        attempts.incrementAndGet(slot);
+        if (conflicted) {
+            conflicts.incrementAndGet(slot);
+        }
+    }
+
+    /**
+     * 유저가 받은 좌석 맵의 예매 가능 좌석 수를 반영한다.
+     */
+    public static void recordFreeSeats(int section, int available) {
+        if (section >= 0 && section < sectionCount) {
+            freeSeats.set(section, available);
+        }
+    }
+
+    /**
+     * 최근 두 구간의 충돌률. 기록이 적을 때 0이나 1로 치우치지 않도록 (충돌 + 1) / (시도 + 2)로 보정한다.
+     */
+    public static double recentConflictRate(int section) {
+        int interval = currentInterval();
+        long recentAttempts = 0;
+        long recentConflicts = 0;
+        for (int i = Math.max(0, interval - 1); i <= interval; i++) {
+            recentAttempts += attempts.get(section * MAX_INTERVALS + i);
+            recentConflicts += conflicts.get(section * MAX_INTERVALS + i);
+        }
+        return (recentConflicts + 1.0) / (recentAttempts + 2.0);
+    }
+
+    public static int chooseSection() {
+        double[] scores = new double[sectionCount];
+        double total = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            scores[section] = estimatedFreeSeats(section) * (1.0 - recentConflictRate(section));
+            total += scores[section];
+        }
+
+        if (total <= 0) {
+            return ThreadLocalRandom.current().nextInt(sectionCount);
+        }
+
+        double target = ThreadLocalRandom.current().nextDouble(total);
+        for (int section = 0; section < sectionCount; section++) {
+            target -= scores[section];
+            if (target < 0) {
+                return section;
+            }
+        }
+        return sectionCount - 1;
+    }
+
+    // 아직 좌석 맵을 받은 적이 없는 섹션은 전체 좌석이 남아 있다고 본다.
+    private static int estimatedFreeSeats(int section) {
+        int known = freeSeats.get(section);
+        if (known >= 0) {
+            return known;
+        }
+        return section < VenueLayout.getSectionCount() ? VenueLayout.getSeatCount(section) : DEFAULT_SECTION_SEAT_COUNT;
+    }
+
+    private static int currentInterval() {
+        long now = System.currentTimeMillis();
+        startMillis.compareAndSet(0, now);
+        long interval = (now - startMillis.get()) / (CONTENTION_WINDOW_SECONDS * 1000L);
+        return (int) Math.min(interval, MAX_INTERVALS - 1);
+    }
+
+    public static void printReport() {
+        if (startMillis.get() == 0) {
+            return;
+        }
+
+        System.out.println("=== 섹션별 충돌률 (" + CONTENTION_WINDOW_SECONDS + "초 구간) ===");
+        StringBuilder header = new StringBuilder("  구간(s)");
+        for (int section = 0; section < sectionCount; section++) {
+            header.append(String.format("  %16s", "섹션 " + section));
+        }
+        System.out.println(header);
+
+        int lastInterval = currentInterval();
+        for (int interval = 0; interval <= lastInterval; interval++) {
+            StringBuilder row = new StringBuilder(String.format("  %7d", interval * CONTENTION_WINDOW_SECONDS));
+            boolean active = false;
+            for (int section = 0; section < sectionCount; section++) {
+                long sectionAttempts = attempts.get(section * MAX_INTERVALS + interval);
+                long sectionConflicts = conflicts.get(section * MAX_INTERVALS + interval);
+                active |= sectionAttempts > 0;
+                row.append(sectionAttempts == 0
+                        ? String.format("  %16s", "-")
+                        : String.format("  %6.1f%% (%6d)", sectionConflicts * 100.0 / sectionAttempts, sectionAttempts));
+            }
+            if (active) {
+                System.out.println(row);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package simulations.booking.metrics;
+
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.*;
+
+/**
+ * 느린 구독자의 연결, 읽기량, 읽기 중단 횟수와 좌석 점유 반영 지연을 집계한다.
+ *
+ * 반영 지연은 느린 구독자가 메시지를 실제로 읽은 시각 기준이라, 서버와 커널 버퍼에 쌓여 있던 시간이 포함된다.
+ */
+public final class SlowConsumerStats {
+
+    private static final AtomicLong firstConnectMillis = new AtomicLong(0);
+    private static final AtomicInteger activeConnections = new AtomicInteger(0);
+    private static final AtomicInteger maxActiveConnections = new AtomicInteger(0);
+    private static final LongAdder connects = new LongAdder();
+    private static final LongAdder connectFailures = new LongAdder();
+    private static final LongAdder serverDisconnects = new LongAdder();
+    private static final LongAdder bytesRead = new LongAdder();
+    private static final LongAdder messagesRead = new LongAdder();
+    private static final LongAdder stalls = new LongAdder();
+    private static final LatencyHistogram connectLatency = new LatencyHistogram();
+    private static final LatencyHistogram propagationLatency = new LatencyHistogram();
+
+    private SlowConsumerStats() {
+    }
+
+    public static void connected(long connectMillis) {
+        firstConnectMillis.compareAndSet(0, System.currentTimeMillis());
+        connects.increment();
+        connectLatency.record(connectMillis);
+        maxActiveConnections.accumulateAndGet(activeConnections.incrementAndGet(), Math::max);
+    }
+
+    public static void connectFailed() {
+        connectFailures.increment();
+    }
+
+    /**
+     * @param closedByServer 클라이언트가 닫기 전에 서버가 스트림을 끝냈거나 오류로 끊겼는지 여부
+     */
+    public static void disconnected(boolean closedByServer) {
+        activeConnections.decrementAndGet();
+        if (closedByServer) {
+            serverDisconnects.increment();
+        }
+    }
+
+    public static void recordRead(int bytes, int messages) {
+        bytesRead.add(bytes);
+        messagesRead.add(messages);
+    }
+
+    public static void recordStall() {
+        stalls.increment();
+    }
+
+    public static LatencyHistogram propagationLatency() {
+        return propagationLatency;
+    }
+
+    public static void printReport() {
+        long elapsedSeconds = Math.max(1, (System.currentTimeMillis() - firstConnectMillis.get()) / 1000);
+        long connections = Math.max(1, connects.sum());
+
+        System.out.println("=== 느린 구독자 결과 (" + SUBSCRIPTION_TYPE.name() + ") ===");
+        System.out.println("  설정: 읽기 " + SLOW_CONSUMER_READ_BYTES_PER_SEC + " B/s, "
+                + SLOW_CONSUMER_STALL_INTERVAL_SECONDS + "초마다 " + SLOW_CONSUMER_STALL_MILLIS + "ms 중단, "
+                + "수신 버퍼 " + (SLOW_CONSUMER_RECEIVE_BUFFER_BYTES > 0 ? SLOW_CONSUMER_RECEIVE_BUFFER_BYTES + "B" : "OS 기본값"));
+        System.out.println("  연결: " + connects.sum() + " (실패 " + connectFailures.sum()
+                + ", 서버 종료 " + serverDisconnects.sum() + ", 최대 동시 " + maxActiveConnections.get() + ")");
+        System.out.println("  연결 지연: " + connectLatency.summary() + " ms");
+        System.out.printf("  읽기: %d bytes, 메시지 %d, 연결당 평균 %.1f B/s%n",
+                bytesRead.sum(), messagesRead.sum(), bytesRead.sum() / (double) connections / elapsedSeconds);
+        System.out.println("  읽기 중단: " + stalls.sum());
+        if (ENABLE_PROPAGATION_TRACKING) {
+            System.out.println("  좌석 점유 반영 지연: " + propagationLatency.summary() + " ms");
+        }
+    }
+}
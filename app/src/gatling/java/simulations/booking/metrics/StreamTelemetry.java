@@ -0,0 +1,140 @@
+package simulations.booking.metrics;
+
+import simulations.booking.subscription.SeatMessage;
+import simulations.booking.subscription.SeatMessage.ParseFailure;
+import simulations.config.Config.SubscriptionType;
+import simulations.util.LatencyHistogram;
+import simulations.util.ReportExporter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 구독 스트림 텔레메트리
+ *
+ * 구독 방식별로 수신 메시지 수와 크기, 구독자별 메시지 도착 간격, 파싱 실패 원인,
+ * 한 메시지에 여러 좌석 변경이 합쳐진(coalesced) 횟수를 집계한다.
+ * 카운터는 LongAdder로 스레드별로 나눠 쌓아 수만 구독자가 동시에 기록해도 경합하지 않는다.
+ */
+public final class StreamTelemetry {
+
+    private static final class TypeStats {
+        final LongAdder messages = new LongAdder();
+        final LongAdder seatMessages = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder[] failures = new LongAdder[ParseFailure.values().length];
+        final LongAdder unchangedMessages = new LongAdder();
+        final LongAdder coalescedMessages = new LongAdder();
+        final LatencyHistogram messageBytes = new LatencyHistogram();
+        final LatencyHistogram interArrivalMillis = new LatencyHistogram();
+        final LatencyHistogram changesPerMessage = new LatencyHistogram();
+
+        TypeStats() {
+            for (int i = 0; i < failures.length; i++) {
+                failures[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static final TypeStats[] stats = new TypeStats[SubscriptionType.values().length];
+
+    static {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new TypeStats();
+        }
+    }
+
+    private StreamTelemetry() {
+    }
+
+    public static void recordMessage(SubscriptionType type, SeatMessage message) {
+        TypeStats typeStats = stats[type.ordinal()];
+        typeStats.messages.increment();
+        typeStats.bytes.add(message.wireBytes());
+        typeStats.messageBytes.record(message.wireBytes());
+        if (message.hasSeatStatus()) {
+            typeStats.seatMessages.increment();
+        } else if (message.failure() != null) {
+            typeStats.failures[message.failure().ordinal()].increment();
+        }
+    }
+
+    public static void recordInterArrival(SubscriptionType type, long millis) {
+        stats[type.ordinal()].interArrivalMillis.record(millis);
+    }
+
+    /**
+     * 같은 구독자가 같은 섹션에서 직전에 받은 상태와 비교해 바뀐 좌석 수를 기록한다.
+     * 두 좌석 이상이 한 번에 바뀌었으면 서버가 변경을 모아 보낸 것으로 본다.
+     */
+    public static void recordSeatChanges(SubscriptionType type, int changedSeats) {
+        TypeStats typeStats = stats[type.ordinal()];
+        typeStats.changesPerMessage.record(changedSeats);
+        if (changedSeats == 0) {
+            typeStats.unchangedMessages.increment();
+        } else if (changedSeats > 1) {
+            typeStats.coalescedMessages.increment();
+        }
+    }
+
+    public static void printReport() {
+        System.out.println("=== 구독 스트림 텔레메트리 ===");
+        for (SubscriptionType type : SubscriptionType.values()) {
+            TypeStats typeStats = stats[type.ordinal()];
+            long messages = typeStats.messages.sum();
+            if (messages == 0) {
+                continue;
+            }
+
+            System.out.println("  [" + type.name() + "] 메시지 " + messages
+                    + " (좌석 상태 " + typeStats.seatMessages.sum() + "), " + typeStats.bytes.sum() + " bytes");
+            System.out.println("    메시지 크기: " + typeStats.messageBytes.summary() + " bytes");
+            System.out.println("    도착 간격: " + typeStats.interArrivalMillis.summary() + " ms");
+            System.out.println("    변경 좌석 수/메시지: " + typeStats.changesPerMessage.summary()
+                    + ", 합쳐진 메시지 " + typeStats.coalescedMessages.sum()
+                    + ", 변경 없음 " + typeStats.unchangedMessages.sum());
+
+            StringBuilder failures = new StringBuilder();
+            for (ParseFailure failure : ParseFailure.values()) {
+                long count = typeStats.failures[failure.ordinal()].sum();
+                if (count > 0) {
+                    failures.append(' ').append(failure.name()).append('=').append(count);
+                }
+            }
+            System.out.println("    파싱 실패:" + (failures.isEmpty() ? " 없음" : failures));
+        }
+    }
+
+    /**
+     * Gatling 리포트 디렉터리에 stream-telemetry.json으로 내보낸다.
+     */
+    public static void export() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (SubscriptionType type : SubscriptionType.values()) {
+            TypeStats typeStats = stats[type.ordinal()];
+            if (typeStats.messages.sum() == 0) {
+                continue;
+            }
+
+            Map<String, Long> failures = new LinkedHashMap<>();
+            for (ParseFailure failure : ParseFailure.values()) {
+                failures.put(failure.name(), typeStats.failures[failure.ordinal()].sum());
+            }
+
+            Map<String, Object> typeReport = new LinkedHashMap<>();
+            typeReport.put("messages", typeStats.messages.sum());
+            typeReport.put("seatMessages", typeStats.seatMessages.sum());
+            typeReport.put("bytes", typeStats.bytes.sum());
+            typeReport.put("messageBytes", ReportExporter.histogram(typeStats.messageBytes));
+            typeReport.put("interArrivalMillis", ReportExporter.histogram(typeStats.interArrivalMillis));
+            typeReport.put("changedSeatsPerMessage", ReportExporter.histogram(typeStats.changesPerMessage));
+            typeReport.put("coalescedMessages", typeStats.coalescedMessages.sum());
+            typeReport.put("unchangedMessages", typeStats.unchangedMessages.sum());
+            typeReport.put("parseFailures", failures);
+            report.put(type.name(), typeReport);
+        }
+
+        ReportExporter.writeJson("stream-telemetry.json", report);
+    }
+}
@@ -0,0 +1,96 @@
+package simulations.booking.metrics;
+
+import simulations.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 예약 권한 대기열 지표
+ *
+ * 권한을 얻은 유저의 대기 시간과 폴링 횟수, 시간 초과로 포기한 유저 수를 집계한다.
+ * 권한 확인 요청은 초 단위로 세어 대기열이 권한 확인 API에 주는 초당 요청 수의 평균과 최대를 보고한다.
+ */
+public final class WaitingRoomStats {
+
+    private static final int MAX_SECONDS = 86_400;
+
+    private static final LatencyHistogram timeInQueueMillis = new LatencyHistogram();
+    private static final LatencyHistogram pollsPerAdmittedUser = new LatencyHistogram();
+    private static final LatencyHistogram pollDelayMillis = new LatencyHistogram();
+    private static final LongAdder admittedUsers = new LongAdder();
+    private static final LongAdder timedOutUsers = new LongAdder();
+    private static final LongAdder queuedPolls = new LongAdder();
+    private static final LongAdder failedPolls = new LongAdder();
+    private static final LongAdder serverHintedDelays = new LongAdder();
+    private static final AtomicLong startMillis = new AtomicLong(0);
+    private static final AtomicLongArray pollsPerSecond = new AtomicLongArray(MAX_SECONDS);
+
+    private WaitingRoomStats() {
+    }
+
+    /**
+     * @param admitted 권한을 얻은 응답인지 여부
+     * @param queued   대기 중 응답인지 여부 (admitted와 queued가 모두 false면 실패 응답)
+     */
+    public static void recordPoll(boolean admitted, boolean queued) {
+        long now = System.currentTimeMillis();
+        startMillis.compareAndSet(0, now);
+        int second = (int) Math.min((now - startMillis.get()) / 1000, MAX_SECONDS - 1);
+        pollsPerSecond.incrementAndGet(second);
+
+        if (!admitted) {
+            (queued ? queuedPolls : failedPolls).increment();
+        }
+    }
+
+    public static void recordPollDelay(long millis, boolean serverHinted) {
+        pollDelayMillis.record(millis);
+        if (serverHinted) {
+            serverHintedDelays.increment();
+        }
+    }
+
+    public static void recordAdmitted(long waitedMillis, int polls) {
+        admittedUsers.increment();
+        timeInQueueMillis.record(waitedMillis);
+        pollsPerAdmittedUser.record(polls);
+    }
+
+    public static void recordTimedOut() {
+        timedOutUsers.increment();
+    }
+
+    public static void printReport() {
+        if (startMillis.get() == 0) {
+            return;
+        }
+
+        long totalPolls = 0;
+        long peakPolls = 0;
+        int peakSecond = 0;
+        int lastActiveSecond = 0;
+        for (int second = 0; second < MAX_SECONDS; second++) {
+            long polls = pollsPerSecond.get(second);
+            if (polls == 0) {
+                continue;
+            }
+            totalPolls += polls;
+            lastActiveSecond = second;
+            if (polls > peakPolls) {
+                peakPolls = polls;
+                peakSecond = second;
+            }
+        }
+
+        System.out.println("=== 예약 권한 대기열 ===");
+        System.out.println("  권한 획득 유저: " + admittedUsers.sum() + ", 시간 초과 유저: " + timedOutUsers.sum());
+        System.out.println("  대기 시간: " + timeInQueueMillis.summary() + " ms");
+        System.out.println("  유저당 폴링: " + pollsPerAdmittedUser.summary());
+        System.out.println("  폴링 간격: " + pollDelayMillis.summary() + " ms (서버 지정 " + serverHintedDelays.sum() + ")");
+        System.out.println("  권한 확인 요청: " + totalPolls + " (대기 " + queuedPolls.sum() + ", 실패 " + failedPolls.sum() + ")");
+        System.out.printf("  권한 확인 요청률: 평균 %.1f req/s, 최대 %d req/s (%d초)%n",
+                (double) totalPolls / (lastActiveSecond + 1), peakPolls, peakSecond);
+    }
+}
@@ -0,0 +1,95 @@
+package simulations.booking.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static simulations.config.Config.SUBSCRIPTION_TYPE;
+
+/**
+ * 관람 유저의 구독 수와 수신 메시지 수를 시간 구간별로 집계한다.
+ *
+ * 구간마다 동시 구독 수의 최대값과 수신 메시지 수를 함께 남겨,
+ * 구독자가 늘어날 때 구독자 1명이 실제로 받는 메시지 속도가 어떻게 변하는지 볼 수 있다.
+ */
+public final class WatcherStats {
+
+    private static final int BUCKET_SECONDS = 10;
+    private static final int MAX_BUCKETS = 8640;
+
+    private static final AtomicLong startMillis = new AtomicLong(0);
+    private static final AtomicInteger activeWatchers = new AtomicInteger(0);
+    private static final LongAdder connectedWatchers = new LongAdder();
+    private static final LongAdder totalMessages = new LongAdder();
+    private static final LongAdder saturatedDrains = new LongAdder();
+    private static final AtomicLongArray bucketMessages = new AtomicLongArray(MAX_BUCKETS);
+    private static final AtomicLongArray bucketMaxWatchers = new AtomicLongArray(MAX_BUCKETS);
+
+    private WatcherStats() {
+    }
+
+    public static void subscribed() {
+        startMillis.compareAndSet(0, System.currentTimeMillis());
+        connectedWatchers.increment();
+        int active = activeWatchers.incrementAndGet();
+        int bucket = currentBucket();
+        if (bucket >= 0) {
+            bucketMaxWatchers.accumulateAndGet(bucket, active, Math::max);
+        }
+    }
+
+    public static void unsubscribed() {
+        activeWatchers.decrementAndGet();
+    }
+
+    public static int activeWatchers() {
+        return activeWatchers.get();
+    }
+
+    /**
+     * @param saturated 버퍼가 가득 찬 채 비웠는지 여부. 가득 찼다면 오래된 메시지가 버려져 count는 실제 수신 수보다 작다.
+     */
+    public static void recordMessages(int count, boolean saturated) {
+        totalMessages.add(count);
+        if (saturated) {
+            saturatedDrains.increment();
+        }
+        int bucket = currentBucket();
+        if (bucket >= 0) {
+            bucketMessages.addAndGet(bucket, count);
+            bucketMaxWatchers.accumulateAndGet(bucket, activeWatchers.get(), Math::max);
+        }
+    }
+
+    private static int currentBucket() {
+        long start = startMillis.get();
+        if (start == 0) {
+            return -1;
+        }
+        long bucket = (System.currentTimeMillis() - start) / 1000 / BUCKET_SECONDS;
+        return bucket < MAX_BUCKETS ? (int) bucket : -1;
+    }
+
+    public static void printReport() {
+        System.out.println("=== 관람 유저 구독 결과 (" + SUBSCRIPTION_TYPE.name() + ") ===");
+        System.out.println("  연결된 관람 유저: " + connectedWatchers.sum());
+        System.out.println("  수신 메시지: " + totalMessages.sum());
+        if (saturatedDrains.sum() > 0) {
+            System.out.println("  버퍼가 가득 찬 비우기: " + saturatedDrains.sum()
+                    + "회 (메시지 수는 하한값, WATCHER_MESSAGE_BUFFER_SIZE를 늘리거나 비우기 주기를 줄일 것)");
+        }
+        System.out.println("  구간(" + BUCKET_SECONDS + "초)별 동시 구독 수 / 수신 메시지 / 구독자당 초당 메시지");
+
+        for (int i = 0; i < MAX_BUCKETS; i++) {
+            long watchers = bucketMaxWatchers.get(i);
+            long messages = bucketMessages.get(i);
+            if (watchers == 0 && messages == 0) {
+                continue;
+            }
+            double perWatcherRate = watchers == 0 ? 0.0 : messages / (double) watchers / BUCKET_SECONDS;
+            System.out.printf("  %6ds: 구독 %7d  메시지 %9d  %.3f msg/s%n",
+                    i * BUCKET_SECONDS, watchers, messages, perWatcherRate);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package simulations.booking.scenario;
+
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import simulations.booking.metrics.BookingHoldStats;
+import simulations.booking.metrics.CapacityMonitor;
+import simulations.booking.metrics.RetryStats;
+import simulations.booking.metrics.SectionContention;
+import simulations.booking.metrics.WaitingRoomStats;
+import simulations.booking.subscription.SubscriptionHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static simulations.config.Config.Capacity.*;
+import static simulations.config.Config.TARGET_EVENT;
+
+/**
+ * 처리량 한계 탐색 시나리오
+ *
+ * 동적 예매 흐름의 도착률을 단계적으로 올리면서 단계마다 SLO를 평가한다.
+ * 처음으로 SLO를 위반한 단계에서 부하 생성을 멈추고, 직전 단계를 최대 지속 가능 처리량으로 보고한다.
+ */
+public class CapacitySearchScenario implements ScenarioExecutor {
+
+    @Override
+    public PopulationBuilder[] build(SubscriptionHandler subscription) {
+        ScenarioBuilder scn = scenario("이벤트=" + TARGET_EVENT + " 처리량 한계 탐색 시나리오")
+                .exec(session -> {
+                    CapacityMonitor.markStarted();
+                    return session;
+                })
+                .exec(stopLoadGeneratorIf(
+                        session -> CapacityMonitor.kneeMessage(),
+                        session -> CapacityMonitor.isKneeFound()
+                ))
+                .exec(DynamicScenario.bookingFlow(subscription));
+
+        return new PopulationBuilder[]{
+                scn.injectOpen(injectionSteps())
+        };
+    }
+
+    private static List<OpenInjectionStep> injectionSteps() {
+        List<OpenInjectionStep> steps = new ArrayList<>();
+        Duration stepDuration = Duration.ofSeconds(STEP_DURATION_SECONDS);
+        Duration rampDuration = Duration.ofSeconds(RAMP_DURATION_SECONDS);
+
+        for (int i = 0; i < MAX_STEPS; i++) {
+            double rate = CapacityMonitor.usersPerSecOf(i);
+            if (i > 0 && RAMP_DURATION_SECONDS > 0) {
+                steps.add(rampUsersPerSec(CapacityMonitor.usersPerSecOf(i - 1)).to(rate).during(rampDuration));
+            }
+            steps.add(constantUsersPerSec(rate).during(stepDuration));
+        }
+        return steps;
+    }
+
+    /**
+     * 모든 단계를 끝까지 진행했을 때 주입되는 유저 수 (세션 캐시 대상 계정 수 산정용)
+     */
+    public static int expectedUserCount() {
+        double total = 0;
+        for (int i = 0; i < MAX_STEPS; i++) {
+            total += CapacityMonitor.usersPerSecOf(i) * STEP_DURATION_SECONDS;
+            if (i > 0) {
+                total += (CapacityMonitor.usersPerSecOf(i - 1) + CapacityMonitor.usersPerSecOf(i)) / 2 * RAMP_DURATION_SECONDS;
+            }
+        }
+        return (int) Math.ceil(total);
+    }
+
+    @Override
+    public void printInfo() {
+        System.out.println("=== 처리량 한계 탐색 시나리오 ===");
+        System.out.printf("  도착률: %.1f users/s 부터 단계당 +%.1f, 최대 %d단계%n",
+                START_USERS_PER_SEC, STEP_USERS_PER_SEC, MAX_STEPS);
+        System.out.println("  단계 유지: " + STEP_DURATION_SECONDS + "초, 램프: " + RAMP_DURATION_SECONDS + "초");
+        System.out.println("  SLO: p99<=" + SLO_P99_MILLIS + "ms, KO<=" + SLO_MAX_KO_RATIO + ", 충돌<=" + SLO_MAX_CONFLICT_RATIO);
+        System.out.println("  최대 주입 유저: " + expectedUserCount());
+    }
+
+    @Override
+    public void printResult() {
+        CapacityMonitor.printReport();
+        WaitingRoomStats.printReport();
+        BookingHoldStats.printReport();
+        RetryStats.printReport();
+        SectionContention.printReport();
+    }
+}
@@ -0,0 +1,152 @@
+package simulations.booking.scenario;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+import simulations.booking.core.BookingActions;
+import simulations.booking.core.PlanLoader.PlannedRequest;
+import simulations.booking.metrics.CollisionAlignmentStats;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static simulations.config.Config.COLLISION_GATE_SPIN_MICROS;
+
+/**
+ * 충돌 그룹 게이트
+ *
+ * 같은 충돌 그룹의 요청은 계획상 같은 time_ms를 갖지만 밀리초 단위 pause와 스케줄러 지터 때문에 수 ms에 걸쳐 흩어진다.
+ * 멤버마다 같은 nanoTime 마감 시각을 계산해 마감 SPIN_MICROS 전까지는 pause(Gatling 타이머)로 기다리고,
+ * 남은 구간만 최대 SPIN_MICROS 스핀한 뒤 풀어 준다. 이벤트 루프 스레드는 여러 가상 유저가 함께 쓰므로 스핀을 길게 잡으면
+ * 같은 루프의 멤버가 차례로 풀려 오히려 출발이 흩어진다. 타이머가 더 일찍 깨우면 기다리지 않고 바로 풀어 준다.
+ * 모든 멤버가 같은 기준(클래스 초기화 시점의 nanoTime/currentTimeMillis 쌍)으로 마감 시각을 환산하므로 별도 동기화가 필요 없다.
+ * 게이트 출발 시각과 별개로 요청 직전 시각(stampBookingSent)의 그룹 내 간격도 모아 실제로 달성한 동시성을 보고한다.
+ */
+final class CollisionBurstGate {
+
+    static final String GATE_ID_KEY = "collisionGateId";
+    static final String DEADLINE_KEY = "collisionGateDeadlineNanos";
+
+    private static final long ANCHOR_NANOS = System.nanoTime();
+    private static final long ANCHOR_MILLIS = System.currentTimeMillis();
+    private static final long SPIN_NANOS = COLLISION_GATE_SPIN_MICROS * 1000L;
+
+    private static final class Gate {
+        final int members;
+        final AtomicInteger released = new AtomicInteger(0);
+        final AtomicInteger sent = new AtomicInteger(0);
+        final LongAccumulator firstRelease = new LongAccumulator(Long::min, Long.MAX_VALUE);
+        final LongAccumulator lastRelease = new LongAccumulator(Long::max, Long.MIN_VALUE);
+        final LongAccumulator firstSend = new LongAccumulator(Long::min, Long.MAX_VALUE);
+        final LongAccumulator lastSend = new LongAccumulator(Long::max, Long.MIN_VALUE);
+
+        Gate(int members) {
+            this.members = members;
+        }
+    }
+
+    private static final Map<String, Gate> gates = new HashMap<>();
+    private static boolean initialized = false;
+
+    private CollisionBurstGate() {
+    }
+
+    /**
+     * 유저 계획에 있는 충돌 그룹 멤버 수를 세어 멤버가 둘 이상인 그룹에만 게이트를 만든다.
+     */
+    static synchronized void initialize(Map<Integer, List<PlannedRequest>> userPlans, Map<String, String> requestToCollision) {
+        if (initialized) {
+            return;
+        }
+
+        Map<String, Integer> memberCounts = new HashMap<>();
+        for (List<PlannedRequest> requests : userPlans.values()) {
+            for (PlannedRequest request : requests) {
+                String collisionId = requestToCollision.get(request.id);
+                if (collisionId != null && request.isBook()) {
+                    memberCounts.merge(collisionId, 1, Integer::sum);
+                }
+            }
+        }
+        memberCounts.forEach((collisionId, members) -> {
+            if (members > 1) {
+                gates.put(collisionId, new Gate(members));
+            }
+        });
+        initialized = true;
+    }
+
+    static boolean isGated(String collisionId) {
+        return collisionId != null && gates.containsKey(collisionId);
+    }
+
+    static int gatedGroupCount() {
+        return gates.size();
+    }
+
+    static long deadlineNanos(long targetMillis) {
+        return ANCHOR_NANOS + (targetMillis - ANCHOR_MILLIS) * 1_000_000L;
+    }
+
+    /**
+     * 세션에 게이트가 지정되어 있으면 마감 SPIN_MICROS 전까지 pause한 뒤 남은 구간을 짧게 스핀하고 출발 시각을 기록한다.
+     * 게이트 지정은 recordSend()가 지운다.
+     */
+    static ChainBuilder await() {
+        return doIf(session -> session.get(GATE_ID_KEY) != null).then(
+                pause(session -> {
+                    long remaining = session.getLong(DEADLINE_KEY) - System.nanoTime() - SPIN_NANOS;
+                    return Duration.ofNanos(Math.max(0, remaining));
+                }),
+                exec(session -> {
+                    release(session.getString(GATE_ID_KEY), session.getLong(DEADLINE_KEY));
+                    return session;
+                })
+        );
+    }
+
+    /**
+     * stampBookingSent 직후에 호출해 게이트를 거친 요청의 전송 직전 시각을 그룹별로 모으고 게이트 지정을 지운다.
+     */
+    static ChainBuilder recordSend() {
+        return doIf(session -> session.get(GATE_ID_KEY) != null).then(
+                exec(CollisionBurstGate::markSent)
+        );
+    }
+
+    private static Session markSent(Session session) {
+        long sentNanos = BookingActions.bookingSentNanos(session);
+        Gate gate = gates.get(session.getString(GATE_ID_KEY));
+        if (sentNanos >= 0) {
+            gate.firstSend.accumulate(sentNanos);
+            gate.lastSend.accumulate(sentNanos);
+            if (gate.sent.incrementAndGet() == gate.members) {
+                CollisionAlignmentStats.recordGroupSendSpread(gate.lastSend.get() - gate.firstSend.get());
+            }
+        }
+        return session.set(GATE_ID_KEY, null);
+    }
+
+    private static void release(String collisionId, long deadline) {
+        long now = System.nanoTime();
+        boolean arrivedLate = now > deadline;
+        // 타이머가 SPIN_MICROS보다 일찍 깨웠으면 이벤트 루프를 오래 막지 않도록 스핀 상한에서 멈춘다.
+        long spinUntil = Math.min(deadline, now + SPIN_NANOS);
+        while ((now = System.nanoTime()) < spinUntil) {
+            Thread.onSpinWait();
+        }
+
+        CollisionAlignmentStats.recordRelease(now - deadline, arrivedLate);
+
+        Gate gate = gates.get(collisionId);
+        gate.firstRelease.accumulate(now);
+        gate.lastRelease.accumulate(now);
+        if (gate.released.incrementAndGet() == gate.members) {
+            CollisionAlignmentStats.recordGroupSpread(gate.lastRelease.get() - gate.firstRelease.get());
+        }
+    }
+}
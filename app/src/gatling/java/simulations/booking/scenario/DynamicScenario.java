@@ -1,8 +1,14 @@
 package simulations.booking.scenario;
 
+import io.gatling.javaapi.core.ChainBuilder;
 import io.gatling.javaapi.core.PopulationBuilder;
 import io.gatling.javaapi.core.ScenarioBuilder;
 import simulations.booking.core.BookingActions;
+import simulations.booking.core.WaitingRoom;
+import simulations.booking.metrics.BookingHoldStats;
+import simulations.booking.metrics.RetryStats;
+import simulations.booking.metrics.SectionContention;
+import simulations.booking.metrics.WaitingRoomStats;
 import simulations.booking.subscription.SubscriptionHandler;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
@@ -20,7 +26,21 @@ public class DynamicScenario implements ScenarioExecutor {
     @Override
     public PopulationBuilder[] build(SubscriptionHandler subscription) {
         ScenarioBuilder scn = scenario("이벤트=" + TARGET_EVENT + " 동적 예매 시나리오")
-                .exec(BookingActions.setStaggeredLogin())
+                .exec(bookingFlow(subscription));
+        
+        InjectionProfile profile = InjectionProfile.fromConfig();
+        return new PopulationBuilder[] {
+                profile.isEmpty()
+                        ? scn.injectOpen(atOnceUsers(DYNAMIC_USER_COUNT))
+                        : scn.injectOpen(profile.openSteps())
+        };
+    }
+
+    /**
+     * 로그인부터 좌석 점유, 구독 종료까지 한 유저의 동적 예매 흐름
+     */
+    static ChainBuilder bookingFlow(SubscriptionHandler subscription) {
+        return exec(BookingActions.setStaggeredLogin())
                 .exec(BookingActions.waitBeforeStaggeredLogin())
                 .exec(BookingActions.setUpUserNum())
                 .exec(BookingActions.loginOrSetCookie())
@@ -29,7 +49,7 @@ public class DynamicScenario implements ScenarioExecutor {
 
                 .exec(BookingActions.waitBetweenActions())
 
-                .exec(BookingActions.checkPermission()).exitHereIfFailed()
+                .exec(WaitingRoom.waitForPermission())
                 .pause(session -> BookingActions.beforeBookingAmountSetDelay())
                 .exec(BookingActions.setBookingAmount())
                 .exec(BookingActions.subscribeSeats(subscription))
@@ -40,18 +60,31 @@ public class DynamicScenario implements ScenarioExecutor {
                 .exec(BookingActions.waitBetweenActions())
                 .exec(BookingActions.confirmReservation(true))
 
-                .exec(subscription.close());
-        
-        return new PopulationBuilder[] {
-                scn.injectOpen(atOnceUsers(DYNAMIC_USER_COUNT))
-        };
+                .exec(BookingActions.closeSubscription(subscription));
     }
     
     @Override
     public void printInfo() {
         System.out.println("=== Dynamic 시나리오 ===");
-        System.out.println("  유저 수: " + DYNAMIC_USER_COUNT);
+        InjectionProfile profile = InjectionProfile.fromConfig();
+        System.out.println("  유저 수: " + (profile.isEmpty() ? DYNAMIC_USER_COUNT : "도착 프로필 기대값 " + Math.round(profile.expectedUsers())));
+        System.out.println("  도착 프로필: " + profile.describe());
         System.out.println("  예매 수량: " + (FIXED_BOOKING_AMOUNT >= 0 ? FIXED_BOOKING_AMOUNT : "랜덤(1~4)"));
+        System.out.println("  권한 대기열: " + (ENABLE_WAITING_ROOM
+                ? "폴링 " + WAITING_ROOM_POLL_INTERVAL_MILLIS + "ms ±" + Math.round(WAITING_ROOM_POLL_JITTER * 100) + "%, 제한 " + WAITING_ROOM_TIMEOUT_SECONDS + "초"
+                : "연속 확인 10회"));
         System.out.println("  최대 재시도: " + MAX_RETRY_IN_BOOKING_CONFLICT);
+        System.out.println("  좌석 점유 방식: " + (ENABLE_PIPELINED_BOOKING ? "동시 (최대 " + MAX_PIPELINED_SEATS + "석)" : "순차"));
+        System.out.println("  재시도 정책: " + (ENABLE_ADAPTIVE_RETRY
+                ? "백오프 " + RETRY_BACKOFF_BASE_MILLIS + "~" + RETRY_BACKOFF_MAX_MILLIS + "ms, 유저당 예산 " + RETRY_BUDGET_PER_USER + "회, 경합 기반 섹션 선택"
+                : "고정 지연, 무작위 섹션"));
+    }
+
+    @Override
+    public void printResult() {
+        WaitingRoomStats.printReport();
+        BookingHoldStats.printReport();
+        RetryStats.printReport();
+        SectionContention.printReport();
     }
 }
@@ -0,0 +1,292 @@
+package simulations.booking.scenario;
+
+import io.gatling.javaapi.core.OpenInjectionStep;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static simulations.config.Config.INJECTION_PROFILE;
+
+/**
+ * 개방형(open-model) 도착 프로필
+ *
+ * 구간을 순서대로 이어 붙여 유저 도착률을 정의한다. 구간 문법 (rate: users/s, 시간: 초 또는 s/m 접미사)
+ * <pre>
+ *   constant(rate, duration)              고정 도착률
+ *   ramp(fromRate, toRate, duration)      선형 증가/감소
+ *   ticketOpen(peakRate, tau, duration)   오픈 순간 peakRate로 몰린 뒤 시정수 tau로 지수 감쇠
+ *   poisson(rate, duration)               평균 rate의 포아송 도착
+ * </pre>
+ * 예: {@code ticketOpen(500, 20s, 5m); poisson(5, 30m)}
+ */
+public final class InjectionProfile {
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("(\\w+)\\s*\\(([^)]*)\\)");
+
+    private sealed interface Segment permits Constant, Ramp, TicketOpen, Poisson {
+        int seconds();
+
+        /**
+         * 구간 시작부터 t초까지의 누적 기대 도착 수
+         */
+        double cumulativeUsers(double t);
+
+        List<OpenInjectionStep> openSteps();
+    }
+
+    private record Constant(double rate, int seconds) implements Segment {
+        public double cumulativeUsers(double t) {
+            return rate * t;
+        }
+
+        public List<OpenInjectionStep> openSteps() {
+            return List.of(constantUsersPerSec(rate).during(Duration.ofSeconds(seconds)));
+        }
+    }
+
+    private record Ramp(double fromRate, double toRate, int seconds) implements Segment {
+        public double cumulativeUsers(double t) {
+            return fromRate * t + (toRate - fromRate) * t * t / (2.0 * seconds);
+        }
+
+        public List<OpenInjectionStep> openSteps() {
+            return List.of(rampUsersPerSec(fromRate).to(toRate).during(Duration.ofSeconds(seconds)));
+        }
+    }
+
+    private record TicketOpen(double peakRate, double tauSeconds, int seconds) implements Segment {
+        public double cumulativeUsers(double t) {
+            return peakRate * tauSeconds * (1.0 - Math.exp(-t / tauSeconds));
+        }
+
+        // 1초 단위로 잘라 각 구간의 평균 도착률을 고정 도착률로 주입한다.
+        public List<OpenInjectionStep> openSteps() {
+            List<OpenInjectionStep> steps = new ArrayList<>(seconds);
+            for (int s = 0; s < seconds; s++) {
+                double rate = cumulativeUsers(s + 1) - cumulativeUsers(s);
+                steps.add(constantUsersPerSec(rate).during(Duration.ofSeconds(1)));
+            }
+            return steps;
+        }
+    }
+
+    private record Poisson(double rate, int seconds) implements Segment {
+        public double cumulativeUsers(double t) {
+            return rate * t;
+        }
+
+        public List<OpenInjectionStep> openSteps() {
+            return List.of(constantUsersPerSec(rate).during(Duration.ofSeconds(seconds)).randomized());
+        }
+    }
+
+    private final List<Segment> segments;
+    private final String spec;
+
+    private InjectionProfile(List<Segment> segments, String spec) {
+        this.segments = segments;
+        this.spec = spec;
+    }
+
+    public static InjectionProfile fromConfig() {
+        return parse(INJECTION_PROFILE);
+    }
+
+    public static InjectionProfile parse(String spec) {
+        List<Segment> segments = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return new InjectionProfile(segments, "");
+        }
+
+        Matcher matcher = SEGMENT_PATTERN.matcher(spec);
+        int consumed = 0;
+        while (matcher.find()) {
+            String between = spec.substring(consumed, matcher.start());
+            if (!between.replace(";", "").isBlank()) {
+                throw new IllegalArgumentException("도착 프로필 문법 오류: " + between.trim());
+            }
+            segments.add(parseSegment(matcher.group(1), matcher.group(2).split(",")));
+            consumed = matcher.end();
+        }
+        if (!spec.substring(consumed).replace(";", "").isBlank()) {
+            throw new IllegalArgumentException("도착 프로필 문법 오류: " + spec.substring(consumed).trim());
+        }
+
+        return new InjectionProfile(segments, spec.trim());
+    }
+
+    private static Segment parseSegment(String name, String[] args) {
+        int expectedArgs = switch (name) {
+            case "constant", "poisson" -> 2;
+            case "ramp", "ticketOpen" -> 3;
+            default -> throw new IllegalArgumentException("알 수 없는 도착 프로필 구간: " + name);
+        };
+        if (args.length != expectedArgs) {
+            throw new IllegalArgumentException(name + " 구간은 인자 " + expectedArgs + "개가 필요합니다: " + Arrays.toString(args));
+        }
+
+        return switch (name) {
+            case "constant" -> new Constant(parseRate(args[0]), parseSeconds(args[1]));
+            case "poisson" -> new Poisson(parseRate(args[0]), parseSeconds(args[1]));
+            case "ramp" -> new Ramp(parseRate(args[0]), parseRate(args[1]), parseSeconds(args[2]));
+            default -> new TicketOpen(parseRate(args[0]), parseSeconds(args[1]), parseSeconds(args[2]));
+        };
+    }
+
+    private static double parseRate(String raw) {
+        double rate = Double.parseDouble(raw.trim());
+        if (rate < 0) {
+            throw new IllegalArgumentException("도착률은 0 이상이어야 합니다: " + raw);
+        }
+        return rate;
+    }
+
+    private static int parseSeconds(String raw) {
+        String value = raw.trim();
+        int multiplier = 1;
+        if (value.endsWith("m")) {
+            multiplier = 60;
+            value = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("s")) {
+            value = value.substring(0, value.length() - 1);
+        }
+
+        int seconds = Integer.parseInt(value.trim()) * multiplier;
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("구간 길이는 0보다 커야 합니다: " + raw);
+        }
+        return seconds;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public double expectedUsers() {
+        return segments.stream()
+                .mapToDouble(segment -> segment.cumulativeUsers(segment.seconds()))
+                .sum();
+    }
+
+    /**
+     * openSteps()로 주입될 유저 수의 상한 추정
+     *
+     * 고정 도착률 구간은 주입 단계마다 반올림 1명을 더하고, 포아송 구간은 기대값에 표준편차의 4배를 더한다.
+     */
+    public int maxUsers() {
+        double bound = 0;
+        for (Segment segment : segments) {
+            double expected = segment.cumulativeUsers(segment.seconds());
+            bound += expected + segment.openSteps().size();
+            if (segment instanceof Poisson) {
+                bound += 4 * Math.sqrt(expected);
+            }
+        }
+        return (int) Math.ceil(bound);
+    }
+
+    public int totalSeconds() {
+        return segments.stream().mapToInt(Segment::seconds).sum();
+    }
+
+    /**
+     * 프로필이 정의한 도착률 그대로 주입한다. 주입 유저 수는 기대값 주변에서 달라질 수 있다.
+     */
+    public List<OpenInjectionStep> openSteps() {
+        List<OpenInjectionStep> steps = new ArrayList<>();
+        for (Segment segment : segments) {
+            steps.addAll(segment.openSteps());
+        }
+        return steps;
+    }
+
+    /**
+     * 프로필의 모양은 유지하면서 정확히 totalUsers명을 주입하도록 도착률을 비례 조정한다.
+     *
+     * rendezVous로 전체 유저를 기다리는 계획 기반 시나리오처럼 유저 수가 정확해야 할 때 사용한다.
+     * 1초 단위 구간마다 정수 유저 수를 배분하고, 포아송 구간은 도착 시각을 균등 추출해 배분한다.
+     */
+    public List<OpenInjectionStep> stepsForExactUsers(int totalUsers) {
+        double expected = expectedUsers();
+        if (expected <= 0) {
+            throw new IllegalArgumentException("도착 프로필의 기대 유저 수가 0입니다.");
+        }
+
+        double scale = totalUsers / expected;
+        int totalSeconds = totalSeconds();
+        double[] cumulative = new double[totalSeconds + 1];
+        boolean[] poissonSecond = new boolean[totalSeconds];
+
+        int offset = 0;
+        double base = 0;
+        for (Segment segment : segments) {
+            for (int s = 1; s <= segment.seconds(); s++) {
+                cumulative[offset + s] = base + segment.cumulativeUsers(s) * scale;
+                poissonSecond[offset + s - 1] = segment instanceof Poisson;
+            }
+            base = cumulative[offset + segment.seconds()];
+            offset += segment.seconds();
+        }
+
+        int[] counts = new int[totalSeconds];
+        int assigned = 0;
+        for (int s = 0; s < totalSeconds; s++) {
+            int upTo = s == totalSeconds - 1 ? totalUsers : (int) Math.round(cumulative[s + 1]);
+            counts[s] = Math.max(0, upTo - assigned);
+            assigned += counts[s];
+        }
+        redistributePoissonArrivals(counts, poissonSecond);
+
+        List<OpenInjectionStep> steps = new ArrayList<>();
+        int idleSeconds = 0;
+        for (int count : counts) {
+            if (count == 0) {
+                idleSeconds++;
+                continue;
+            }
+            if (idleSeconds > 0) {
+                steps.add(nothingFor(Duration.ofSeconds(idleSeconds)));
+                idleSeconds = 0;
+            }
+            steps.add(rampUsers(count).during(Duration.ofSeconds(1)));
+        }
+        return steps;
+    }
+
+    // 연속된 포아송 구간의 유저 수는 유지하고, 각 유저의 도착 시각을 구간 안에서 균등하게 다시 뽑는다.
+    // 도착 수가 고정된 포아송 과정의 도착 시각은 균등 분포를 따른다.
+    private static void redistributePoissonArrivals(int[] counts, boolean[] poissonSecond) {
+        SplittableRandom random = new SplittableRandom();
+        int s = 0;
+        while (s < counts.length) {
+            if (!poissonSecond[s]) {
+                s++;
+                continue;
+            }
+
+            int start = s;
+            int users = 0;
+            while (s < counts.length && poissonSecond[s]) {
+                users += counts[s];
+                counts[s] = 0;
+                s++;
+            }
+            for (int u = 0; u < users; u++) {
+                counts[start + random.nextInt(s - start)]++;
+            }
+        }
+    }
+
+    public String describe() {
+        if (segments.isEmpty()) {
+            return "없음 (동시 주입)";
+        }
+        return String.format("%s (기대 유저 %.0f명, %d초)", spec, expectedUsers(), totalSeconds());
+    }
+}
@@ -6,15 +6,22 @@ import io.gatling.javaapi.core.ScenarioBuilder;
 import simulations.booking.core.BookingActions;
 import simulations.booking.core.PlanLoader;
 import simulations.booking.core.PlanLoader.PlannedRequest;
-import simulations.booking.core.PlanLoader.RequestType;
+import simulations.booking.core.RetryPolicy;
+import simulations.booking.core.SectionAffinity;
 import simulations.booking.core.SessionStore;
+import simulations.booking.core.SynthesizedPlanFeed;
+import simulations.booking.core.WaitingRoom;
+import simulations.booking.metrics.PlanReplayStats;
+import simulations.booking.metrics.WaitingRoomStats;
 import simulations.booking.subscription.SubscriptionHandler;
 import simulations.util.AsyncLogger;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
 import static io.gatling.javaapi.http.HttpDsl.*;
@@ -28,25 +35,55 @@ public class ParallelScenario implements ScenarioExecutor {
     private static final AtomicInteger requestCompletedCount = new AtomicInteger(0);
     private static final AtomicInteger requestFeederIndex = new AtomicInteger(0);
     private static final AtomicLong simulationStartTime = new AtomicLong(0);
+    private static final AtomicInteger finishedWorkerCount = new AtomicInteger(0);
+    private static final AtomicInteger skippedLoserRequestCount = new AtomicInteger(0);
+    private static CompletableFuture<Void> planReady;
+
+    // 합성 계획 큐가 잠시 비었을 때 디스패처가 다시 확인하기까지의 대기
+    private static final Duration FEED_POLL_INTERVAL = Duration.ofMillis(20);
 
     @Override
     public PopulationBuilder[] build(SubscriptionHandler subscription) {
-        PlanLoader.load();
+        // 요청 세션 수는 계획 헤더로 정하고, 계획 본문 로드와 시각순 색인은 로그인하는 동안 로더 스레드에서 진행한다.
+        planReady = PlanLoader.load().thenRun(() -> {
+            SectionAffinity.initialize(PlanLoader.getMaxUserId());
+            if (!PlanLoader.isSynthesized()) {
+                PlanLoader.initializeParallelData();
+                PlanReplayStats.initialize(PlanLoader.getUserPlans().values());
+            }
+        });
 
         if (!PlanLoader.isNoCollisionMode()) {
             System.out.println("경고: 병렬 모드는 no_collision 계획에 맞춰져 있습니다.");
         }
 
-        PlanLoader.initializeParallelData();
-
         int numUsers = PlanLoader.getNumUsers();
-        int totalRequests = PlanLoader.getTotalPlannedRequests();
+
+        PopulationBuilder requests;
+        BooleanSupplier requestsDone;
+        if (PlanLoader.isSynthesized()) {
+            // 요청 수를 미리 알 수 없으므로 요청마다 가상 유저를 두지 않고, 정해진 수의 디스패처가 큐에서 꺼내 보낸다.
+            requests = dispatcherScenario(numUsers, PARALLEL_DISPATCH_WORKERS)
+                    .injectOpen(atOnceUsers(PARALLEL_DISPATCH_WORKERS));
+            requestsDone = () -> planReady.isCompletedExceptionally()
+                    || finishedWorkerCount.get() >= PARALLEL_DISPATCH_WORKERS;
+        } else {
+            int totalRequests = PlanLoader.getTotalPlannedRequests();
+            requests = parallelRequestScenario(numUsers, totalRequests)
+                    .injectOpen(atOnceUsers(totalRequests));
+            requestsDone = () -> planReady.isCompletedExceptionally()
+                    || requestCompletedCount.get() >= totalRequests;
+        }
+
+        // 계획 로드가 실패하면 요청 세션이 waitForPlan에서 실행을 실패시키므로, 준비 세션도 완료 수를 기다리지 않고 끝낸다.
+        InjectionProfile profile = InjectionProfile.fromConfig();
+        ScenarioBuilder setupUsers = setupUsersScenario(subscription, numUsers, requestsDone);
 
         return new PopulationBuilder[]{
-                setupUsersScenario(subscription, numUsers, totalRequests)
-                        .injectOpen(atOnceUsers(numUsers)),
-                parallelRequestScenario(numUsers, totalRequests)
-                        .injectOpen(atOnceUsers(totalRequests))
+                profile.isEmpty()
+                        ? setupUsers.injectOpen(atOnceUsers(numUsers))
+                        : setupUsers.injectOpen(profile.stepsForExactUsers(numUsers)),
+                requests
         };
     }
 
@@ -57,19 +94,36 @@ public class ParallelScenario implements ScenarioExecutor {
 
         System.out.println("=== 병렬 시나리오 ===");
         System.out.println("  준비 세션: " + numUsers);
-        System.out.println("  요청 세션: " + totalRequests);
-        System.out.println("  전체 세션: " + (numUsers + totalRequests));
+        System.out.println("  준비 세션 도착 프로필: " + InjectionProfile.fromConfig().describe());
+        if (PlanLoader.isSynthesized()) {
+            System.out.println("  계획 출처: PlanConfig.json 합성 (디스패처 " + PARALLEL_DISPATCH_WORKERS + ", 큐 " + PLAN_FEED_CAPACITY + ")");
+            System.out.println("  전체 세션: " + (numUsers + PARALLEL_DISPATCH_WORKERS));
+        } else {
+            System.out.println("  요청 세션: " + totalRequests);
+            System.out.println("  전체 세션: " + (numUsers + totalRequests));
+        }
         System.out.println("  유저당 좌석: " + PlanLoader.getSeatsPerUser());
         System.out.println("  no_collision 모드: " + PlanLoader.isNoCollisionMode());
-        System.out.println("  섹션 전환 요청: " + PlanLoader.getTotalSectionMoveRequests());
+        System.out.println("  중복 섹션 전환 생략: " + ENABLE_SECTION_AFFINITY);
     }
 
-    private ScenarioBuilder setupUsersScenario(SubscriptionHandler subscription, int numUsers, int totalRequests) {
+    @Override
+    public void printResult() {
+        WaitingRoomStats.printReport();
+        if (PlanLoader.isSynthesized()) {
+            SynthesizedPlanFeed.printReport();
+            System.out.println("  건너뛴 충돌 대체 요청: " + skippedLoserRequestCount.get());
+        }
+        PlanReplayStats.printReport();
+        SectionAffinity.printReport();
+    }
+
+    private ScenarioBuilder setupUsersScenario(SubscriptionHandler subscription, int numUsers, BooleanSupplier requestsDone) {
         return scenario("유저 준비")
                 .exec(loginAndStoreSession(numUsers))
                 .exec(prepareAndSubscribe(subscription, numUsers))
-                .exec(waitForRequestsCompletion(totalRequests))
-                .exec(subscription.close());
+                .exec(waitForRequestsCompletion(requestsDone))
+                .exec(BookingActions.closeSubscription(subscription));
     }
 
     private ChainBuilder loginAndStoreSession(int numUsers) {
@@ -78,7 +132,7 @@ public class ParallelScenario implements ScenarioExecutor {
                 .exec(BookingActions.waitBeforeStaggeredLogin())
                 .exec(BookingActions.loginOrSetCookie())
                 .exec(session -> {
-                    if (!TEST_ACCOUNT_ALREADY_STORED) {
+                    if (!SessionStore.useStoredSessions()) {
                         int userNum = session.getInt("userNum");
                         String sessionId = session.getString("sessionId");
 
@@ -98,7 +152,7 @@ public class ParallelScenario implements ScenarioExecutor {
     }
 
     private ChainBuilder prepareAndSubscribe(SubscriptionHandler subscription, int numUsers) {
-        return tryMax(10).on(exec(BookingActions.checkPermission())).exitHereIfFailed()
+        return exec(WaitingRoom.waitForPermission())
                 .exec(BookingActions.setBookingAmount())
                 .exec(BookingActions.waitBeforeSubscribe())
                 .exec(BookingActions.subscribeSeats(subscription))
@@ -109,8 +163,8 @@ public class ParallelScenario implements ScenarioExecutor {
                 });
     }
 
-    private ChainBuilder waitForRequestsCompletion(int totalRequests) {
-        return asLongAs(session -> requestCompletedCount.get() < totalRequests)
+    private ChainBuilder waitForRequestsCompletion(BooleanSupplier requestsDone) {
+        return asLongAs(session -> !requestsDone.getAsBoolean())
                 .on(pause(Duration.ofMillis(500)))
                 .exec(session -> {
                     AsyncLogger.logf("유저 준비 %d: 종료", session.getInt("userNum"));
@@ -122,54 +176,94 @@ public class ParallelScenario implements ScenarioExecutor {
         return scenario("병렬 요청")
                 .exec(waitForSubscriptions(numUsers))
                 .exec(BookingActions.waitAfterSubscribe())
+                .exec(BookingActions.waitForPlan(planReady))
                 .exec(assignRequestToSession())
-                .doIf(session -> session.getBoolean("hasRequest")).then(
+                .doIf(session -> session.get("plannedRequest") != null).then(
+                        exec(synchronizeRequests(totalRequests)),
                         exec(executeTimedRequest(totalRequests))
                 );
     }
 
+    /**
+     * 합성 계획 디스패처. 모든 디스패처가 함께 출발한 뒤, 각자 큐에서 다음 요청을 꺼내 계획 시각에 보내기를 큐가 빌 때까지 반복한다.
+     * 충돌 대체 요청은 병렬 모드에서 보내지 않으므로 건너뛴다. 합성이 도중에 실패하면 잘린 계획으로 끝내지 않고 실행을 실패시킨다.
+     */
+    private ScenarioBuilder dispatcherScenario(int numUsers, int workers) {
+        return scenario("병렬 요청 디스패처")
+                .exec(waitForSubscriptions(numUsers))
+                .exec(BookingActions.waitAfterSubscribe())
+                .exec(BookingActions.waitForPlan(planReady))
+                .exec(synchronizeRequests(workers))
+                .asLongAs(session -> !SynthesizedPlanFeed.isExhausted()).on(
+                        exec(takeSynthesizedRequest()),
+                        doIfOrElse(session -> session.contains("plannedRequest")).then(
+                                exec(executeTimedRequest(0))
+                        ).orElse(
+                                pause(FEED_POLL_INTERVAL)
+                        )
+                )
+                .exec(crashLoadGeneratorIf(
+                        session -> SynthesizedPlanFeed.failureMessage(),
+                        session -> SynthesizedPlanFeed.hasFailed()
+                ))
+                .exec(session -> {
+                    finishedWorkerCount.incrementAndGet();
+                    return session;
+                });
+    }
+
+    private ChainBuilder takeSynthesizedRequest() {
+        return exec(session -> {
+            PlannedRequest req = SynthesizedPlanFeed.poll();
+            while (req != null && req.isCollisionLoser()) {
+                skippedLoserRequestCount.incrementAndGet();
+                req = SynthesizedPlanFeed.poll();
+            }
+            if (req == null) {
+                return session.remove("plannedRequest");
+            }
+
+            PlanReplayStats.recordPlanned(req.timeMs);
+            return session
+                    .set("plannedRequest", req)
+                    .set("sessionId", sharedSessionOf(req));
+        });
+    }
+
     private ChainBuilder waitForSubscriptions(int numUsers) {
         return asLongAs(session -> subscribeCompletedCount.get() < numUsers)
                 .on(pause(Duration.ofMillis(100)));
     }
 
     private ChainBuilder assignRequestToSession() {
-        List<PlannedRequest> allRequests = PlanLoader.getAllRequestsSorted();
-        int[] userIds = PlanLoader.getRequestUserIds();
-
         return exec(session -> {
+            List<PlannedRequest> allRequests = PlanLoader.getAllRequestsSorted();
             int idx = requestFeederIndex.getAndIncrement();
             if (idx >= allRequests.size()) {
                 AsyncLogger.logf("요청 인덱스 초과: %d", idx);
-                return session.set("hasRequest", false);
+                return session;
             }
 
             PlannedRequest req = allRequests.get(idx);
-            int userId = userIds[idx];
-            String sessionId = SessionStore.getSharedSession(userId);
-
-            if (sessionId == null || sessionId.isEmpty()) {
-                AsyncLogger.logf("요청 [%s]: User%d 저장 세션 없음", req.id, userId);
-                sessionId = "";
-            }
 
+            // 요청 필드를 키마다 복사하지 않고 공유 계획의 요청 객체를 그대로 둔다.
             return session
-                    .set("hasRequest", true)
-                    .set("reqUserId", userId)
-                    .set("reqId", req.id)
-                    .set("reqType", req.type.name())
-                    .set("reqTimeMs", req.timeMs)
-                    .set("reqSection", req.section)
-                    .set("reqTargetSection", req.targetSection)
-                    .set("reqSeat", req.seat)
-                    .set("reqBody", req.requestBody)
-                    .set("sessionId", sessionId);
+                    .set("plannedRequest", req)
+                    .set("sessionId", sharedSessionOf(req));
         });
     }
 
+    private static String sharedSessionOf(PlannedRequest req) {
+        String sessionId = SessionStore.getSharedSession(req.userId);
+        if (sessionId == null || sessionId.isEmpty()) {
+            AsyncLogger.logf("요청 [%s]: User%d 저장 세션 없음", req.id, req.userId);
+            return "";
+        }
+        return sessionId;
+    }
+
     private ChainBuilder executeTimedRequest(int totalRequests) {
         return exec(addCookie(Cookie("SID", "#{sessionId}").withPath("/")))
-                .exec(synchronizeRequests(totalRequests))
                 .exec(waitUntilScheduledTime())
                 .exec(logRequestStart())
                 .exec(session -> session
@@ -192,51 +286,54 @@ public class ParallelScenario implements ScenarioExecutor {
                 .exec(rendezVous(totalRequests))
                 .exec(session -> {
                     simulationStartTime.compareAndSet(0, System.currentTimeMillis());
-                    return session.set("simStartTime", simulationStartTime.get());
+                    return session;
                 });
     }
 
     private ChainBuilder waitUntilScheduledTime() {
-        return exec(session -> {
-            long simStartTime = session.getLong("simStartTime");
-            long reqTimeMs = session.getLong("reqTimeMs");
-            long targetTime = simStartTime + reqTimeMs;
-            long waitTime = Math.max(0, targetTime - System.currentTimeMillis());
-            return session.set("waitTimeMs", waitTime);
-        })
-                .pause(session -> Duration.ofMillis(session.getLong("waitTimeMs")));
+        return pause(session -> {
+            long targetTime = simulationStartTime.get() + session.<PlannedRequest>get("plannedRequest").timeMs;
+            return Duration.ofMillis(Math.max(0, targetTime - System.currentTimeMillis()));
+        });
     }
 
     private ChainBuilder logRequestStart() {
         return exec(session -> {
-            long actualTime = System.currentTimeMillis() - session.getLong("simStartTime");
+            PlannedRequest req = session.get("plannedRequest");
+            long actualTime = System.currentTimeMillis() - simulationStartTime.get();
+            PlanReplayStats.recordDispatch(req.timeMs, actualTime);
             AsyncLogger.logf(
                     "요청 시작 [%s] User%d type=%s planned=%dms actual=%dms delta=%dms",
-                    session.getString("reqId"),
-                    session.getInt("reqUserId"),
-                    session.getString("reqType"),
-                    session.getLong("reqTimeMs"),
+                    req.id,
+                    req.userId,
+                    req.type,
+                    req.timeMs,
                     actualTime,
-                    actualTime - session.getLong("reqTimeMs")
+                    actualTime - req.timeMs
             );
             return session;
         });
     }
 
     private ChainBuilder sendPlannedRequest() {
-        return tryMax(10).on(
-                doIf(session -> RequestType.SECTION_MOVE.name().equals(session.getString("reqType"))).then(
+        return tryMax(10, RetryPolicy.ATTEMPT_COUNTER).on(
+                doIf(session -> session.<PlannedRequest>get("plannedRequest").isSectionMove()).then(
                         exec(BookingActions.switchToReqTargetSection())
                 ),
-                doIf(session -> RequestType.BOOK.name().equals(session.getString("reqType"))).then(
+                doIf(session -> session.<PlannedRequest>get("plannedRequest").isBook()).then(
                         exec(BookingActions.switchToReqSection()),
+                        exec(BookingActions::stampBookingSent),
                         exec(
                                 http("계획 좌석 점유")
                                         .post("/booking")
-                                        .body(StringBody("#{reqBody}"))
+                                        .body(StringBody(session -> session.<PlannedRequest>get("plannedRequest").requestBody))
                                         .check(
                                                 status().saveAs("responseStatus"),
-                                                status().in(200, 201),
+                                                status().transformWithSession((status, session) -> {
+                                                    PlannedRequest req = session.get("plannedRequest");
+                                                    BookingActions.recordBookingResponse(session, req.userId, req.section, req.seat, status, req.id);
+                                                    return status;
+                                                }).in(200, 201),
                                                 responseTimeInMillis().saveAs("responseTime")
                                         )
                         )
@@ -246,30 +343,35 @@ public class ParallelScenario implements ScenarioExecutor {
 
     private ChainBuilder logRequestResult(int totalRequests) {
         return exec(session -> {
-            String reqType = session.getString("reqType");
-            int status = RequestType.SECTION_MOVE.name().equals(reqType)
+            PlannedRequest req = session.get("plannedRequest");
+            int status = req.isSectionMove()
                     ? session.getInt("sectionSwitchStatus")
                     : session.getInt("responseStatus");
-            long responseTime = RequestType.SECTION_MOVE.name().equals(reqType)
+            long responseTime = req.isSectionMove()
                     ? session.getLong("sectionSwitchResponseTime")
                     : session.getLong("responseTime");
 
             boolean success = status == 200 || status == 201;
+            if (success && req.isBook()) {
+                BookingActions.recordSeatCommit(req.userId, req.section, req.seat, req.id);
+            }
             AsyncLogger.logf(
                     "%s [%s] User%d type=%s section=%d target=%d seat=%d status=%d response=%dms",
                     success ? "OK" : "KO",
-                    session.getString("reqId"),
-                    session.getInt("reqUserId"),
-                    reqType,
-                    session.getInt("reqSection"),
-                    session.getInt("reqTargetSection"),
-                    session.getInt("reqSeat"),
+                    req.id,
+                    req.userId,
+                    req.type,
+                    req.section,
+                    req.targetSection,
+                    req.seat,
                     status,
                     responseTime
             );
 
             int completed = requestCompletedCount.incrementAndGet();
-            if (completed % 100 == 0 || completed == totalRequests) {
+            if (totalRequests == 0 && completed % 100 == 0) {
+                AsyncLogger.logf("요청 완료: %d", completed);
+            } else if (completed % 100 == 0 || completed == totalRequests) {
                 AsyncLogger.logf("요청 완료: %d/%d", completed, totalRequests);
             }
 
@@ -0,0 +1,58 @@
+package simulations.booking.scenario;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.Session;
+import simulations.booking.core.BookingActions;
+import simulations.booking.core.SessionCache;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.flushCookieJar;
+import static simulations.config.Config.PRE_LOGIN_CONCURRENCY;
+
+/**
+ * 사전 로그인 단계
+ *
+ * 측정 시나리오보다 먼저 실행되어, 세션 캐시에 유효한 세션이 없는 계정만 로그인한다.
+ * PRE_LOGIN_CONCURRENCY개의 워커가 대기열에서 계정을 하나씩 꺼내 처리하므로 동시 로그인 수가 제한된다.
+ */
+public final class PreLoginPhase {
+
+    private PreLoginPhase() {
+    }
+
+    public static boolean isRequired() {
+        return SessionCache.getPendingLoginCount() > 0;
+    }
+
+    public static PopulationBuilder build() {
+        int workers = Math.max(1, Math.min(PRE_LOGIN_CONCURRENCY, SessionCache.getPendingLoginCount()));
+
+        return scenario("사전 로그인")
+                .exec(claimNextLogin())
+                .asLongAs(session -> session.getBoolean("hasPendingLogin")).on(
+                        exec(flushCookieJar()),
+                        exec(BookingActions.loginWithTestAccount()),
+                        exec(session -> {
+                            SessionCache.recordLogin(session.getInt("userNum"), session.getString("sessionId"));
+                            return session.remove("sessionId").markAsSucceeded();
+                        }),
+                        exec(claimNextLogin())
+                )
+                .injectOpen(atOnceUsers(workers));
+    }
+
+    private static ChainBuilder claimNextLogin() {
+        return exec(PreLoginPhase::assignNextLogin);
+    }
+
+    private static Session assignNextLogin(Session session) {
+        int userNum = SessionCache.pollPendingLogin();
+        if (userNum < 0) {
+            return session.set("hasPendingLogin", false);
+        }
+        return session
+                .set("hasPendingLogin", true)
+                .set("userNum", userNum);
+    }
+}
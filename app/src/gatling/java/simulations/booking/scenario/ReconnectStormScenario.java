@@ -0,0 +1,138 @@
+package simulations.booking.scenario;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Session;
+import simulations.booking.core.BookingActions;
+import simulations.booking.metrics.ReconnectStormStats;
+import simulations.booking.metrics.ReconnectStormStats.Phase;
+import simulations.booking.subscription.SubscriptionHandler;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static simulations.config.Config.Storm.*;
+import static simulations.config.Config.TARGET_EVENT;
+
+/**
+ * 재연결 폭주 시나리오
+ *
+ * 로드 밸런서 교체처럼 구독이 한꺼번에 끊기는 상황을 재현한다.
+ * USERS개의 구독을 연 뒤 첫 연결로부터 DROP_AFTER_SECONDS가 지나면 DROP_RATIO 비율의 구독을 끊고,
+ * 0~RECONNECT_JITTER_MILLIS 사이의 무작위 지연 후 다시 연결한다. SSE는 Last-Event-ID로 이어 받기를 요청한다.
+ * 최초 연결을 도착 프로필로 주입하면 연결 램프로 서버의 최대 연결 수락률을 찾을 수 있다.
+ */
+public class ReconnectStormScenario implements ScenarioExecutor {
+
+    private static final AtomicLong dropAtMillis = new AtomicLong(0);
+
+    @Override
+    public PopulationBuilder[] build(SubscriptionHandler subscription) {
+        ScenarioBuilder scn = scenario("이벤트=" + TARGET_EVENT + " 재연결 폭주 시나리오")
+                .exec(BookingActions.setUpUserNum())
+                .exec(BookingActions.loginOrSetCookie())
+                .exitHereIfFailed()
+                .exec(session -> session.set("dropInStorm", isDropped(session.getInt("userNum"))))
+
+                .exec(connect(subscription, Phase.INITIAL))
+                .exitHereIf(session -> !session.getBoolean("stormConnected"))
+                .exec(observeStream(subscription, session -> dropAtMillis.get()))
+
+                .doIf(session -> session.getBoolean("dropInStorm")).then(
+                        exec(session -> {
+                            ReconnectStormStats.recordDrop();
+                            return session;
+                        }),
+                        exec(BookingActions.closeSubscription(subscription)),
+                        pause(session -> Duration.ofMillis(ThreadLocalRandom.current().nextInt(RECONNECT_JITTER_MILLIS + 1))),
+                        exec(connect(subscription, Phase.RECONNECT)),
+                        exitHereIf(session -> !session.getBoolean("stormConnected"))
+                )
+                .exec(observeStream(subscription, session -> stormEndMillis()))
+                .exec(BookingActions.closeSubscription(subscription));
+
+        InjectionProfile profile = InjectionProfile.fromConfig();
+        return new PopulationBuilder[]{
+                profile.isEmpty()
+                        ? scn.injectOpen(rampUsers(USERS).during(Duration.ofSeconds(CONNECT_RAMP_SECONDS)))
+                        : scn.injectOpen(profile.stepsForExactUsers(USERS))
+        };
+    }
+
+    private static boolean isDropped(int userNum) {
+        return (long) (userNum * DROP_RATIO) != (long) ((userNum - 1) * DROP_RATIO);
+    }
+
+    private static long stormEndMillis() {
+        return dropAtMillis.get() + RECONNECT_JITTER_MILLIS + HOLD_AFTER_RECONNECT_SECONDS * 1000L;
+    }
+
+    private static ChainBuilder connect(SubscriptionHandler subscription, Phase phase) {
+        return exec(session -> session
+                .set("stormPhase", phase.name())
+                .set("connectStartedAt", System.currentTimeMillis())
+                .set("firstMessageRecorded", false)
+                .remove("firstSeatMessageAt"))
+                .exec(phase == Phase.INITIAL
+                        ? BookingActions.subscribeSeats(subscription)
+                        : BookingActions.resubscribeSeats(subscription))
+                .exec(session -> {
+                    boolean connected = !session.isFailed();
+                    long startedAt = session.getLong("connectStartedAt");
+                    ReconnectStormStats.recordConnect(phase, startedAt, connected);
+                    if (connected && phase == Phase.INITIAL) {
+                        dropAtMillis.compareAndSet(0, startedAt + DROP_AFTER_SECONDS * 1000L);
+                    }
+                    return session.markAsSucceeded().set("stormConnected", connected);
+                });
+    }
+
+    // 종료 시각까지 버퍼를 주기적으로 비우며 이벤트 ID를 따라가고, 현재 연결의 첫 좌석 메시지 수신 시간을 한 번 기록한다.
+    private static ChainBuilder observeStream(SubscriptionHandler subscription, Function<Session, Long> untilMillis) {
+        return asLongAs(session -> System.currentTimeMillis() < untilMillis.apply(session)).on(
+                pause(Duration.ofMillis(POLL_INTERVAL_MILLIS)),
+                exec(subscription.trackStreamPosition()),
+                exec(ReconnectStormScenario::recordFirstMessage)
+        );
+    }
+
+    private static Session recordFirstMessage(Session session) {
+        if (session.getBoolean("firstMessageRecorded")) {
+            return session;
+        }
+
+        Phase phase = Phase.valueOf(session.getString("stormPhase"));
+        long connectStartedAt = session.getLong("connectStartedAt");
+        if (session.contains("firstSeatMessageAt")) {
+            ReconnectStormStats.recordFirstMessage(phase, session.getLong("firstSeatMessageAt") - connectStartedAt);
+            return session.set("firstMessageRecorded", true);
+        }
+        if (System.currentTimeMillis() - connectStartedAt > FIRST_MESSAGE_TIMEOUT_MILLIS) {
+            ReconnectStormStats.recordFirstMessageTimeout(phase);
+            return session.set("firstMessageRecorded", true);
+        }
+        return session;
+    }
+
+    @Override
+    public void printInfo() {
+        InjectionProfile profile = InjectionProfile.fromConfig();
+        System.out.println("=== 재연결 폭주 시나리오 ===");
+        System.out.println("  구독 수: " + USERS);
+        System.out.println("  최초 연결: " + (profile.isEmpty()
+                ? CONNECT_RAMP_SECONDS + "초 램프"
+                : profile.describe()));
+        System.out.println("  끊기: 첫 연결 " + DROP_AFTER_SECONDS + "초 후 " + Math.round(DROP_RATIO * 100) + "%");
+        System.out.println("  재연결 지터: 0~" + RECONNECT_JITTER_MILLIS + "ms, 재연결 후 유지: " + HOLD_AFTER_RECONNECT_SECONDS + "초");
+        System.out.println("  첫 메시지 대기 한도: " + FIRST_MESSAGE_TIMEOUT_MILLIS + "ms");
+    }
+
+    @Override
+    public void printResult() {
+        ReconnectStormStats.printReport();
+    }
+}
@@ -17,4 +17,10 @@ public interface ScenarioExecutor {
      * 시나리오 정보 출력
      */
     void printInfo();
+
+    /**
+     * 시뮬레이션 종료 후 시나리오별 결과 출력
+     */
+    default void printResult() {
+    }
 }
@@ -6,9 +6,15 @@ import io.gatling.javaapi.core.PopulationBuilder;
 import io.gatling.javaapi.core.ScenarioBuilder;
 import io.gatling.javaapi.core.Session;
 import simulations.booking.core.BookingActions;
+import simulations.booking.core.PlanCursor;
 import simulations.booking.core.PlanLoader;
 import simulations.booking.core.PlanLoader.PlannedRequest;
-import simulations.booking.core.PlanLoader.RequestType;
+import simulations.booking.core.SectionAffinity;
+import simulations.booking.core.WaitingRoom;
+import simulations.booking.metrics.CollisionAlignmentStats;
+import simulations.booking.metrics.PlanReconciliation;
+import simulations.booking.metrics.PlanReplayStats;
+import simulations.booking.metrics.WaitingRoomStats;
 import simulations.booking.subscription.SubscriptionHandler;
 import simulations.util.AsyncLogger;
 
@@ -17,24 +23,36 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
 import static io.gatling.javaapi.http.HttpDsl.*;
-import static simulations.config.Config.TARGET_EVENT;
+import static simulations.config.Config.*;
 
 public class StaticScenario implements ScenarioExecutor {
 
     private static final AtomicLong simulationStartTime = new AtomicLong(0);
     private static final AtomicInteger readyUserCount = new AtomicInteger(0);
+    private static CompletableFuture<Void> planReady;
 
     @Override
     public PopulationBuilder[] build(SubscriptionHandler subscription) {
-        PlanLoader.load();
-
+        // 유저 수는 계획 헤더로 정하고, 계획 본문과 그에 딸린 색인은 로그인하는 동안 로더 스레드에서 준비한다.
         int numUsers = PlanLoader.getNumUsers();
+        planReady = PlanLoader.load().thenRun(() -> {
+            SectionAffinity.initialize(PlanLoader.getMaxUserId());
+            PlanReplayStats.initialize(PlanLoader.getUserPlans().values());
+            PlanReconciliation.initialize(PlanLoader.getUserPlans().values(),
+                    PlanLoader.getLoserRequestQueues().values(), PlanLoader.getCollisionGroups().values());
+            if (ENABLE_COLLISION_BURST_GATE) {
+                CollisionBurstGate.initialize(PlanLoader.getUserPlans(), PlanLoader.getRequestToCollision());
+                System.out.println("  충돌 그룹 게이트: " + CollisionBurstGate.gatedGroupCount()
+                        + "개 (선행 " + COLLISION_GATE_LEAD_MILLIS + "ms, 스핀 " + COLLISION_GATE_SPIN_MICROS + "µs)");
+            }
+        });
 
         ScenarioBuilder scn = scenario("이벤트 " + TARGET_EVENT + " 정적 예매 시나리오")
                 .exec(BookingActions.setUpUserNum())
@@ -43,21 +61,25 @@ public class StaticScenario implements ScenarioExecutor {
                 .exec(BookingActions.loginOrSetCookie())
                 .exec(BookingActions.waitAfterStaggeredLogin())
 
-                .tryMax(10).on(exec(BookingActions.checkPermission())).exitHereIfFailed()
+                .exec(WaitingRoom.waitForPermission())
                 .exec(BookingActions.setBookingAmount())
                 .exec(BookingActions.subscribeSeats(subscription))
                 .exec(BookingActions.waitAfterSubscribe())
 
+                .exec(BookingActions.waitForPlan(planReady))
                 .exec(loadUserPlan())
                 .exec(waitForAllUsersReady(numUsers))
                 .exec(staticRequestLoop())
 
                 .exec(BookingActions.saveBookedSeatsAsJson())
                 .exec(BookingActions.confirmReservation(true))
-                .exec(subscription.close());
+                .exec(BookingActions.closeSubscription(subscription));
 
+        InjectionProfile profile = InjectionProfile.fromConfig();
         return new PopulationBuilder[]{
-                scn.injectOpen(atOnceUsers(numUsers))
+                profile.isEmpty()
+                        ? scn.injectOpen(atOnceUsers(numUsers))
+                        : scn.injectOpen(profile.stepsForExactUsers(numUsers))
         };
     }
 
@@ -65,11 +87,21 @@ public class StaticScenario implements ScenarioExecutor {
     public void printInfo() {
         System.out.println("=== 정적 시나리오 ===");
         System.out.println("  유저 수: " + PlanLoader.getNumUsers());
+        System.out.println("  도착 프로필: " + InjectionProfile.fromConfig().describe());
         System.out.println("  유저당 좌석: " + PlanLoader.getSeatsPerUser());
-        System.out.println("  충돌 그룹: " + PlanLoader.getCollisionGroups().size());
         System.out.println("  계획 요청: " + PlanLoader.getTotalPlannedRequests());
-        System.out.println("  좌석 점유 요청: " + PlanLoader.getTotalBookRequests());
-        System.out.println("  섹션 전환 요청: " + PlanLoader.getTotalSectionMoveRequests());
+        System.out.println("  충돌 그룹 게이트: " + ENABLE_COLLISION_BURST_GATE);
+    }
+
+    @Override
+    public void printResult() {
+        WaitingRoomStats.printReport();
+        PlanReplayStats.printReport();
+        PlanReconciliation.printReport();
+        SectionAffinity.printReport();
+        if (ENABLE_COLLISION_BURST_GATE) {
+            CollisionAlignmentStats.printReport(CollisionBurstGate.gatedGroupCount());
+        }
     }
 
     private ChainBuilder loadUserPlan() {
@@ -79,17 +111,11 @@ public class StaticScenario implements ScenarioExecutor {
 
             if (myRequests == null || myRequests.isEmpty()) {
                 AsyncLogger.log("유저 " + userNum + "의 계획 요청이 없습니다.");
-                return session
-                        .set("myRequests", Collections.emptyList())
-                        .set("currentRequestIndex", 0)
-                        .set("hasMoreRequests", false)
-                        .set("bookedSeats", new ArrayList<int[]>());
+                myRequests = Collections.emptyList();
             }
 
             return session
-                    .set("myRequests", new ArrayList<>(myRequests))
-                    .set("currentRequestIndex", 0)
-                    .set("hasMoreRequests", true)
+                    .set(PlanCursor.SESSION_KEY, new PlanCursor(myRequests))
                     .set("bookedSeats", new ArrayList<int[]>());
         });
     }
@@ -111,15 +137,20 @@ public class StaticScenario implements ScenarioExecutor {
     }
 
     private ChainBuilder staticRequestLoop() {
-        return asLongAs(session -> session.getBoolean("hasMoreRequests")).on(
+        return asLongAs(session -> PlanCursor.of(session).hasMore()).on(
                 exec(loadNextRequest()),
-                pause(session -> Duration.ofMillis(session.getLong("waitTimeMs"))),
-                doIf(session -> RequestType.SECTION_MOVE.name().equals(session.getString("currentReqType"))).then(
+                pause(session -> Duration.ofMillis(PlanCursor.of(session).waitMillis())),
+                doIf(session -> PlanCursor.of(session).current().isSectionMove()).then(
+                        exec(recordDispatch()),
                         exec(BookingActions.switchToCurrentRequestTargetSection()).exitHereIfFailed(),
                         exec(advanceAfterSectionMove())
                 ),
-                doIf(session -> RequestType.BOOK.name().equals(session.getString("currentReqType"))).then(
+                doIf(session -> PlanCursor.of(session).current().isBook()).then(
                         exec(BookingActions.switchToCurrentRequestSection()).exitHereIfFailed(),
+                        exec(CollisionBurstGate.await()),
+                        exec(recordDispatch()),
+                        exec(BookingActions::stampBookingSent),
+                        exec(CollisionBurstGate.recordSend()),
                         exec(sendCurrentBookingRequest()),
                         exec(recordBookResultAndAdvance()),
                         exec(handleCollisionLoserChain())
@@ -128,19 +159,22 @@ public class StaticScenario implements ScenarioExecutor {
     }
 
     private java.util.function.Function<Session, Session> loadNextRequest() {
-        return session -> {
-            List<PlannedRequest> myRequests = session.get("myRequests");
-            int index = session.getInt("currentRequestIndex");
-
-            if (index >= myRequests.size()) {
-                return session.set("hasMoreRequests", false).set("waitTimeMs", 0L);
-            }
+        Map<String, String> requestToCollision = PlanLoader.getRequestToCollision();
 
-            PlannedRequest request = myRequests.get(index);
+        return session -> {
+            PlanCursor cursor = PlanCursor.of(session);
+            PlannedRequest request = cursor.current();
             long simStartTime = session.getLong("simStartTime");
             long targetTime = simStartTime + request.timeMs;
             long waitTime = Math.max(0, targetTime - System.currentTimeMillis());
 
+            // 게이트가 있는 충돌 그룹 요청은 섹션 전환을 미리 마치도록 일찍 깨우고, 출발은 게이트가 맞춘다.
+            String collisionId = request.isBook() ? requestToCollision.get(request.id) : null;
+            boolean gated = ENABLE_COLLISION_BURST_GATE && CollisionBurstGate.isGated(collisionId);
+            if (gated) {
+                waitTime = Math.max(0, waitTime - COLLISION_GATE_LEAD_MILLIS);
+            }
+
             AsyncLogger.logf(
                     "계획 요청 [%s] type=%s section=%d target=%d seat=%d wait=%dms",
                     request.id,
@@ -151,29 +185,43 @@ public class StaticScenario implements ScenarioExecutor {
                     waitTime
             );
 
+            cursor.setWaitMillis(waitTime);
+            if (!gated) {
+                return session;
+            }
             return session
-                    .set("waitTimeMs", waitTime)
-                    .set("currentReqId", request.id)
-                    .set("currentReqType", request.type.name())
-                    .set("currentReqSection", request.section)
-                    .set("currentReqTargetSection", request.targetSection)
-                    .set("currentReqSeat", request.seat)
-                    .set("currentReqBody", request.requestBody);
+                    .set(CollisionBurstGate.GATE_ID_KEY, collisionId)
+                    .set(CollisionBurstGate.DEADLINE_KEY, CollisionBurstGate.deadlineNanos(targetTime));
+        };
+    }
+
+    private java.util.function.Function<Session, Session> recordDispatch() {
+        return session -> {
+            long actualTime = System.currentTimeMillis() - session.getLong("simStartTime");
+            PlanReplayStats.recordDispatch(PlanCursor.of(session).current().timeMs, actualTime);
+            return session;
         };
     }
 
     private ActionBuilder sendCurrentBookingRequest() {
         return http("계획 좌석 점유")
                 .post("/booking")
-                .body(StringBody("#{currentReqBody}"))
+                .body(StringBody(session -> PlanCursor.of(session).current().requestBody))
                 .check(
                         status().saveAs("lastResponseStatus"),
-                        status().in(200, 201)
+                        status().transformWithSession((status, session) -> {
+                            PlannedRequest request = PlanCursor.of(session).current();
+                            BookingActions.recordBookingResponse(session, session.getInt("userNum"), request.section, request.seat, status, request.id);
+                            return status;
+                        }).in(200, 201)
                 );
     }
 
     private java.util.function.Function<Session, Session> advanceAfterSectionMove() {
-        return session -> advanceRequestIndex(session).set("pendingCollisionId", null);
+        return session -> {
+            PlanCursor.of(session).advance();
+            return session;
+        };
     }
 
     private java.util.function.Function<Session, Session> recordBookResultAndAdvance() {
@@ -182,37 +230,24 @@ public class StaticScenario implements ScenarioExecutor {
         return session -> {
             int status = session.getInt("lastResponseStatus");
             boolean success = status == 200 || status == 201;
-            String reqId = session.getString("currentReqId");
-            String collisionId = requestToCollision.get(reqId);
-
-            Session updatedSession = session;
+            PlanCursor cursor = PlanCursor.of(session);
+            PlannedRequest request = cursor.current();
+            cursor.advance();
+            PlanReconciliation.recordOutcome(request.id, success);
 
             if (success) {
+                BookingActions.recordSeatCommit(session.getInt("userNum"), request.section, request.seat, request.id);
                 List<int[]> bookedSeats = session.get("bookedSeats");
-                bookedSeats.add(new int[]{
-                        session.getInt("currentReqSection"),
-                        session.getInt("currentReqSeat")
-                });
-                updatedSession = session
-                        .set("bookedSeats", bookedSeats)
-                        .set("pendingCollisionId", null);
-            } else {
-                updatedSession = session.set("pendingCollisionId", collisionId);
+                bookedSeats.add(new int[]{request.section, request.seat});
+                return session;
             }
 
-            return advanceRequestIndex(updatedSession);
+            // 충돌 그룹에서 밀렸으면 대체 요청 체인으로 넘어간다.
+            String collisionId = requestToCollision.get(request.id);
+            return collisionId == null ? session : session.set("pendingCollisionId", collisionId).set("loserChainDepth", 0);
         };
     }
 
-    private Session advanceRequestIndex(Session session) {
-        int nextIndex = session.getInt("currentRequestIndex") + 1;
-        List<PlannedRequest> myRequests = session.get("myRequests");
-
-        return session
-                .set("currentRequestIndex", nextIndex)
-                .set("hasMoreRequests", nextIndex < myRequests.size());
-    }
-
     private ChainBuilder handleCollisionLoserChain() {
         Map<String, ConcurrentLinkedQueue<PlannedRequest>> loserQueues = PlanLoader.getLoserRequestQueues();
         Map<String, String> requestToCollision = PlanLoader.getRequestToCollision();
@@ -222,13 +257,10 @@ public class StaticScenario implements ScenarioExecutor {
                     String collisionId = session.getString("pendingCollisionId");
                     ConcurrentLinkedQueue<PlannedRequest> queue = loserQueues.get(collisionId);
 
-                    if (queue == null || queue.isEmpty()) {
-                        AsyncLogger.logf("충돌 그룹 %s: 더 이상 대체 요청 없음", collisionId);
-                        return session.set("pendingCollisionId", null);
-                    }
-
-                    PlannedRequest loserReq = queue.poll();
+                    PlannedRequest loserReq = queue == null ? null : queue.poll();
                     if (loserReq == null) {
+                        AsyncLogger.logf("충돌 그룹 %s: 더 이상 대체 요청 없음", collisionId);
+                        PlanReconciliation.recordChainEnd(session.getInt("loserChainDepth"), false);
                         return session.set("pendingCollisionId", null);
                     }
 
@@ -239,39 +271,44 @@ public class StaticScenario implements ScenarioExecutor {
                             loserReq.seat
                     );
 
-                    return session
-                            .set("loserReqId", loserReq.id)
-                            .set("loserReqSection", loserReq.section)
-                            .set("loserReqSeat", loserReq.seat)
-                            .set("loserReqBody", loserReq.requestBody);
+                    return session.set("loserRequest", loserReq);
                 }),
                 doIf(session -> session.get("pendingCollisionId") != null).then(
                         exec(BookingActions.switchToLoserRequestSection()).exitHereIfFailed(),
+                        exec(BookingActions::stampBookingSent),
                         exec(
                                 http("충돌 대체 좌석 점유")
                                         .post("/booking")
-                                        .body(StringBody("#{loserReqBody}"))
+                                        .body(StringBody(session -> session.<PlannedRequest>get("loserRequest").requestBody))
                                         .check(
                                                 status().saveAs("loserResponseStatus"),
-                                                status().in(200, 201)
+                                                status().transformWithSession((status, session) -> {
+                                                    PlannedRequest loserReq = session.get("loserRequest");
+                                                    BookingActions.recordBookingResponse(session, session.getInt("userNum"),
+                                                            loserReq.section, loserReq.seat, status, loserReq.id);
+                                                    return status;
+                                                }).in(200, 201)
                                         )
                         ),
                         exec(session -> {
                             int status = session.getInt("loserResponseStatus");
                             boolean success = status == 200 || status == 201;
-                            String reqId = session.getString("loserReqId");
-                            int section = session.getInt("loserReqSection");
-                            int seat = session.getInt("loserReqSeat");
+                            PlannedRequest loserReq = session.get("loserRequest");
+                            int depth = session.getInt("loserChainDepth") + 1;
+                            PlanReconciliation.recordOutcome(loserReq.id, success);
 
                             if (success) {
+                                BookingActions.recordSeatCommit(session.getInt("userNum"), loserReq.section, loserReq.seat, loserReq.id);
                                 List<int[]> bookedSeats = session.get("bookedSeats");
-                                bookedSeats.add(new int[]{section, seat});
-                                return session
-                                        .set("bookedSeats", bookedSeats)
-                                        .set("pendingCollisionId", null);
+                                bookedSeats.add(new int[]{loserReq.section, loserReq.seat});
+                                PlanReconciliation.recordChainEnd(depth, true);
+                                return session.set("pendingCollisionId", null);
                             } else {
-                                String nextCollisionId = requestToCollision.get(reqId);
-                                return session.set("pendingCollisionId", nextCollisionId);
+                                String nextCollisionId = requestToCollision.get(loserReq.id);
+                                if (nextCollisionId == null) {
+                                    PlanReconciliation.recordChainEnd(depth, false);
+                                }
+                                return session.set("pendingCollisionId", nextCollisionId).set("loserChainDepth", depth);
                             }
                         })
                 )
@@ -0,0 +1,115 @@
+package simulations.booking.scenario;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.PopulationBuilder;
+import simulations.booking.core.BookingActions;
+import simulations.booking.core.SessionStore;
+import simulations.booking.metrics.WatcherStats;
+import simulations.booking.subscription.SlowConsumerClient;
+import simulations.booking.subscription.SubscriptionHandler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.Cookie;
+import static io.gatling.javaapi.http.HttpDsl.addCookie;
+import static simulations.config.Config.*;
+
+/**
+ * 관람 유저 시나리오
+ *
+ * 로그인 후 좌석 상태를 구독하고, 예매 없이 수신 메시지만 주기적으로 비운다.
+ * 세션에는 유저 번호와 구독 연결 외의 상태를 남기지 않아 주입기 한 대로 많은 구독자를 유지할 수 있다.
+ * 예매 시나리오와 동시에 실행해 서버의 브로드캐스트 fan-out 비용을 구독자 수에 따라 측정한다.
+ * ENABLE_SLOW_CONSUMERS이면 일부 관람 유저는 읽기 속도를 제한한 느린 구독자로 연결한다.
+ */
+public final class WatcherScenario {
+
+    private static final AtomicInteger watcherCounter = new AtomicInteger(0);
+
+    private WatcherScenario() {
+    }
+
+    public static PopulationBuilder build(SubscriptionHandler subscription) {
+        return scenario("이벤트=" + TARGET_EVENT + " 관람 유저")
+                .exec(session -> {
+                    int watcherNum = watcherCounter.incrementAndGet();
+                    return session
+                            .set("userNum", WATCHER_USER_OFFSET + watcherNum)
+                            .set("slowConsumer", isSlowConsumer(watcherNum));
+                })
+                .doIfOrElse(session -> SessionStore.getStoredTestAccountSession(session.getInt("userNum")) != null).then(
+                        exec(session -> session.set(
+                                "storedSessionId",
+                                SessionStore.getStoredTestAccountSession(session.getInt("userNum"))
+                        )),
+                        exec(addCookie(Cookie("SID", "#{storedSessionId}").withPath("/")))
+                ).orElse(
+                        exec(BookingActions.loginWithTestAccount())
+                )
+                .exitHereIfFailed()
+                .doIfOrElse(session -> session.getBoolean("slowConsumer")).then(
+                        slowConsumerFlow()
+                ).orElse(
+                        watcherFlow(subscription)
+                )
+                .injectOpen(rampUsers(WATCHER_COUNT).during(Duration.ofSeconds(WATCHER_RAMP_SECONDS)));
+    }
+
+    private static ChainBuilder watcherFlow(SubscriptionHandler subscription) {
+        return exec(BookingActions.subscribeSeats(subscription))
+                .exitHereIfFailed()
+                .exec(session -> {
+                    WatcherStats.subscribed();
+                    return session;
+                })
+                .during(Duration.ofSeconds(WATCHER_HOLD_SECONDS)).on(
+                        pause(Duration.ofMillis(WATCHER_DRAIN_INTERVAL_MILLIS)),
+                        exec(subscription.drainMessages((messages, session) -> {
+                            WatcherStats.recordMessages(messages.size(), messages.size() >= WATCHER_MESSAGE_BUFFER_SIZE);
+                            return session;
+                        }))
+                )
+                .exec(session -> {
+                    WatcherStats.unsubscribed();
+                    return session;
+                })
+                .exec(BookingActions.closeSubscription(subscription));
+    }
+
+    // 느린 구독자는 Gatling 구독 대신 SlowConsumerClient로 연결하고, 유지 시간 동안 세션은 쉬기만 한다.
+    private static ChainBuilder slowConsumerFlow() {
+        return exec(session -> {
+            String sessionId = session.contains("storedSessionId")
+                    ? session.getString("storedSessionId")
+                    : session.getString("sessionId");
+            return session.set("slowConsumerClient", SlowConsumerClient.open(SUBSCRIPTION_TYPE, TARGET_EVENT, sessionId));
+        })
+                .pause(Duration.ofSeconds(WATCHER_HOLD_SECONDS))
+                .exec(session -> {
+                    SlowConsumerClient client = session.get("slowConsumerClient");
+                    client.close();
+                    return session.remove("slowConsumerClient");
+                });
+    }
+
+    private static boolean isSlowConsumer(int watcherNum) {
+        if (!ENABLE_SLOW_CONSUMERS) {
+            return false;
+        }
+        return (long) (watcherNum * SLOW_CONSUMER_RATIO) != (long) ((watcherNum - 1) * SLOW_CONSUMER_RATIO);
+    }
+
+    public static void printInfo() {
+        System.out.println("=== 관람 유저 ===");
+        System.out.println("  관람 유저 수: " + WATCHER_COUNT + " (계정 test" + (WATCHER_USER_OFFSET + 1) + "~)");
+        System.out.println("  램프: " + WATCHER_RAMP_SECONDS + "초, 구독 유지: " + WATCHER_HOLD_SECONDS + "초");
+        if (ENABLE_SLOW_CONSUMERS) {
+            System.out.printf("  느린 구독자: %.0f%% (읽기 %d B/s, %d초마다 %dms 중단)%n",
+                    SLOW_CONSUMER_RATIO * 100, SLOW_CONSUMER_READ_BYTES_PER_SEC,
+                    SLOW_CONSUMER_STALL_INTERVAL_SECONDS, SLOW_CONSUMER_STALL_MILLIS);
+        }
+        System.out.println("  메시지 버퍼: " + WATCHER_MESSAGE_BUFFER_SIZE + ", 비우기 주기: " + WATCHER_DRAIN_INTERVAL_MILLIS + "ms");
+    }
+}
@@ -0,0 +1,42 @@
+package simulations.booking.subscription;
+
+import io.gatling.javaapi.core.Session;
+import simulations.booking.metrics.BandwidthStats;
+import simulations.booking.metrics.StreamTelemetry;
+import simulations.config.Config.SubscriptionType;
+
+import java.util.List;
+
+import static simulations.config.Config.ENABLE_BANDWIDTH_STATS;
+import static simulations.config.Config.ENABLE_STREAM_TELEMETRY;
+
+/**
+ * 버퍼에서 꺼낸 수신 메시지를 한 번만 디코딩하고 인코딩별 수신 바이트를 기록한다.
+ * 디코딩한 메시지는 observe()로 구독자별 측정(반영 지연, 스트림 텔레메트리)에 넘긴다.
+ */
+final class InboundMessages {
+
+    private InboundMessages() {
+    }
+
+    static List<SeatMessage> receive(SubscriptionType type, List<?> rawMessages) {
+        List<SeatMessage> messages = SeatStatusMessageParser.decodeAll(rawMessages);
+        for (SeatMessage message : messages) {
+            if (ENABLE_BANDWIDTH_STATS) {
+                BandwidthStats.record(type, message);
+            }
+            if (ENABLE_STREAM_TELEMETRY) {
+                StreamTelemetry.recordMessage(type, message);
+            }
+        }
+        return messages;
+    }
+
+    static Session observe(SubscriptionType type, List<SeatMessage> messages, Session session) {
+        Session updatedSession = PropagationObserver.observe(type, messages, session);
+        if (ENABLE_STREAM_TELEMETRY) {
+            updatedSession = StreamTelemetryObserver.observe(type, messages, updatedSession);
+        }
+        return updatedSession;
+    }
+}
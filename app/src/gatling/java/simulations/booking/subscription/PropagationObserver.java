@@ -0,0 +1,55 @@
+package simulations.booking.subscription;
+
+import io.gatling.javaapi.core.Session;
+import simulations.booking.metrics.PropagationTracker;
+import simulations.config.Config.SubscriptionType;
+
+import java.util.List;
+
+import static simulations.config.Config.ENABLE_PROPAGATION_TRACKING;
+
+/**
+ * 수신 메시지를 순서대로 PropagationTracker에 넘긴다.
+ *
+ * 구독자마다 이미 점유됨을 확인한 좌석을 세션에 두어, 좌석이 처음 점유됨으로 보인 메시지만 측정한다.
+ * 비트맵은 메시지를 받은 섹션만큼만 할당된다.
+ */
+final class PropagationObserver {
+
+    private static final String SEEN_SEATS_KEY = "propagationSeenSeats";
+
+    private PropagationObserver() {
+    }
+
+    static Session observe(SubscriptionType type, List<SeatMessage> messages, Session session) {
+        if (!ENABLE_PROPAGATION_TRACKING || messages.isEmpty() || !session.contains("subscribedAt")) {
+            return session;
+        }
+
+        PropagationTracker.SeenSeats seenSeats = session.get(SEEN_SEATS_KEY);
+        Session updatedSession = session;
+        if (seenSeats == null) {
+            seenSeats = PropagationTracker.newSeenSeats();
+            updatedSession = session.set(SEEN_SEATS_KEY, seenSeats);
+        }
+
+        long subscribedAt = session.getLong("subscribedAt");
+        for (SeatMessage message : messages) {
+            SectionSeatStatus sectionSeatStatus = message.seatStatus();
+            if (sectionSeatStatus == null) {
+                continue;
+            }
+
+            PropagationTracker.observe(
+                    type,
+                    sectionSeatStatus.sectionIndex(),
+                    sectionSeatStatus.seatStatus(),
+                    seenSeats,
+                    subscribedAt,
+                    message.receivedAt()
+            );
+        }
+
+        return updatedSession;
+    }
+}
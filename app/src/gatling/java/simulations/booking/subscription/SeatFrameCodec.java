@@ -0,0 +1,63 @@
+package simulations.booking.subscription;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 비트 압축 좌석 프레임과 gzip 페이로드 디코더
+ *
+ * 비트 압축 프레임 (빅 엔디언)
+ * <pre>
+ *   0      u8   'S' (0x53)
+ *   1      u8   버전 (1)
+ *   2..3   u16  sectionIndex
+ *   4..7   u32  좌석 수 n
+ *   8..    ceil(n/8) 바이트. 좌석 i는 (i/8)번째 바이트의 (i%8)번째 비트(LSB부터), 1이면 예매 가능
+ * </pre>
+ * 본문 비트열이 SeatBitmap과 같은 순서이므로 좌석별로 풀지 않고 8바이트씩 그대로 옮긴다.
+ */
+final class SeatFrameCodec {
+
+    private static final byte MAGIC = 'S';
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private SeatFrameCodec() {
+    }
+
+    static boolean isGzip(byte[] data) {
+        return data.length >= 2 && data[0] == (byte) 0x1f && data[1] == (byte) 0x8b;
+    }
+
+    static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return input.readAllBytes();
+        }
+    }
+
+    static boolean isBitPackedFrame(byte[] data) {
+        if (data.length < HEADER_BYTES || data[0] != MAGIC || data[1] != VERSION) {
+            return false;
+        }
+        long seatCount = ByteBuffer.wrap(data, 4, 4).getInt() & 0xFFFFFFFFL;
+        return data.length == HEADER_BYTES + (seatCount + 7) / 8;
+    }
+
+    /**
+     * 매직 바이트는 맞지만 길이나 버전이 맞지 않는 프레임인지 여부 (파싱 실패 원인 구분용)
+     */
+    static boolean looksLikeBitPackedFrame(byte[] data) {
+        return data.length >= 2 && data[0] == MAGIC && !isBitPackedFrame(data);
+    }
+
+    static SectionSeatStatus decodeBitPacked(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.position(2);
+        int sectionIndex = buffer.getShort() & 0xFFFF;
+        int seatCount = buffer.getInt();
+
+        return new SectionSeatStatus(sectionIndex, SeatBitmap.fromLsbFirstBytes(data, HEADER_BYTES, seatCount));
+    }
+}
@@ -0,0 +1,30 @@
+package simulations.booking.subscription;
+
+/**
+ * 디코딩한 구독 메시지
+ *
+ * @param receivedAt 수신 시각
+ * @param encoding   수신한 프레임의 인코딩
+ * @param wireBytes  수신한 페이로드 크기. 전송 계층에서 풀린 압축(Content-Encoding, permessage-deflate)은 반영되지 않는다.
+ * @param eventId    SSE 이벤트 id. 없으면 null
+ * @param seatStatus 좌석 상태. 좌석 상태 메시지가 아니거나 디코딩에 실패하면 null
+ * @param failure    seatStatus가 null인 이유
+ */
+public record SeatMessage(long receivedAt, Encoding encoding, int wireBytes, String eventId,
+                          SectionSeatStatus seatStatus, ParseFailure failure) {
+
+    public enum Encoding { JSON, BINARY, GZIP_JSON, GZIP_BINARY }
+
+    public enum ParseFailure {
+        EMPTY,                  // 빈 메시지
+        NOT_JSON,               // JSON도 비트 압축 프레임도 아님 (SSE data가 JSON이 아닌 경우 포함)
+        NOT_SEAT_STATUS,        // JSON이지만 sectionIndex/seatStatus가 없음 (하트비트 등)
+        INVALID_SEAT_STATUS,    // seatStatus가 정수 배열이 아님
+        BAD_BINARY_FRAME,       // 비트 압축 프레임 헤더와 길이가 맞지 않음
+        GZIP_ERROR              // gzip 해제 실패
+    }
+
+    public boolean hasSeatStatus() {
+        return seatStatus != null;
+    }
+}
@@ -3,11 +3,21 @@ package simulations.booking.subscription;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import simulations.booking.subscription.SeatMessage.Encoding;
+import simulations.booking.subscription.SeatMessage.ParseFailure;
+
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * SSE/WS 수신 메시지를 SeatMessage로 디코딩한다.
+ *
+ * JSON 텍스트와 바이너리 프레임(비트 압축 좌석 프레임, gzip으로 압축한 JSON 또는 비트 압축 프레임)을 모두 받는다.
+ */
 final class SeatStatusMessageParser {
 
     private static final ObjectMapper mapper = new ObjectMapper();
@@ -19,47 +29,191 @@ final class SeatStatusMessageParser {
         if (inboundMessage == null) {
             return Optional.empty();
         }
+        return Optional.ofNullable(decode(inboundMessage).seatStatus());
+    }
+
+    static List<SeatMessage> decodeAll(List<?> inboundMessages) {
+        List<SeatMessage> decoded = new ArrayList<>(inboundMessages.size());
+        for (Object inboundMessage : inboundMessages) {
+            if (inboundMessage != null) {
+                decoded.add(decode(inboundMessage));
+            }
+        }
+        return decoded;
+    }
 
-        String message = extractMessage(inboundMessage);
-        Optional<SectionSeatStatus> parsed = parseText(message);
-        if (parsed.isPresent()) {
-            return parsed;
+    static SeatMessage decode(Object inboundMessage) {
+        long receivedAt = receivedAt(inboundMessage);
+        Object payload = extractPayload(inboundMessage);
+
+        if (payload instanceof byte[] bytes) {
+            return decodeBinary(bytes, receivedAt);
+        }
+
+        String message = (String) payload;
+        SeatMessage decoded = decodeText(message, Encoding.JSON, utf8Length(message), receivedAt);
+        if (decoded.hasSeatStatus()) {
+            return decoded;
         }
 
         String fallback = inboundMessage.toString();
         if (!fallback.equals(message)) {
-            return parseText(fallback);
+            SeatMessage fallbackDecoded = decodeText(fallback, Encoding.JSON, decoded.wireBytes(), receivedAt);
+            if (fallbackDecoded.hasSeatStatus()) {
+                return fallbackDecoded;
+            }
+        }
+        return decoded;
+    }
+
+    private static SeatMessage decodeBinary(byte[] bytes, long receivedAt) {
+        boolean gzip = SeatFrameCodec.isGzip(bytes);
+        byte[] body = bytes;
+        if (gzip) {
+            try {
+                body = SeatFrameCodec.gunzip(bytes);
+            } catch (Exception ignored) {
+                return new SeatMessage(receivedAt, Encoding.GZIP_BINARY, bytes.length, null, null, ParseFailure.GZIP_ERROR);
+            }
+        }
+
+        if (SeatFrameCodec.isBitPackedFrame(body)) {
+            return new SeatMessage(
+                    receivedAt,
+                    gzip ? Encoding.GZIP_BINARY : Encoding.BINARY,
+                    bytes.length,
+                    null,
+                    SeatFrameCodec.decodeBitPacked(body),
+                    null
+            );
+        }
+        if (SeatFrameCodec.looksLikeBitPackedFrame(body)) {
+            return new SeatMessage(
+                    receivedAt,
+                    gzip ? Encoding.GZIP_BINARY : Encoding.BINARY,
+                    bytes.length,
+                    null,
+                    null,
+                    ParseFailure.BAD_BINARY_FRAME
+            );
+        }
+
+        String text = new String(body, StandardCharsets.UTF_8);
+        return decodeText(text, gzip ? Encoding.GZIP_JSON : Encoding.JSON, bytes.length, receivedAt);
+    }
+
+    private static SeatMessage decodeText(String message, Encoding encoding, int wireBytes, long receivedAt) {
+        String eventId = null;
+        SectionSeatStatus seatStatus = null;
+        ParseFailure failure = ParseFailure.EMPTY;
+
+        if (message != null && !message.isBlank()) {
+            failure = ParseFailure.NOT_JSON;
+            for (String candidate : candidates(message)) {
+                JsonNode root = readJson(candidate);
+                if (root == null) {
+                    continue;
+                }
+                if (eventId == null) {
+                    eventId = eventIdOf(root);
+                }
+
+                JsonDecodeResult result = seatStatusOf(root);
+                if (result.seatStatus() != null) {
+                    seatStatus = result.seatStatus();
+                    failure = null;
+                    break;
+                }
+                if (failure == ParseFailure.NOT_JSON || result.failure() == ParseFailure.INVALID_SEAT_STATUS) {
+                    failure = result.failure();
+                }
+            }
+            if (eventId == null) {
+                eventId = sseIdLineOf(message);
+            }
+        }
+
+        return new SeatMessage(receivedAt, encoding, wireBytes, eventId, seatStatus, failure);
+    }
+
+    /**
+     * Gatling이 메시지를 수신한 시각. 수신 시각을 알 수 없으면 현재 시각
+     */
+    private static long receivedAt(Object inboundMessage) {
+        try {
+            Method timestampMethod = inboundMessage.getClass().getMethod("timestamp");
+            Object result = timestampMethod.invoke(inboundMessage);
+            if (result instanceof Number timestamp) {
+                return timestamp.longValue();
+            }
+        } catch (ReflectiveOperationException ignored) {
+            // 수신 시각이 없는 메시지
         }
-        return Optional.empty();
+        return System.currentTimeMillis();
+    }
+
+    // SSE 이벤트의 id. Gatling이 넘겨주는 JSON 형태와 원문 "id:" 줄 형태를 모두 지원한다.
+    private static String eventIdOf(JsonNode root) {
+        JsonNode id = root.get("id");
+        return id != null && !id.isNull() && !id.asText().isEmpty() ? id.asText() : null;
     }
 
-    private static String extractMessage(Object inboundMessage) {
-        if (inboundMessage instanceof String text) {
-            return text;
+    private static String sseIdLineOf(String message) {
+        for (String line : message.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("id:") && trimmed.length() > "id:".length()) {
+                return trimmed.substring("id:".length()).trim();
+            }
+        }
+        return null;
+    }
+
+    // 텍스트는 String, 바이너리 프레임은 byte[]로 돌려준다.
+    private static Object extractPayload(Object inboundMessage) {
+        if (inboundMessage instanceof String || inboundMessage instanceof byte[]) {
+            return inboundMessage;
+        }
+        if (inboundMessage instanceof ByteBuffer buffer) {
+            return bytesOf(buffer);
         }
 
         try {
             Method messageMethod = inboundMessage.getClass().getMethod("message");
             Object result = messageMethod.invoke(inboundMessage);
+            if (result instanceof byte[] bytes) {
+                return bytes;
+            }
+            if (result instanceof ByteBuffer buffer) {
+                return bytesOf(buffer);
+            }
             return result == null ? "" : result.toString();
         } catch (ReflectiveOperationException ignored) {
             return inboundMessage.toString();
         }
     }
 
-    private static Optional<SectionSeatStatus> parseText(String raw) {
-        if (raw == null || raw.isBlank()) {
-            return Optional.empty();
-        }
+    private static byte[] bytesOf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
 
-        for (String candidate : candidates(raw)) {
-            Optional<SectionSeatStatus> parsed = parseJson(candidate);
-            if (parsed.isPresent()) {
-                return parsed;
+    private static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
             }
         }
-
-        return Optional.empty();
+        return length;
     }
 
     private static List<String> candidates(String raw) {
@@ -91,19 +245,38 @@ final class SeatStatusMessageParser {
         return data.toString();
     }
 
-    private static Optional<SectionSeatStatus> parseJson(String candidate) {
+    private static JsonNode readJson(String candidate) {
         try {
-            JsonNode payload = unwrapData(mapper.readTree(candidate));
-            int sectionIndex = payload.path("sectionIndex").asInt(-1);
-            JsonNode seatStatusNode = payload.get("seatStatus");
-            if (sectionIndex < 0 || seatStatusNode == null || !seatStatusNode.isArray()) {
-                return Optional.empty();
-            }
+            return mapper.readTree(candidate);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private record JsonDecodeResult(SectionSeatStatus seatStatus, ParseFailure failure) {
+    }
 
-            int[] seatStatus = mapper.treeToValue(seatStatusNode, int[].class);
-            return Optional.of(new SectionSeatStatus(sectionIndex, seatStatus));
+    private static JsonDecodeResult seatStatusOf(JsonNode root) {
+        JsonNode payload;
+        try {
+            payload = unwrapData(root);
         } catch (Exception ignored) {
-            return Optional.empty();
+            return new JsonDecodeResult(null, ParseFailure.NOT_JSON);
+        }
+
+        int sectionIndex = payload.path("sectionIndex").asInt(-1);
+        JsonNode seatStatusNode = payload.get("seatStatus");
+        if (sectionIndex < 0 || seatStatusNode == null) {
+            return new JsonDecodeResult(null, ParseFailure.NOT_SEAT_STATUS);
+        }
+        if (!seatStatusNode.isArray()) {
+            return new JsonDecodeResult(null, ParseFailure.INVALID_SEAT_STATUS);
+        }
+
+        try {
+            return new JsonDecodeResult(new SectionSeatStatus(sectionIndex, SeatBitmap.fromJsonArray(seatStatusNode)), null);
+        } catch (IllegalArgumentException ignored) {
+            return new JsonDecodeResult(null, ParseFailure.INVALID_SEAT_STATUS);
         }
     }
 
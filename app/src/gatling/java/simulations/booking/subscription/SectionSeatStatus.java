@@ -1,4 +1,4 @@
 package simulations.booking.subscription;
 
-public record SectionSeatStatus(int sectionIndex, int[] seatStatus) {
+public record SectionSeatStatus(int sectionIndex, SeatBitmap seatStatus) {
 }
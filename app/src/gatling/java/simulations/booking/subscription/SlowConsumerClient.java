@@ -0,0 +1,345 @@
+package simulations.booking.subscription;
+
+import simulations.booking.metrics.PropagationTracker;
+import simulations.booking.metrics.SlowConsumerStats;
+import simulations.config.Config.SubscriptionType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static simulations.config.Config.*;
+import static simulations.config.Config.Url.ROOT_URL_HTTP;
+
+/**
+ * 읽기 속도를 제한한 좌석 상태 구독 클라이언트
+ *
+ * Gatling의 SSE/WS 클라이언트는 소켓을 최대한 빨리 읽어 버퍼에 쌓으므로 느린 모바일 클라이언트를 흉내 낼 수 없다.
+ * java.net.http 클라이언트는 구독자가 요청한 만큼만 소켓을 읽으므로, 읽은 바이트 수에 비례해 다음 읽기를 늦추고
+ * 주기적으로 읽기를 멈추면 커널 수신 버퍼와 TCP 윈도가 차서 서버 쪽 송신 버퍼에 메시지가 쌓인다.
+ * 수신 버퍼 크기는 jdk.httpclient.receiveBufferSize로 정하며, 첫 연결 전에 한 번만 적용된다.
+ */
+public final class SlowConsumerClient {
+
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "slow-consumer-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class ClientHolder {
+        static final HttpClient CLIENT;
+
+        static {
+            if (SLOW_CONSUMER_RECEIVE_BUFFER_BYTES > 0 && System.getProperty("jdk.httpclient.receiveBufferSize") == null) {
+                System.setProperty("jdk.httpclient.receiveBufferSize", String.valueOf(SLOW_CONSUMER_RECEIVE_BUFFER_BYTES));
+            }
+            CLIENT = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+        }
+    }
+
+    private final SubscriptionType type;
+    private final PropagationTracker.SeenSeats seenSeats;
+    private final long openedAt = System.currentTimeMillis();
+    private final AtomicBoolean connected = new AtomicBoolean(false);
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile boolean closing = false;
+    private volatile long nextStallAt;
+
+    private volatile Flow.Subscription sseSubscription;
+    private volatile CompletableFuture<?> sseResponse;
+    private volatile WebSocket webSocket;
+
+    private SlowConsumerClient(SubscriptionType type) {
+        this.type = type;
+        this.seenSeats = ENABLE_PROPAGATION_TRACKING ? PropagationTracker.newSeenSeats() : null;
+        this.nextStallAt = openedAt + SLOW_CONSUMER_STALL_INTERVAL_SECONDS * 1000L;
+    }
+
+    /**
+     * 비동기로 구독을 시작한다. 연결 결과는 SlowConsumerStats에 기록된다.
+     */
+    public static SlowConsumerClient open(SubscriptionType type, int targetEvent, String sessionId) {
+        SlowConsumerClient client = new SlowConsumerClient(type);
+        if (type == SubscriptionType.WS) {
+            client.openWebSocket(targetEvent, sessionId);
+        } else {
+            client.openSse(targetEvent, sessionId);
+        }
+        return client;
+    }
+
+    public void close() {
+        closing = true;
+        Flow.Subscription subscription = sseSubscription;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        CompletableFuture<?> response = sseResponse;
+        if (response != null) {
+            response.cancel(true);
+        }
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            socket.abort();
+        }
+        finish();
+    }
+
+    private void openSse(int targetEvent, String sessionId) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ROOT_URL_HTTP + "/booking/seat/" + targetEvent))
+                .header("Accept", "text/event-stream")
+                .header("Cookie", "SID=" + sessionId)
+                .GET()
+                .build();
+
+        sseResponse = ClientHolder.CLIENT
+                .sendAsync(request, responseInfo -> {
+                    if (responseInfo.statusCode() != 200) {
+                        return BodySubscribers.discarding();
+                    }
+                    markConnected();
+                    return BodySubscribers.fromSubscriber(new ThrottledSseSubscriber());
+                })
+                .whenComplete((response, error) -> finish());
+    }
+
+    private void openWebSocket(int targetEvent, String sessionId) {
+        ClientHolder.CLIENT.newWebSocketBuilder()
+                .header("Cookie", "SID=" + sessionId)
+                .buildAsync(URI.create(WsHandler.seatStreamUrl(targetEvent)), new ThrottledWsListener())
+                .whenComplete((socket, error) -> {
+                    if (error != null) {
+                        finish();
+                    }
+                });
+    }
+
+    private void markConnected() {
+        if (connected.compareAndSet(false, true)) {
+            SlowConsumerStats.connected(System.currentTimeMillis() - openedAt);
+            if (ENABLE_PROPAGATION_TRACKING) {
+                PropagationTracker.subscribed();
+            }
+        }
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (!connected.get()) {
+            if (!closing) {
+                SlowConsumerStats.connectFailed();
+            }
+            return;
+        }
+
+        SlowConsumerStats.disconnected(!closing);
+        if (ENABLE_PROPAGATION_TRACKING) {
+            PropagationTracker.unsubscribed();
+        }
+    }
+
+    private void onMessage(Object message) {
+        if (seenSeats == null) {
+            return;
+        }
+
+        SeatStatusMessageParser.parse(message).ifPresent(sectionSeatStatus -> PropagationTracker.observeInto(
+                SlowConsumerStats.propagationLatency(),
+                type,
+                sectionSeatStatus.sectionIndex(),
+                sectionSeatStatus.seatStatus(),
+                seenSeats,
+                openedAt,
+                System.currentTimeMillis()
+        ));
+    }
+
+    // 읽은 바이트를 설정한 읽기 속도로 소화하는 데 걸리는 시간만큼, 중단 주기가 되면 중단 시간만큼 다음 읽기를 늦춘다.
+    private void scheduleNextRead(int bytes, Runnable readNext) {
+        if (closing) {
+            return;
+        }
+
+        long delayMillis = SLOW_CONSUMER_READ_BYTES_PER_SEC > 0 ? bytes * 1000L / SLOW_CONSUMER_READ_BYTES_PER_SEC : 0;
+        long now = System.currentTimeMillis();
+        if (SLOW_CONSUMER_STALL_INTERVAL_SECONDS > 0 && now >= nextStallAt) {
+            delayMillis += SLOW_CONSUMER_STALL_MILLIS;
+            nextStallAt = now + delayMillis + SLOW_CONSUMER_STALL_INTERVAL_SECONDS * 1000L;
+            SlowConsumerStats.recordStall();
+        }
+
+        if (delayMillis == 0) {
+            readNext.run();
+        } else {
+            scheduler.schedule(readNext, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final class ThrottledSseSubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+
+        private byte[] pending = new byte[0];
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            sseSubscription = subscription;
+            if (closing) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            int bytes = 0;
+            for (ByteBuffer buffer : buffers) {
+                bytes += buffer.remaining();
+            }
+
+            byte[] merged = Arrays.copyOf(pending, pending.length + bytes);
+            int offset = pending.length;
+            for (ByteBuffer buffer : buffers) {
+                int length = buffer.remaining();
+                buffer.get(merged, offset, length);
+                offset += length;
+            }
+
+            pending = consumeEvents(merged, bytes);
+            scheduleNextRead(bytes, () -> sseSubscription.request(1));
+        }
+
+        // 빈 줄로 끝난 이벤트를 모두 처리하고 끝나지 않은 나머지 바이트를 돌려준다.
+        private byte[] consumeEvents(byte[] data, int bytesRead) {
+            int messages = 0;
+            int eventStart = 0;
+            for (int i = 0; i + 1 < data.length; i++) {
+                int separatorLength = eventSeparatorLength(data, i);
+                if (separatorLength == 0) {
+                    continue;
+                }
+
+                String event = new String(data, eventStart, i - eventStart, StandardCharsets.UTF_8);
+                if (!event.isBlank()) {
+                    messages++;
+                    onMessage(event);
+                }
+                eventStart = i + separatorLength;
+                i = eventStart - 1;
+            }
+
+            SlowConsumerStats.recordRead(bytesRead, messages);
+            return Arrays.copyOfRange(data, eventStart, data.length);
+        }
+
+        private int eventSeparatorLength(byte[] data, int i) {
+            if (data[i] == '\n' && data[i + 1] == '\n') {
+                return 2;
+            }
+            if (i + 3 < data.length && data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n') {
+                return 4;
+            }
+            return 0;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            finish();
+        }
+
+        @Override
+        public void onComplete() {
+            finish();
+        }
+    }
+
+    private final class ThrottledWsListener implements WebSocket.Listener {
+
+        private final StringBuilder text = new StringBuilder();
+        private byte[] binary = new byte[0];
+
+        @Override
+        public void onOpen(WebSocket socket) {
+            webSocket = socket;
+            markConnected();
+            if (closing) {
+                socket.abort();
+                return;
+            }
+            socket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            int messages = 0;
+            if (last) {
+                messages = 1;
+                onMessage(text.toString());
+                text.setLength(0);
+            }
+
+            SlowConsumerStats.recordRead(data.length(), messages);
+            scheduleNextRead(data.length(), () -> socket.request(1));
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket socket, ByteBuffer data, boolean last) {
+            int bytes = data.remaining();
+            int offset = binary.length;
+            binary = Arrays.copyOf(binary, offset + bytes);
+            data.get(binary, offset, bytes);
+            if (last) {
+                onMessage(binary);
+                binary = new byte[0];
+            }
+
+            SlowConsumerStats.recordRead(bytes, last ? 1 : 0);
+            scheduleNextRead(bytes, () -> socket.request(1));
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPing(WebSocket socket, ByteBuffer message) {
+            scheduleNextRead(0, () -> socket.request(1));
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket socket, ByteBuffer message) {
+            scheduleNextRead(0, () -> socket.request(1));
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            finish();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            finish();
+        }
+    }
+}
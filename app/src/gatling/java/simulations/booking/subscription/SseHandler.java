@@ -1,36 +1,61 @@
 package simulations.booking.subscription;
 
 import io.gatling.javaapi.core.ActionBuilder;
+import io.gatling.javaapi.core.Session;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
+import simulations.config.Config.SeatFrameEncoding;
+import simulations.config.Config.SubscriptionType;
+
+import java.util.List;
 
 import static io.gatling.javaapi.http.HttpDsl.sse;
+import static simulations.config.Config.SUBSCRIPTION_ENCODING;
 import static simulations.config.Config.Url.ROOT_URL_HTTP;
 
 public class SseHandler implements SubscriptionHandler {
 
     @Override
-    public HttpProtocolBuilder configureProtocol(HttpProtocolBuilder baseProtocol) {
-        return baseProtocol.sseUnmatchedInboundMessageBufferSize(1);
+    public HttpProtocolBuilder configureProtocol(HttpProtocolBuilder baseProtocol, int messageBufferSize) {
+        return baseProtocol.sseUnmatchedInboundMessageBufferSize(messageBufferSize);
     }
 
     @Override
     public ActionBuilder subscribe(int targetEvent) {
+        if (SUBSCRIPTION_ENCODING == SeatFrameEncoding.GZIP) {
+            return sse("SSE 연결")
+                    .get(ROOT_URL_HTTP + "/booking/seat/" + targetEvent)
+                    .header("Accept-Encoding", "gzip");
+        }
         return sse("SSE 연결")
                 .get(ROOT_URL_HTTP + "/booking/seat/" + targetEvent);
     }
 
+    @Override
+    public ActionBuilder resubscribe(int targetEvent) {
+        if (SUBSCRIPTION_ENCODING == SeatFrameEncoding.GZIP) {
+            return sse("SSE 재연결")
+                    .get(ROOT_URL_HTTP + "/booking/seat/" + targetEvent)
+                    .header("Last-Event-ID", "#{lastEventId}")
+                    .header("Accept-Encoding", "gzip");
+        }
+        return sse("SSE 재연결")
+                .get(ROOT_URL_HTTP + "/booking/seat/" + targetEvent)
+                .header("Last-Event-ID", "#{lastEventId}");
+    }
+
     @Override
     public ActionBuilder reloadSeatStatus() {
-        return sse.processUnmatchedMessages((messages, session) -> {
+        return sse.processUnmatchedMessages((rawMessages, rawSession) -> {
+            List<SeatMessage> messages = InboundMessages.receive(SubscriptionType.SSE, rawMessages);
+            Session session = InboundMessages.observe(SubscriptionType.SSE, messages, rawSession);
             Integer currentSection = session.get("currentSection");
 
             for (int i = messages.size() - 1; i >= 0; i--) {
-                var parsed = SeatStatusMessageParser.parse(messages.get(i));
-                if (parsed.isEmpty()) {
+                SectionSeatStatus sectionSeatStatus = messages.get(i).seatStatus();
+                if (sectionSeatStatus == null) {
                     continue;
                 }
 
-                SectionSeatStatus sectionSeatStatus = parsed.get();
                 if (currentSection != null && sectionSeatStatus.sectionIndex() != currentSection) {
                     continue;
                 }
@@ -44,6 +69,14 @@ public class SseHandler implements SubscriptionHandler {
         });
     }
 
+    @Override
+    public ActionBuilder drainMessages(InboundMessageProcessor processor) {
+        return sse.processUnmatchedMessages((rawMessages, session) -> {
+            List<SeatMessage> messages = InboundMessages.receive(SubscriptionType.SSE, rawMessages);
+            return processor.process(messages, InboundMessages.observe(SubscriptionType.SSE, messages, session));
+        });
+    }
+
     @Override
     public ActionBuilder close() {
         return sse("SSE 연결 종료").close();
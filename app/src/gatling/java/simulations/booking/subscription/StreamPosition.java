@@ -0,0 +1,37 @@
+package simulations.booking.subscription;
+
+import io.gatling.javaapi.core.Session;
+
+import java.util.List;
+
+/**
+ * 구독 스트림에서 마지막으로 받은 이벤트 ID와 첫 좌석 상태 메시지 수신 시각을 세션에 남긴다.
+ */
+final class StreamPosition {
+
+    private StreamPosition() {
+    }
+
+    static Session update(List<SeatMessage> messages, Session session) {
+        String lastEventId = null;
+        Long firstSeatMessageAt = session.contains("firstSeatMessageAt") ? session.getLong("firstSeatMessageAt") : null;
+
+        for (SeatMessage message : messages) {
+            if (message.eventId() != null) {
+                lastEventId = message.eventId();
+            }
+            if (firstSeatMessageAt == null && message.hasSeatStatus()) {
+                firstSeatMessageAt = message.receivedAt();
+            }
+        }
+
+        Session updatedSession = session;
+        if (lastEventId != null) {
+            updatedSession = updatedSession.set("lastEventId", lastEventId);
+        }
+        if (firstSeatMessageAt != null) {
+            updatedSession = updatedSession.set("firstSeatMessageAt", firstSeatMessageAt);
+        }
+        return updatedSession;
+    }
+}
@@ -0,0 +1,82 @@
+package simulations.booking.subscription;
+
+import io.gatling.javaapi.core.Session;
+import simulations.booking.core.VenueLayout;
+import simulations.booking.metrics.StreamTelemetry;
+import simulations.config.Config.SubscriptionType;
+
+import java.util.List;
+
+/**
+ * 구독자별 메시지 도착 간격과 메시지당 변경 좌석 수를 StreamTelemetry에 넘긴다.
+ *
+ * 섹션별 직전 상태는 좌석마다 예매 가능 여부 1비트만 세션에 두고, 비트맵은 구독자가 실제로 받은 섹션에만 만든다.
+ * 구독자는 대개 한두 섹션만 받으므로 공연장이 커져도 구독자당 메모리는 받은 섹션 크기에 비례한다.
+ */
+final class StreamTelemetryObserver {
+
+    private static final String LAST_RECEIVED_AT_KEY = "telemetryLastReceivedAt";
+    private static final String SEAT_BITS_KEY = "telemetrySeatBits";
+
+    private StreamTelemetryObserver() {
+    }
+
+    static Session observe(SubscriptionType type, List<SeatMessage> messages, Session session) {
+        if (messages.isEmpty()) {
+            return session;
+        }
+
+        long lastReceivedAt = session.contains(LAST_RECEIVED_AT_KEY) ? session.getLong(LAST_RECEIVED_AT_KEY) : -1L;
+        // 섹션별 비트맵. null이면 아직 그 섹션 메시지를 받지 않았다.
+        long[][] seatBits = session.get(SEAT_BITS_KEY);
+        Session updatedSession = session;
+        if (seatBits == null) {
+            seatBits = new long[VenueLayout.getSectionCount()][];
+            updatedSession = updatedSession.set(SEAT_BITS_KEY, seatBits);
+        }
+
+        for (SeatMessage message : messages) {
+            if (lastReceivedAt >= 0) {
+                StreamTelemetry.recordInterArrival(type, message.receivedAt() - lastReceivedAt);
+            }
+            lastReceivedAt = message.receivedAt();
+
+            SectionSeatStatus sectionSeatStatus = message.seatStatus();
+            if (sectionSeatStatus == null) {
+                continue;
+            }
+
+            int section = sectionSeatStatus.sectionIndex();
+            if (section < 0 || section >= seatBits.length) {
+                continue;
+            }
+
+            boolean firstSnapshot = seatBits[section] == null;
+            if (firstSnapshot) {
+                seatBits[section] = new long[(VenueLayout.getSeatCount(section) + 63) >>> 6];
+            }
+            int changedSeats = applySnapshot(seatBits[section], section, sectionSeatStatus.seatStatus());
+            if (!firstSnapshot) {
+                StreamTelemetry.recordSeatChanges(type, changedSeats);
+            }
+        }
+
+        return updatedSession.set(LAST_RECEIVED_AT_KEY, lastReceivedAt);
+    }
+
+    // 섹션 상태를 섹션 비트맵에 덮어쓰고 바뀐 좌석 수를 돌려준다. 공연장 배치보다 많은 좌석은 무시한다.
+    private static int applySnapshot(long[] sectionBits, int section, SeatBitmap seatStatus) {
+        int changed = 0;
+        int seatCount = Math.min(seatStatus.size(), VenueLayout.getSeatCount(section));
+        for (int seat = 0; seat < seatCount; seat++) {
+            long mask = 1L << seat;
+            boolean available = seatStatus.isAvailable(seat);
+            boolean wasAvailable = (sectionBits[seat >>> 6] & mask) != 0;
+            if (available != wasAvailable) {
+                changed++;
+                sectionBits[seat >>> 6] ^= mask;
+            }
+        }
+        return changed;
+    }
+}
@@ -1,27 +1,53 @@
 package simulations.booking.subscription;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.gatling.javaapi.core.ActionBuilder;
+import io.gatling.javaapi.core.Session;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
 
+import java.util.List;
+
 public interface SubscriptionHandler {
 
-    HttpProtocolBuilder configureProtocol(HttpProtocolBuilder baseProtocol);
+    /**
+     * @param messageBufferSize 처리하지 않은 수신 메시지를 세션마다 보관하는 최대 개수
+     */
+    HttpProtocolBuilder configureProtocol(HttpProtocolBuilder baseProtocol, int messageBufferSize);
 
     ActionBuilder subscribe(int targetEvent);
 
+    /**
+     * 끊긴 구독을 다시 연다. SSE는 세션의 lastEventId를 Last-Event-ID 헤더로 보내 놓친 이벤트부터 이어 받는다.
+     */
+    ActionBuilder resubscribe(int targetEvent);
+
     ActionBuilder reloadSeatStatus();
 
+    /**
+     * 버퍼에 쌓인 수신 메시지를 디코딩해 processor에 넘기고 비운다.
+     */
+    ActionBuilder drainMessages(InboundMessageProcessor processor);
+
     ActionBuilder close();
 
-    default int[] parseSeatStatus(JsonNode seatStatusJson) {
-        ObjectMapper mapper = new ObjectMapper();
+    /**
+     * 버퍼의 메시지를 비우면서 마지막 이벤트 ID(lastEventId)와 첫 좌석 상태 메시지 수신 시각(firstSeatMessageAt)을 세션에 남긴다.
+     */
+    default ActionBuilder trackStreamPosition() {
+        return drainMessages(StreamPosition::update);
+    }
+
+    @FunctionalInterface
+    interface InboundMessageProcessor {
+        Session process(List<SeatMessage> messages, Session session);
+    }
+
+    default SeatBitmap parseSeatStatus(JsonNode seatStatusJson) {
         try {
-            return mapper.treeToValue(seatStatusJson, int[].class);
-        } catch (Exception e) {
+            return SeatBitmap.fromJsonArray(seatStatusJson);
+        } catch (IllegalArgumentException e) {
             System.err.println("seatStatus parse error: " + e.getMessage());
-            return new int[0];
+            return new SeatBitmap(0);
         }
     }
 }
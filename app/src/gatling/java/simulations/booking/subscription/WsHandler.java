@@ -1,36 +1,50 @@
 package simulations.booking.subscription;
 
 import io.gatling.javaapi.core.ActionBuilder;
+import io.gatling.javaapi.core.Session;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
+import simulations.config.Config.SeatFrameEncoding;
+import simulations.config.Config.SubscriptionType;
+
+import java.util.List;
 
 import static io.gatling.javaapi.http.HttpDsl.ws;
+import static simulations.config.Config.SUBSCRIPTION_ENCODING;
 import static simulations.config.Config.Url.ROOT_URL_WS;
 
 public class WsHandler implements SubscriptionHandler {
 
     @Override
-    public HttpProtocolBuilder configureProtocol(HttpProtocolBuilder baseProtocol) {
-        return baseProtocol.wsUnmatchedInboundMessageBufferSize(1);
+    public HttpProtocolBuilder configureProtocol(HttpProtocolBuilder baseProtocol, int messageBufferSize) {
+        return baseProtocol.wsUnmatchedInboundMessageBufferSize(messageBufferSize);
     }
 
     @Override
     public ActionBuilder subscribe(int targetEvent) {
         return ws("웹소켓 연결")
-                .connect(ROOT_URL_WS + "/benchmark/seat?eventId=" + targetEvent);
+                .connect(seatStreamUrl(targetEvent));
+    }
+
+    // 웹소켓에는 이어 받기 규약이 없어 새로 연결한다.
+    @Override
+    public ActionBuilder resubscribe(int targetEvent) {
+        return ws("웹소켓 재연결")
+                .connect(seatStreamUrl(targetEvent));
     }
 
     @Override
     public ActionBuilder reloadSeatStatus() {
-        return ws.processUnmatchedMessages((messages, session) -> {
+        return ws.processUnmatchedMessages((rawMessages, rawSession) -> {
+            List<SeatMessage> messages = InboundMessages.receive(SubscriptionType.WS, rawMessages);
+            Session session = InboundMessages.observe(SubscriptionType.WS, messages, rawSession);
             Integer currentSection = session.get("currentSection");
 
             for (int i = messages.size() - 1; i >= 0; i--) {
-                var parsed = SeatStatusMessageParser.parse(messages.get(i));
-                if (parsed.isEmpty()) {
+                SectionSeatStatus sectionSeatStatus = messages.get(i).seatStatus();
+                if (sectionSeatStatus == null) {
                     continue;
                 }
 
-                SectionSeatStatus sectionSeatStatus = parsed.get();
                 if (currentSection != null && sectionSeatStatus.sectionIndex() != currentSection) {
                     continue;
                 }
@@ -44,6 +58,24 @@ public class WsHandler implements SubscriptionHandler {
         });
     }
 
+    @Override
+    public ActionBuilder drainMessages(InboundMessageProcessor processor) {
+        return ws.processUnmatchedMessages((rawMessages, session) -> {
+            List<SeatMessage> messages = InboundMessages.receive(SubscriptionType.WS, rawMessages);
+            return processor.process(messages, InboundMessages.observe(SubscriptionType.WS, messages, session));
+        });
+    }
+
+    /**
+     * JSON이 아닌 인코딩은 encoding 쿼리 파라미터로 요청한다.
+     */
+    static String seatStreamUrl(int targetEvent) {
+        String url = ROOT_URL_WS + "/benchmark/seat?eventId=" + targetEvent;
+        return SUBSCRIPTION_ENCODING == SeatFrameEncoding.JSON
+                ? url
+                : url + "&encoding=" + SUBSCRIPTION_ENCODING.name().toLowerCase();
+    }
+
     @Override
     public ActionBuilder close() {
         return ws("웹소켓 종료").close();
@@ -1,5 +1,7 @@
 package simulations.config;
 
+import java.util.Set;
+
 public final class Config {
     private Config() {
     }
@@ -8,24 +10,122 @@ public final class Config {
 
     public static final SubscriptionType SUBSCRIPTION_TYPE = SubscriptionType.SSE;
 
+    // 좌석 상태 메시지 인코딩 요청. 파서는 받은 프레임의 인코딩을 스스로 판별하므로 서버가 요청을 무시해도 동작한다.
+    // 웹소켓은 encoding 쿼리 파라미터로 요청하고, SSE는 GZIP일 때만 Accept-Encoding: gzip을 보낸다. (-Dsubscription.encoding)
+    public enum SeatFrameEncoding { JSON, BINARY, GZIP }
+
+    public static final SeatFrameEncoding SUBSCRIPTION_ENCODING =
+            SeatFrameEncoding.valueOf(System.getProperty("subscription.encoding", "JSON"));
+
+    // 구독 방식과 인코딩별 수신 메시지 수/바이트 집계. 웹소켓 바이너리 프레임의 gzip은 압축된 크기로 세지만,
+    // SSE의 Content-Encoding: gzip은 Gatling이 풀어서 넘기므로 압축 해제 후 크기만 보인다.
+    public static final boolean ENABLE_BANDWIDTH_STATS = true;
+
     public enum ScenarioMode {
         DYNAMIC,
         STATIC,
-        PARALLEL
+        PARALLEL,
+        CAPACITY_SEARCH,
+        RECONNECT_STORM;
+
+        /**
+         * Plan.json 계획을 재생하는 모드인지 여부
+         */
+        public boolean usesPlan() {
+            return this == STATIC || this == PARALLEL;
+        }
     }
 
     public static final ScenarioMode SCENARIO_MODE = ScenarioMode.DYNAMIC;
 
+    // STATIC/PARALLEL 계획 재생 배율. 2.0이면 Plan.json의 time_ms를 절반으로 줄여 2배 빠르게 재생한다.
+    // 모든 시각을 같은 비율로 줄이므로 충돌 그룹의 동시성과 유저별 요청 순서는 그대로다. (-Dplan.timeScale)
+    public static final double PLAN_TIME_SCALE = doubleProperty("plan.timeScale", 1.0);
+
+    // PARALLEL 계획 출처. FILE은 Plan.json을 읽고, SYNTHESIZED는 PlanConfig.json으로 JVM 안에서 요청을 시간순으로 만들어
+    // PARALLEL_DISPATCH_WORKERS개의 가상 유저가 차례로 가져가 보낸다. 합성 요청은 PLAN_FEED_CAPACITY개까지만 미리 만들어 둔다.
+    // 합성 전에 같은 설정으로 한 번 더 합성해 요청열 지문을 PLAN_EXPECTED_FINGERPRINT와 비교하고, 다르면 부하를 걸기 전에 실패한다.
+    // 기본값은 번들 PlanConfig.json(seed 0)의 지문이다. PlanConfig.json이나 PlanSynthesizer를 바꾸면 함께 갱신하고,
+    // -Dplan.expectedFingerprint= 로 비우면 검사하지 않는다. (-Dplan.source 등)
+    public enum PlanSource { FILE, SYNTHESIZED }
+
+    public static final PlanSource PLAN_SOURCE = PlanSource.valueOf(System.getProperty("plan.source", "FILE"));
+    public static final int PARALLEL_DISPATCH_WORKERS = Integer.getInteger("plan.dispatchWorkers", 1000);
+    public static final int PLAN_FEED_CAPACITY = Integer.getInteger("plan.feedCapacity", 10_000);
+    public static final String PLAN_EXPECTED_FINGERPRINT = System.getProperty("plan.expectedFingerprint", "3eb2abfe79ba6913");
+
+    // Plan.json을 읽은 뒤 유저별 섹션 전환 순서, collision_loser 참조, 충돌 그룹 시각, no_collision 좌석 중복을
+    // 여러 코어에서 나눠 검사하고, 위반이 있으면 계획 요청을 보내기 전에 실행을 실패시킨다. (-Dplan.validate=false로 끔)
+    // 검증은 로그인, 구독과 겹쳐 백그라운드에서 돌기 때문에 실패가 드러날 때는 로그인과 구독 요청이 이미 나간 상태일 수 있다.
+    public static final boolean ENABLE_PLAN_VALIDATION = Boolean.parseBoolean(System.getProperty("plan.validate", "true"));
+
+    // CAPACITY_SEARCH 모드 설정. 재컴파일 없이 -Dcapacity.xxx 시스템 프로퍼티로 덮어쓸 수 있다.
+    public static final class Capacity {
+        public static final double START_USERS_PER_SEC = doubleProperty("capacity.startUsersPerSec", 1.0);
+        public static final double STEP_USERS_PER_SEC = doubleProperty("capacity.stepUsersPerSec", 1.0);
+        public static final int MAX_STEPS = Integer.getInteger("capacity.maxSteps", 20);
+        public static final int STEP_DURATION_SECONDS = Integer.getInteger("capacity.stepSeconds", 60);
+        public static final int RAMP_DURATION_SECONDS = Integer.getInteger("capacity.rampSeconds", 10);
+        public static final int MIN_SAMPLES_PER_STEP = Integer.getInteger("capacity.minSamples", 20);
+
+        public static final long SLO_P99_MILLIS = Long.getLong("capacity.sloP99Millis", 1000L);
+        public static final double SLO_MAX_KO_RATIO = doubleProperty("capacity.sloMaxKoRatio", 0.01);
+        public static final double SLO_MAX_CONFLICT_RATIO = doubleProperty("capacity.sloMaxConflictRatio", 0.5);
+
+        private Capacity() {
+        }
+    }
+
+    // RECONNECT_STORM 모드 설정. -Dstorm.xxx 시스템 프로퍼티로 덮어쓸 수 있다.
+    // 최초 연결은 INJECTION_PROFILE이 있으면 그 도착률로, 없으면 CONNECT_RAMP_SECONDS 동안 균등하게 연다.
+    // 끊김은 첫 연결 후 DROP_AFTER_SECONDS에 한 번 일어나므로 연결 램프보다 길게 잡는다.
+    public static final class Storm {
+        public static final int USERS = Integer.getInteger("storm.users", 1000);
+        public static final int CONNECT_RAMP_SECONDS = Integer.getInteger("storm.connectRampSeconds", 60);
+        public static final int DROP_AFTER_SECONDS = Integer.getInteger("storm.dropAfterSeconds", 120);
+        public static final double DROP_RATIO = doubleProperty("storm.dropRatio", 1.0);
+        public static final int RECONNECT_JITTER_MILLIS = Integer.getInteger("storm.reconnectJitterMillis", 5000);
+        public static final int HOLD_AFTER_RECONNECT_SECONDS = Integer.getInteger("storm.holdSeconds", 120);
+        public static final int FIRST_MESSAGE_TIMEOUT_MILLIS = Integer.getInteger("storm.firstMessageTimeoutMillis", 10000);
+        public static final int POLL_INTERVAL_MILLIS = Integer.getInteger("storm.pollMillis", 100);
+
+        private Storm() {
+        }
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
     public static final class Url {
         public static final String ROOT_URL = "localhost:8080";
         public static final String ROOT_URL_HTTP = "http://" + ROOT_URL;
         public static final String ROOT_URL_WS = "ws://" + ROOT_URL;
     }
 
+    // DEFAULT: 기존 프로필 (HTML 리소스 추론, 유저별 커넥션)
+    // LEAN_API: 리소스 추론 없이 커넥션 풀을 공유하고, 응답을 읽지 않는 요청은 본문 파싱을 생략한다.
+    public enum HttpProfile { DEFAULT, LEAN_API }
+
+    public static final HttpProfile HTTP_PROFILE = HttpProfile.valueOf(System.getProperty("http.profile", "DEFAULT"));
+
+    // LEAN_API 프로필에서 HTTP/2 멀티플렉싱 사용 여부. 기본은 꺼져 있어 모든 시나리오가 기존과 같은 HTTP/1.1 커넥션 모델로 돌고,
+    // -Dhttp.enableHttp2=true로 켠 실행은 커넥션 모델이 달라 이전 결과와 직접 비교할 수 없다. DEFAULT 프로필에서는 무시한다.
+    // Gatling은 TLS(ALPN) 위에서만 HTTP/2를 협상하므로 https 대상일 때만 효과가 있다.
+    public static final boolean ENABLE_HTTP2 = Boolean.getBoolean("http.enableHttp2");
+
     public static final boolean DEBUG_LOGGING = true;
 
     public static final boolean TEST_ACCOUNT_ALREADY_STORED = false;
 
+    // 로그인 세션을 로컬 캐시 파일에 저장해 두고 다음 실행에서 재사용한다.
+    // 만료된 계정만 측정 구간 전에 사전 로그인 단계에서 다시 로그인한다.
+    public static final boolean ENABLE_SESSION_CACHE = false;
+    public static final String SESSION_CACHE_FILE = "session_cache.json";
+    public static final int SESSION_CACHE_TTL_MINUTES = 60;
+    public static final int PRE_LOGIN_CONCURRENCY = 50;
+
     public static final boolean ENABLE_WAITING_BETWEEN_ACTIONS = false;
     public static final int WAITING_SECOND_BETWEEN_ACTIONS_MILLIS = 20000;
 
@@ -40,14 +140,103 @@ public final class Config {
     public static final boolean ENABLE_WAITING_AFTER_SUBS = false;
     public static final int WAITING_AFTER_SUBS_MILLIS = 60000;
 
+    // 좌석 점유 반영 지연 측정. 구독자가 모든 좌석 상태 메시지를 보도록 메시지 버퍼를 늘린다.
+    // 예매 유저는 좌석 점유 시도 때만 버퍼를 비우므로, 버퍼가 넘쳐 버려진 메시지만큼 지연이 크게 측정될 수 있다.
+    public static final boolean ENABLE_PROPAGATION_TRACKING = false;
+
+    // 구독 스트림 텔레메트리. 메시지 수/크기, 구독자별 도착 간격, 파싱 실패 원인, 변경 합침(coalescing)을 집계하고
+    // 결과를 Gatling 리포트 디렉터리에 stream-telemetry.json으로 내보낸다. 반영 지연 측정처럼 메시지 버퍼를 늘린다.
+    public static final boolean ENABLE_STREAM_TELEMETRY = false;
+
+    // 수신했지만 처리하지 않은 SSE/WS 메시지를 세션마다 보관하는 최대 개수 (관람 유저는 WATCHER_MESSAGE_BUFFER_SIZE)
+    public static final int SUBSCRIPTION_MESSAGE_BUFFER_SIZE =
+            ENABLE_PROPAGATION_TRACKING || ENABLE_STREAM_TELEMETRY ? 256 : 1;
+
+    // 예매 없이 좌석 구독만 유지하는 관람 유저. 어떤 시나리오 모드와도 함께 실행된다.
+    // 관람 유저는 test(WATCHER_USER_OFFSET + n) 계정을 사용한다.
+    public static final boolean ENABLE_WATCHERS = false;
+    public static final int WATCHER_COUNT = 10000;
+    public static final int WATCHER_USER_OFFSET = 100000;
+    public static final int WATCHER_RAMP_SECONDS = 60;
+    public static final int WATCHER_HOLD_SECONDS = 600;
+    public static final int WATCHER_DRAIN_INTERVAL_MILLIS = 1000;
+    // 관람 유저 전용 프로토콜의 메시지 버퍼. 수신 메시지 수는 비울 때 버퍼에 남은 개수로 세므로,
+    // 비우기 주기 동안 받는 메시지보다 커야 구독자당 메시지 속도가 정확하다. 가득 찬 채 비운 횟수는 결과에 표시한다.
+    public static final int WATCHER_MESSAGE_BUFFER_SIZE = 1024;
+
+    // 느린 구독자. 관람 유저 중 SLOW_CONSUMER_RATIO 비율은 Gatling 대신 java.net.http 클라이언트로 구독하고,
+    // 읽기 속도를 제한하고 주기적으로 읽기를 멈춰 서버 쪽 송신 버퍼가 쌓이게 만든다.
+    // 수신 버퍼(SO_RCVBUF)가 작을수록 TCP 윈도가 빨리 닫혀 서버가 더 일찍 밀린다. 0이면 OS 기본값
+    public static final boolean ENABLE_SLOW_CONSUMERS = false;
+    public static final double SLOW_CONSUMER_RATIO = 0.2;
+    public static final int SLOW_CONSUMER_READ_BYTES_PER_SEC = 4096;
+    public static final int SLOW_CONSUMER_STALL_INTERVAL_SECONDS = 30;
+    public static final int SLOW_CONSUMER_STALL_MILLIS = 5000;
+    public static final int SLOW_CONSUMER_RECEIVE_BUFFER_BYTES = 8192;
+
+    // 충돌 그룹 동시 출발 (STATIC). 같은 충돌 그룹의 좌석 점유 요청을 그룹 게이트에 모았다가 같은 nanoTime 마감 시각에 함께 보낸다.
+    // 섹션 전환 요청 시간을 흡수하도록 LEAD_MILLIS 먼저 깨어나 전환을 마치고, 마감 SPIN_MICROS 전까지는 pause(타이머)로 기다린 뒤
+    // 남은 구간만 최대 SPIN_MICROS 스핀한다. 스핀은 여러 가상 유저가 함께 쓰는 Gatling 이벤트 루프 스레드를 막아
+    // 같은 루프의 멤버를 차례로 풀어 버리므로 수십 µs로 제한한다. 실제 달성한 그룹 내 전송 간격은 결과에 표시한다.
+    public static final boolean ENABLE_COLLISION_BURST_GATE = true;
+    public static final int COLLISION_GATE_LEAD_MILLIS = 200;
+    public static final int COLLISION_GATE_SPIN_MICROS = 50;
+
+    // 계획 기반 시나리오(STATIC/PARALLEL)에서 유저의 서버 세션이 이미 대상 섹션에 있으면 좌석 점유 전 섹션 전환을 생략한다.
+    // false면 예전처럼 점유마다 전환하고, 중복 전환 수만 결과에 표시한다.
+    public static final boolean ENABLE_SECTION_AFFINITY = true;
+
+    // 예약 권한 대기열 폴링. 권한이 없으면 서버의 Retry-After(없으면 WAITING_ROOM_POLL_INTERVAL_MILLIS)에
+    // ±WAITING_ROOM_POLL_JITTER 비율의 지터를 더해 다시 확인하고, WAITING_ROOM_TIMEOUT_SECONDS가 지나면 포기한다.
+    // 200/304 외에 WAITING_ROOM_QUEUED_STATUSES 응답은 대기 중으로 보고 정상 처리한다.
+    // false면 예전처럼 대기 없이 최대 10번 연달아 확인한다.
+    public static final boolean ENABLE_WAITING_ROOM = true;
+    public static final int WAITING_ROOM_POLL_INTERVAL_MILLIS = 3000;
+    public static final int WAITING_ROOM_MAX_POLL_INTERVAL_MILLIS = 30000;
+    public static final double WAITING_ROOM_POLL_JITTER = 0.2;
+    public static final int WAITING_ROOM_TIMEOUT_SECONDS = 600;
+    public static final Set<Integer> WAITING_ROOM_QUEUED_STATUSES = Set.of(202, 403, 429, 503);
+
     public static final boolean ENABLE_SKIP_CONFIRM_RESERVATIONS = true;
     public static final int TARGET_EVENT = 1;
     public static final int MAX_RETRY_IN_BOOKING_CONFLICT = 100;
 
+    // 유저 내 동시 좌석 점유 (DYNAMIC/CAPACITY_SEARCH). 한 좌석 맵에서 남은 좌석을 모두 골라 POST /booking을 함께 보내고,
+    // 실패한 좌석만 좌석별로 다시 시도한다. 한 번에 보내는 좌석 수는 MAX_PIPELINED_SEATS까지이며,
+    // 리소스 요청은 호스트당 커넥션 수(HTTP/1.1 기본 6) 안에서 동시에 나간다.
+    public static final boolean ENABLE_PIPELINED_BOOKING = false;
+    public static final int MAX_PIPELINED_SEATS = 8;
+
+    // 좌석 점유 충돌 시 재시도 정책 (DYNAMIC/CAPACITY_SEARCH). 재시도는 RETRY_BACKOFF_BASE_MILLIS × 2^(n-1)
+    // (최대 RETRY_BACKOFF_MAX_MILLIS) 안에서 무작위로 기다린 뒤, 최근 충돌률이 낮고 남은 좌석이 많은 섹션으로 보낸다.
+    // 유저당 재시도는 RETRY_BUDGET_PER_USER회까지이며, false면 매번 같은 지연 뒤 무작위 섹션으로 재시도한다.
+    public static final boolean ENABLE_ADAPTIVE_RETRY = true;
+    public static final int RETRY_BACKOFF_BASE_MILLIS = 100;
+    public static final int RETRY_BACKOFF_MAX_MILLIS = 5000;
+    public static final int RETRY_BUDGET_PER_USER = 30;
+    // 섹션별 충돌률을 집계하는 구간 길이
+    public static final int CONTENTION_WINDOW_SECONDS = 10;
+
+    // 도착 순서 공정성. 좌석 점유 요청마다 보낸/응답 시각을 좌석별로 모아, 한 좌석에 몰린 요청 중 먼저 보낸 요청이 좌석을 받았는지
+    // 실행 후 집계하고 fairness.json으로 내보낸다. 요청 경로는 CAS 한 번과 작은 객체 할당 하나다.
+    public static final boolean ENABLE_FAIRNESS_TRACKING = true;
+
+    // 좌석 경합 히트맵. 좌석마다 시도/성공/409 충돌/평균 응답 시간을 모아 섹션별 합계를 출력하고,
+    // col_len으로 행과 열을 나눈 seat-heatmap.csv/json/html을 Gatling 리포트 디렉터리에 쓴다. 메모리는 좌석당 long 4개다.
+    public static final boolean ENABLE_SEAT_HEATMAP = true;
+
     public static final int DYNAMIC_USER_COUNT = 1;
+
+    // 유저 도착 프로필. 비어 있으면 모든 유저를 한 번에 주입한다. (문법은 InjectionProfile 참고)
+    // DYNAMIC은 프로필의 도착률을 그대로 따르고, STATIC/PARALLEL은 계획 유저 수에 맞춰 도착률을 비례 조정한다.
+    public static final String INJECTION_PROFILE = System.getProperty("injection.profile", "");
     public static final int FIXED_BOOKING_AMOUNT = 4;
 
     // Dynamic mode can no longer infer the full section count from the first SSE event.
     // Keep this aligned with the target event's place layout.
     public static final int DYNAMIC_SECTION_COUNT = 3;
+
+    // PlanConfig.json이 없을 때 가정하는 섹션 크기 (VenueLayout)
+    public static final int DEFAULT_SECTION_SEAT_COUNT = 1000;
+    public static final int DEFAULT_SECTION_COL_LEN = 50;
 }
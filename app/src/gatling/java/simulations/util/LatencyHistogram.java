@@ -0,0 +1,112 @@
+package simulations.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 락 없이 동시에 기록할 수 있는 로그-선형 지연 시간 히스토그램
+ *
+ * 2의 거듭제곱 구간마다 16개의 하위 버킷을 두어 상대 오차를 약 6% 이내로 유지한다.
+ * 버킷 배열 크기가 고정되어 있어 기록 횟수와 무관하게 메모리 사용량이 일정하다.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final LongAccumulator maxValue = new LongAccumulator(Long::max, 0);
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.increment();
+        totalSum.add(v);
+        maxValue.accumulate(v);
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0.0 : (double) totalSum.sum() / count;
+    }
+
+    public long max() {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile 0~100 사이의 백분위
+     * @return 해당 백분위가 속한 버킷의 상한값. 기록이 없으면 0
+     */
+    public long percentile(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(upperBoundOf(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * 비어 있지 않은 버킷을 낮은 값부터 순회한다.
+     */
+    public void forEachBucket(BucketVisitor visitor) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount > 0) {
+                visitor.visit(lowerBoundOf(i), upperBoundOf(i), bucketCount);
+            }
+        }
+    }
+
+    public String summary() {
+        return String.format(
+                "n=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                count(), mean(), percentile(50), percentile(90), percentile(99), max()
+        );
+    }
+
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long lowerBound, long upperBound, long count);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    static long upperBoundOf(int index) {
+        return index + 1 < BUCKET_COUNT ? lowerBoundOf(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,84 @@
+package simulations.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 시뮬레이션 지표를 Gatling 리포트와 같은 디렉터리에 파일로 내보낸다.
+ *
+ * Simulation.after() 시점에는 이번 실행의 리포트 디렉터리(simulation.log)가 이미 만들어져 있으므로
+ * build/reports/gatling 아래에서 가장 최근에 수정된 디렉터리에 쓴다.
+ * 디렉터리가 없으면 build/reports/gatling에 바로 쓴다.
+ */
+public final class ReportExporter {
+
+    private static final String GATLING_REPORTS_DIR = "build/reports/gatling";
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private ReportExporter() {
+    }
+
+    public static File reportDirectory() {
+        File reportsRoot = new File(GATLING_REPORTS_DIR);
+        File[] runDirectories = reportsRoot.listFiles(File::isDirectory);
+        if (runDirectories == null || runDirectories.length == 0) {
+            reportsRoot.mkdirs();
+            return reportsRoot;
+        }
+
+        File latest = runDirectories[0];
+        for (File directory : runDirectories) {
+            if (directory.lastModified() > latest.lastModified()) {
+                latest = directory;
+            }
+        }
+        return latest;
+    }
+
+    public static void writeJson(String fileName, Object content) {
+        File target = new File(reportDirectory(), fileName);
+        try {
+            mapper.writeValue(target, content);
+            System.out.println("  내보내기: " + target.getPath());
+        } catch (IOException e) {
+            System.err.println(fileName + " 내보내기 실패: " + e.getMessage());
+        }
+    }
+
+    public static void writeText(String fileName, String content) {
+        File target = new File(reportDirectory(), fileName);
+        try {
+            Files.writeString(target.toPath(), content, StandardCharsets.UTF_8);
+            System.out.println("  내보내기: " + target.getPath());
+        } catch (IOException e) {
+            System.err.println(fileName + " 내보내기 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 히스토그램을 요약값과 비어 있지 않은 버킷 목록으로 변환한다.
+     */
+    public static Map<String, Object> histogram(LatencyHistogram histogram) {
+        List<long[]> buckets = new ArrayList<>();
+        histogram.forEachBucket((lowerBound, upperBound, count) -> buckets.add(new long[]{lowerBound, upperBound, count}));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", histogram.count());
+        result.put("mean", histogram.mean());
+        result.put("p50", histogram.percentile(50));
+        result.put("p90", histogram.percentile(90));
+        result.put("p99", histogram.percentile(99));
+        result.put("max", histogram.max());
+        result.put("buckets", buckets);
+        return result;
+    }
+}
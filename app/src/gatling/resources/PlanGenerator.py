@@ -61,6 +61,7 @@ class CollisionGroup:
     seat: int
     request_ids: list[str]
     winner_user: int
+    winner_id: str                         # 계획상 좌석을 차지하는 요청
 
     def to_dict(self) -> dict:
         return {
@@ -68,7 +69,8 @@ class CollisionGroup:
             "time_ms": self.time_ms,
             "section": self.section,
             "seat": self.seat,
-            "requests": self.request_ids
+            "requests": self.request_ids,
+            "winner": self.winner_id
         }
 
 
@@ -335,6 +337,8 @@ class ReservationSimulator:
         sm_dicts = [r.to_dict() for r in section_move_requests]
         result["requests"].extend(sm_dicts)
         result["requests"].sort(key=lambda r: (r["time_ms"], r["id"]))
+        # 시뮬레이터가 요청 본문보다 먼저 읽는 값. collision_loser 대체 요청을 뺀, 유저 번호가 붙은 요청 수 (section_move 포함)
+        result["stats"]["planned_requests"] = sum(1 for r in result["requests"] if isinstance(r["user"], int))
         # simulation_duration_ms 는 _process_results 가 max(time_ms) 로 산출. 덮어쓰지 않음.
         return result
 
@@ -382,7 +386,8 @@ class ReservationSimulator:
                     section=section,
                     seat=seat,
                     request_ids=[r.id for r in reqs_sorted],
-                    winner_user=winner.user
+                    winner_user=winner.user,
+                    winner_id=winner.id
                 )
                 collision_groups.append(collision)
                 for req in reqs_sorted: